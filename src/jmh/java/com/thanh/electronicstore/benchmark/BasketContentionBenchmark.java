@@ -0,0 +1,87 @@
+package com.thanh.electronicstore.benchmark;
+
+import com.thanh.electronicstore.dto.BasketDTO;
+import com.thanh.electronicstore.dto.BasketItemDTO;
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.service.BasketService;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Four threads creating baskets through {@link BasketService} against the in-memory H2 database,
+ * each basket reserving stock on {@link #LINES} products. With {@code disjoint} products every
+ * thread has products of its own, so requests only share the basket table; with {@code shared}
+ * every thread reserves the same products and waits on their rows. The gap between the two is
+ * what contention on a product costs on the real path, stock update and commit included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class BasketContentionBenchmark {
+  private static final int THREADS = 4;
+  private static final int LINES = 3;
+
+  @Param({"disjoint", "shared"})
+  public String products;
+
+  private ConfigurableApplicationContext context;
+  private BasketService basketService;
+  private List<Product> saved;
+
+  @Setup(Level.Trial)
+  public void startApplication() {
+    context = BenchmarkApplication.start();
+    basketService = context.getBean(BasketService.class);
+    saved = BenchmarkApplication.saveProducts(context, THREADS * LINES);
+  }
+
+  @TearDown(Level.Trial)
+  public void stopApplication() {
+    context.close();
+  }
+
+  /** The basket a thread creates on every call, over its own products or the shared ones. */
+  @State(Scope.Thread)
+  public static class ThreadBasket {
+    BasketDTO basket;
+
+    @Setup(Level.Trial)
+    public void pickProducts(BasketContentionBenchmark benchmark, ThreadParams threadParams) {
+      int first =
+          "shared".equals(benchmark.products)
+              ? 0
+              : threadParams.getThreadIndex() % THREADS * LINES;
+      basket =
+          BasketDTO.builder()
+              .basketItems(
+                  benchmark.saved.subList(first, first + LINES).stream()
+                      .map(
+                          product ->
+                              BasketItemDTO.builder()
+                                  .productId(product.getId().toString())
+                                  .quantity(1)
+                                  .build())
+                      .toList())
+              .build();
+    }
+  }
+
+  @Benchmark
+  public BasketDTO createBasket(ThreadBasket threadBasket) {
+    return basketService.createBasket(threadBasket.basket);
+  }
+}
@@ -0,0 +1,75 @@
+package com.thanh.electronicstore.benchmark;
+
+import com.thanh.electronicstore.dto.BasketDTO;
+import com.thanh.electronicstore.dto.BasketItemDTO;
+import com.thanh.electronicstore.service.BasketService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Removes half of the lines of a large basket through {@link BasketService} against the in-memory
+ * H2 database. Lines are spread over {@link #PRODUCTS} products, so the cost of matching, deleting
+ * and restoring stock should grow with the line count only as far as moving the rows does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BasketRemovalBenchmark {
+  private static final int PRODUCTS = 50;
+
+  @Param({"1000", "5000"})
+  public int lines;
+
+  private ConfigurableApplicationContext context;
+  private BasketService basketService;
+  private List<String> productIds;
+
+  private String basketId;
+  private List<String> removedItemIds;
+
+  @Setup(Level.Trial)
+  public void startApplication() {
+    context = BenchmarkApplication.start();
+    basketService = context.getBean(BasketService.class);
+
+    productIds =
+        BenchmarkApplication.saveProducts(context, PRODUCTS).stream()
+            .map(product -> product.getId().toString())
+            .toList();
+  }
+
+  @Setup(Level.Invocation)
+  public void fillBasket() {
+    List<BasketItemDTO> items = new ArrayList<>(lines);
+    for (int i = 0; i < lines; i++) {
+      items.add(
+          BasketItemDTO.builder().productId(productIds.get(i % PRODUCTS)).quantity(1).build());
+    }
+    BasketDTO basket = basketService.createBasket(BasketDTO.builder().basketItems(items).build());
+    basketId = basket.getId();
+    removedItemIds =
+        basket.getBasketItems().stream().map(BasketItemDTO::getId).limit(lines / 2).toList();
+  }
+
+  @Benchmark
+  public BasketDTO removeHalfOfTheLines() {
+    return basketService.removeBasketItems(basketId, removedItemIds);
+  }
+
+  @TearDown(Level.Trial)
+  public void stopApplication() {
+    context.close();
+  }
+}
@@ -0,0 +1,91 @@
+package com.thanh.electronicstore.benchmark;
+
+import com.thanh.electronicstore.ElectronicStoreApplication;
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.model.ProductCategory;
+import com.thanh.electronicstore.repository.ProductRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/** Starts the application without a web server for benchmarks that go through the services. */
+final class BenchmarkApplication {
+  private static final int INSERT_BATCH = 10_000;
+
+  private BenchmarkApplication() {}
+
+  /** Starts the application; {@code initializers} run after the benchmark defaults. */
+  @SafeVarargs
+  static ConfigurableApplicationContext start(
+      ApplicationContextInitializer<ConfigurableApplicationContext>... initializers) {
+    return new SpringApplicationBuilder(ElectronicStoreApplication.class)
+        .web(WebApplicationType.NONE)
+        // The benchmark jar keeps only one AutoConfiguration.imports file, so the actuator's
+        // meter registry is not auto-configured here.
+        .initializers(
+            application ->
+                application
+                    .getBeanFactory()
+                    .registerSingleton("meterRegistry", new SimpleMeterRegistry()))
+        .initializers(initializers)
+        .properties(
+            "spring.datasource.url=jdbc:h2:mem:benchmark",
+            "logging.level.root=WARN",
+            // Benchmarks log what they measure, such as query plans, at info.
+            "logging.level.com.thanh.electronicstore.benchmark=INFO",
+            "store.basket.expiry.tick-ms=3600000",
+            // Benchmarks that seed products with plain JDBC rebuild the catalog themselves.
+            "store.catalog.stock-refresh-ms=3600000",
+            "store.catalog.reconcile-ms=3600000")
+        .run();
+  }
+
+  /** Saves {@code count} products with stock that benchmarks cannot run out of. */
+  static List<Product> saveProducts(ConfigurableApplicationContext context, int count) {
+    List<Product> products = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      products.add(
+          Product.builder()
+              .name("Product " + i)
+              .category(ProductCategory.PHONE)
+              .price(BigDecimal.valueOf(100 + i))
+              .stock(Integer.MAX_VALUE / 2)
+              .available(true)
+              .build());
+    }
+    return context.getBean(ProductRepository.class).saveAll(products);
+  }
+
+  /**
+   * Inserts {@code rows} available products in plain JDBC batches, which is much faster than JPA at
+   * this size. Categories cycle through every value and prices through 5000 distinct amounts.
+   */
+  static void seedProducts(ConfigurableApplicationContext context, int rows) {
+    JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+    ProductCategory[] categories = ProductCategory.values();
+    for (int start = 0; start < rows; start += INSERT_BATCH) {
+      List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+      for (int i = start; i < Math.min(start + INSERT_BATCH, rows); i++) {
+        batch.add(
+            new Object[] {
+              UUID.randomUUID(),
+              "Product " + i,
+              categories[i % categories.length].ordinal(),
+              BigDecimal.valueOf(100 + i % 5000),
+              i % 10 != 0
+            });
+      }
+      jdbcTemplate.batchUpdate(
+          "INSERT INTO product (id, version, name, category, price, stock, available) "
+              + "VALUES (?, 0, ?, ?, ?, 100, ?)",
+          batch);
+    }
+  }
+}
@@ -0,0 +1,54 @@
+package com.thanh.electronicstore.benchmark;
+
+import com.thanh.electronicstore.model.Deal;
+import com.thanh.electronicstore.model.DealType;
+import com.thanh.electronicstore.service.DealCalculatorService;
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * {@link DealCalculatorService#calculateDiscount} for each {@link DealType}, cycling through a
+ * fixed set of random prices and quantities so the JIT cannot fold the inputs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DealCalculatorBenchmark {
+  private static final int INPUTS = 1024;
+
+  @Param({"PERCENTAGE_DISCOUNT", "FIXED_AMOUNT_DISCOUNT"})
+  public DealType type;
+
+  private final DealCalculatorService dealCalculatorService = new DealCalculatorService();
+  private final BigDecimal[] unitPrices = new BigDecimal[INPUTS];
+  private final int[] quantities = new int[INPUTS];
+  private Deal deal;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    for (int i = 0; i < INPUTS; i++) {
+      unitPrices[i] = BigDecimal.valueOf(100 + random.nextInt(100_000), 2);
+      quantities[i] = 1 + random.nextInt(10);
+    }
+    BigDecimal value =
+        type == DealType.PERCENTAGE_DISCOUNT ? BigDecimal.valueOf(1250, 2) : new BigDecimal("5.00");
+    deal = Deal.builder().type(type).discountValue(value).build();
+  }
+
+  @Benchmark
+  public BigDecimal calculateDiscount() {
+    int i = next++ & (INPUTS - 1);
+    return dealCalculatorService.calculateDiscount(deal, unitPrices[i], quantities[i]);
+  }
+}
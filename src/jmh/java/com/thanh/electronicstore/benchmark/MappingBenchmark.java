@@ -0,0 +1,189 @@
+package com.thanh.electronicstore.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thanh.electronicstore.dto.BasketDTO;
+import com.thanh.electronicstore.dto.DealDTO;
+import com.thanh.electronicstore.dto.ProductDTO;
+import com.thanh.electronicstore.dto.ReceiptDTO;
+import com.thanh.electronicstore.dto.ReceiptItemDTO;
+import com.thanh.electronicstore.model.Basket;
+import com.thanh.electronicstore.model.BasketItem;
+import com.thanh.electronicstore.model.BasketStatus;
+import com.thanh.electronicstore.model.Deal;
+import com.thanh.electronicstore.model.DealType;
+import com.thanh.electronicstore.model.Money;
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.model.ProductCategory;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+/**
+ * Entity-to-DTO mapping and JSON serialization of the DTOs the API returns. The basket and the
+ * receipt have {@link #lines} lines; the product carries two deals. The object mapper is built with
+ * Spring's defaults, as the application's is.
+ *
+ * <p>The {@code *BigDecimal} variants serialize the same JSON from the BigDecimal amounts the DTOs
+ * held before {@link Money}, through Jackson's generic number path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MappingBenchmark {
+
+  @Param({"1", "10", "1000"})
+  public int lines;
+
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+  private Product product;
+  private ProductDTO productDto;
+  private Basket basket;
+  private ReceiptDTO receipt;
+  private BigDecimalProduct bigDecimalProduct;
+  private BigDecimalReceipt bigDecimalReceipt;
+
+  @Setup
+  public void setUp() {
+    product =
+        Product.builder()
+            .id(UUID.randomUUID())
+            .name("iPhone 15")
+            .description("Newest iPhone")
+            .category(ProductCategory.PHONE)
+            .price(new BigDecimal("999.00"))
+            .stock(50)
+            .available(true)
+            .deals(
+                List.of(
+                    deal(DealType.PERCENTAGE_DISCOUNT, "10"),
+                    deal(DealType.FIXED_AMOUNT_DISCOUNT, "25.00")))
+            .build();
+    productDto = product.toDto();
+
+    basket = Basket.builder().id(UUID.randomUUID()).status(BasketStatus.ACTIVE).build();
+    List<ReceiptItemDTO> receiptItems = new ArrayList<>(lines);
+    for (int i = 0; i < lines; i++) {
+      basket
+          .getBasketItems()
+          .add(
+              BasketItem.builder()
+                  .id(UUID.randomUUID())
+                  .basket(basket)
+                  .product(product)
+                  .quantity(2)
+                  .build());
+      receiptItems.add(
+          ReceiptItemDTO.builder()
+              .productName(product.getName())
+              .quantity(2)
+              .originalPrice(Money.ofMinor(199_800))
+              .discount(Money.ofMinor(24_980))
+              .finalPrice(Money.ofMinor(174_820))
+              .build());
+    }
+    receipt =
+        ReceiptDTO.builder()
+            .basketId(basket.getId().toString())
+            .items(receiptItems)
+            .totalPrice(Money.ofMinor(174_820L * lines))
+            .build();
+
+    bigDecimalProduct =
+        new BigDecimalProduct(
+            productDto.getId(),
+            productDto.getName(),
+            productDto.getDescription(),
+            productDto.getCategory(),
+            productDto.getPrice().toBigDecimal(),
+            productDto.getStock(),
+            productDto.getAvailable(),
+            productDto.getDeals());
+    bigDecimalReceipt =
+        new BigDecimalReceipt(
+            receipt.getBasketId(),
+            receipt.getItems().stream()
+                .map(
+                    item ->
+                        new BigDecimalReceiptItem(
+                            item.getProductName(),
+                            item.getQuantity(),
+                            item.getOriginalPrice().toBigDecimal(),
+                            item.getDiscount().toBigDecimal(),
+                            item.getFinalPrice().toBigDecimal()))
+                .toList(),
+            receipt.getTotalPrice().toBigDecimal());
+  }
+
+  @Benchmark
+  public ProductDTO productToDto() {
+    return product.toDto();
+  }
+
+  @Benchmark
+  public BasketDTO basketToDto() {
+    return basket.toDto();
+  }
+
+  @Benchmark
+  public String serializeProduct() throws JsonProcessingException {
+    return objectMapper.writeValueAsString(productDto);
+  }
+
+  @Benchmark
+  public String serializeReceipt() throws JsonProcessingException {
+    return objectMapper.writeValueAsString(receipt);
+  }
+
+  @Benchmark
+  public String serializeProductBigDecimal() throws JsonProcessingException {
+    return objectMapper.writeValueAsString(bigDecimalProduct);
+  }
+
+  @Benchmark
+  public String serializeReceiptBigDecimal() throws JsonProcessingException {
+    return objectMapper.writeValueAsString(bigDecimalReceipt);
+  }
+
+  public record BigDecimalProduct(
+      String id,
+      String name,
+      String description,
+      ProductCategory category,
+      BigDecimal price,
+      Integer stock,
+      Boolean available,
+      List<DealDTO> deals) {}
+
+  public record BigDecimalReceiptItem(
+      String productName,
+      int quantity,
+      BigDecimal originalPrice,
+      BigDecimal discount,
+      BigDecimal finalPrice) {}
+
+  public record BigDecimalReceipt(
+      String basketId, List<BigDecimalReceiptItem> items, BigDecimal totalPrice) {}
+
+  private static Deal deal(DealType type, String value) {
+    return Deal.builder()
+        .id(UUID.randomUUID())
+        .description(type.name())
+        .type(type)
+        .expiration(LocalDateTime.of(2030, 1, 1, 0, 0))
+        .discountValue(new BigDecimal(value))
+        .build();
+  }
+}
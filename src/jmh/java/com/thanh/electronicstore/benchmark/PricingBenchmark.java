@@ -0,0 +1,135 @@
+package com.thanh.electronicstore.benchmark;
+
+import com.thanh.electronicstore.dto.ReceiptDTO;
+import com.thanh.electronicstore.dto.ReceiptItemDTO;
+import com.thanh.electronicstore.model.Basket;
+import com.thanh.electronicstore.model.BasketItem;
+import com.thanh.electronicstore.model.Deal;
+import com.thanh.electronicstore.model.DealType;
+import com.thanh.electronicstore.model.Money;
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.service.ActiveDeal;
+import com.thanh.electronicstore.service.ActiveDealIndex;
+import com.thanh.electronicstore.service.DealCalculatorService;
+import com.thanh.electronicstore.service.PricingEngine;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Prices the same basket with the former per-line BigDecimal loop and with {@link PricingEngine}.
+ * Every product carries one percentage and one fixed-amount deal, registered in the {@link
+ * ActiveDealIndex} the engine reads them from. Run with {@code -prof gc} to see the allocation
+ * difference as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PricingBenchmark {
+
+  @Param({"10", "100", "1000"})
+  public int lines;
+
+  private final DealCalculatorService dealCalculatorService = new DealCalculatorService();
+  private final ActiveDealIndex activeDealIndex =
+      new ActiveDealIndex(null, Clock.systemDefaultZone());
+  private final PricingEngine pricingEngine =
+      new PricingEngine(dealCalculatorService, activeDealIndex);
+  private Basket basket;
+
+  @Setup
+  public void setUp() {
+    Random random = new Random(42);
+    basket = Basket.builder().id(UUID.randomUUID()).build();
+    for (int i = 0; i < lines; i++) {
+      Product product =
+          Product.builder()
+              .id(UUID.randomUUID())
+              .name("Product " + i)
+              .price(BigDecimal.valueOf(100 + random.nextInt(100_000), 2))
+              .deals(
+                  List.of(
+                      Deal.builder()
+                          .type(DealType.PERCENTAGE_DISCOUNT)
+                          .discountValue(BigDecimal.valueOf(random.nextInt(5_000), 2))
+                          .build(),
+                      Deal.builder()
+                          .type(DealType.FIXED_AMOUNT_DISCOUNT)
+                          .discountValue(BigDecimal.valueOf(random.nextInt(500), 2))
+                          .build()))
+              .build();
+      activeDealIndex.replace(
+          product.getId(),
+          product.getPrice(),
+          product.getDeals().stream()
+              .map(
+                  deal ->
+                      ActiveDeal.of(
+                          UUID.randomUUID(), deal.getType(), deal.getDiscountValue(), null))
+              .toList());
+      basket
+          .getBasketItems()
+          .add(
+              BasketItem.builder()
+                  .basket(basket)
+                  .product(product)
+                  .quantity(1 + random.nextInt(5))
+                  .build());
+    }
+  }
+
+  /** The receipt loop {@code BasketService.calculateReceipt} ran before the pricing engine. */
+  @Benchmark
+  public ReceiptDTO bigDecimal() {
+    List<ReceiptItemDTO> receiptItems =
+        basket.getBasketItems().stream()
+            .map(
+                basketItem -> {
+                  Product product = basketItem.getProduct();
+                  int quantity = basketItem.getQuantity();
+                  BigDecimal unitPrice = product.getPrice();
+                  BigDecimal originalPrice = unitPrice.multiply(BigDecimal.valueOf(quantity));
+
+                  BigDecimal totalDiscount = BigDecimal.ZERO;
+                  for (Deal deal : product.getDeals()) {
+                    totalDiscount =
+                        totalDiscount.add(
+                            dealCalculatorService.calculateDiscount(deal, unitPrice, quantity));
+                  }
+
+                  return ReceiptItemDTO.builder()
+                      .productName(product.getName())
+                      .quantity(quantity)
+                      .originalPrice(Money.of(originalPrice))
+                      .discount(Money.of(totalDiscount))
+                      .finalPrice(Money.of(originalPrice.subtract(totalDiscount)))
+                      .build();
+                })
+            .toList();
+
+    return ReceiptDTO.builder()
+        .basketId(basket.getId().toString())
+        .items(receiptItems)
+        .totalPrice(
+            receiptItems.stream()
+                .map(ReceiptItemDTO::getFinalPrice)
+                .reduce(Money.ZERO, Money::plus))
+        .build();
+  }
+
+  @Benchmark
+  public ReceiptDTO longCents() {
+    return pricingEngine.price(basket);
+  }
+}
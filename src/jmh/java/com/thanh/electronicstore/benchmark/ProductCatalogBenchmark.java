@@ -0,0 +1,86 @@
+package com.thanh.electronicstore.benchmark;
+
+import com.thanh.electronicstore.dto.DealDTO;
+import com.thanh.electronicstore.dto.ProductDTO;
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.repository.ProductRepository;
+import com.thanh.electronicstore.service.CatalogSnapshot;
+import com.thanh.electronicstore.service.ProductService;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * {@code GET /products} over {@link #size} products, each with a deal, read by four threads.
+ * {@code snapshot} is {@link ProductService#getAllProducts} as served from the {@link
+ * CatalogSnapshot}; {@code database} is how it was served before: every product loaded in a
+ * read-only transaction and mapped to a new DTO.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class ProductCatalogBenchmark {
+
+  @Param({"10", "1000"})
+  public int size;
+
+  private ConfigurableApplicationContext context;
+  private ProductService productService;
+  private ProductRepository productRepository;
+  private TransactionTemplate readOnlyTransaction;
+
+  @Setup(Level.Trial)
+  public void startApplication() {
+    context = BenchmarkApplication.start();
+    productService = context.getBean(ProductService.class);
+    productRepository = context.getBean(ProductRepository.class);
+    readOnlyTransaction =
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+    readOnlyTransaction.setReadOnly(true);
+
+    for (Product product : BenchmarkApplication.saveProducts(context, size)) {
+      productService.addDeals(
+          List.of(
+              DealDTO.builder()
+                  .description("10% off")
+                  .type("PERCENTAGE_DISCOUNT")
+                  .expiration(LocalDateTime.now().plusDays(1).toString())
+                  .discountValue(BigDecimal.TEN)
+                  .build()),
+          product.getId().toString());
+    }
+    context.getBean(CatalogSnapshot.class).rebuild();
+  }
+
+  @Benchmark
+  public List<ProductDTO> snapshot() {
+    return productService.getAllProducts();
+  }
+
+  @Benchmark
+  public List<ProductDTO> database() {
+    return readOnlyTransaction.execute(
+        status -> productRepository.findAll().stream().map(Product::toDto).toList());
+  }
+
+  @TearDown(Level.Trial)
+  public void stopApplication() {
+    context.close();
+  }
+}
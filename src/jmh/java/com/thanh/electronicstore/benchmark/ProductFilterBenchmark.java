@@ -0,0 +1,89 @@
+package com.thanh.electronicstore.benchmark;
+
+import com.thanh.electronicstore.dto.ProductDTO;
+import com.thanh.electronicstore.dto.ProductFilterCriteria;
+import com.thanh.electronicstore.model.ProductCategory;
+import com.thanh.electronicstore.service.ProductService;
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * The first page of {@code GET /products/search} over {@link #ROWS} products for each combination
+ * of filters, count included. Filters are named by the criteria they set: {@code c} category,
+ * {@code a} available, {@code p} a price range. Before each trial the statements Hibernate sends
+ * for the page are captured with their parameters and their H2 plans logged, so the index each
+ * combination uses can be read next to its score.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProductFilterBenchmark {
+  private static final Logger logger = LoggerFactory.getLogger(ProductFilterBenchmark.class);
+  private static final int ROWS = 500_000;
+  private static final int SIZE = 20;
+
+  @Param({"none", "c", "a", "p", "cp", "ap", "cap"})
+  public String filters;
+
+  private ConfigurableApplicationContext context;
+  private ProductService productService;
+  private ProductFilterCriteria criteria;
+
+  @Setup(Level.Trial)
+  public void startApplication() {
+    SqlCapture sqlCapture = new SqlCapture();
+    context = BenchmarkApplication.start(sqlCapture.initializer());
+    productService = context.getBean(ProductService.class);
+    BenchmarkApplication.seedProducts(context, ROWS);
+
+    ProductFilterCriteria.ProductFilterCriteriaBuilder builder = ProductFilterCriteria.builder();
+    if (filters.contains("c")) {
+      builder.category(ProductCategory.LAPTOP);
+    }
+    if (filters.contains("a")) {
+      builder.available(true);
+    }
+    if (filters.contains("p")) {
+      builder.minPrice(BigDecimal.valueOf(1000)).maxPrice(BigDecimal.valueOf(1100));
+    }
+    criteria = builder.build();
+
+    JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+    for (SqlCapture.Statement statement : sqlCapture.record(this::firstPage)) {
+      String plan =
+          jdbcTemplate.queryForObject(
+              "EXPLAIN " + statement.sql(), String.class, statement.parameters());
+      logger.info(
+          "Plan for filters={}, parameters {}:\n{}",
+          filters,
+          Arrays.toString(statement.parameters()),
+          plan);
+    }
+  }
+
+  @Benchmark
+  public List<ProductDTO> firstPage() {
+    return productService.filterProducts(criteria, 0, SIZE);
+  }
+
+  @TearDown(Level.Trial)
+  public void stopApplication() {
+    context.close();
+  }
+}
@@ -0,0 +1,85 @@
+package com.thanh.electronicstore.benchmark;
+
+import com.thanh.electronicstore.dto.ProductCursor;
+import com.thanh.electronicstore.dto.ProductDTO;
+import com.thanh.electronicstore.dto.ProductFilterCriteria;
+import com.thanh.electronicstore.dto.ProductSliceDTO;
+import com.thanh.electronicstore.dto.ProductSort;
+import com.thanh.electronicstore.service.ProductService;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Reads the slice of {@link #SIZE} products that starts {@link #depth} rows into a search by price
+ * over {@link #ROWS} products. {@code offset} asks for the page number, so the database walks every
+ * row before it and counts all matches; {@code cursor} seeks past the last key of the previous
+ * slice and should take the same time at any depth.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProductSearchBenchmark {
+  private static final int ROWS = 1_000_000;
+  private static final int SIZE = 20;
+
+  @Param({"0", "10000", "500000"})
+  public int depth;
+
+  private ConfigurableApplicationContext context;
+  private ProductService productService;
+  private ProductFilterCriteria criteria;
+  private String cursor;
+
+  @Setup(Level.Trial)
+  public void startApplication() {
+    context = BenchmarkApplication.start();
+    productService = context.getBean(ProductService.class);
+    criteria = ProductFilterCriteria.builder().available(true).build();
+
+    BenchmarkApplication.seedProducts(context, ROWS);
+    JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+    // The cursor a client would hold after reading the slices before depth.
+    if (depth > 0) {
+      cursor =
+          jdbcTemplate.queryForObject(
+              "SELECT id, price FROM product WHERE available = TRUE ORDER BY price, id "
+                  + "OFFSET ? ROWS FETCH FIRST 1 ROW ONLY",
+              (row, i) ->
+                  new ProductCursor(
+                          ProductSort.PRICE,
+                          row.getBigDecimal("price").toPlainString(),
+                          row.getObject("id", UUID.class))
+                      .encode(),
+              depth - 1);
+    }
+  }
+
+  @Benchmark
+  public List<ProductDTO> offset() {
+    return productService.filterProducts(criteria, depth / SIZE, SIZE);
+  }
+
+  @Benchmark
+  public ProductSliceDTO cursor() {
+    return productService.scrollProducts(criteria, ProductSort.PRICE, cursor, SIZE);
+  }
+
+  @TearDown(Level.Trial)
+  public void stopApplication() {
+    context.close();
+  }
+}
@@ -0,0 +1,110 @@
+package com.thanh.electronicstore.benchmark;
+
+import com.thanh.electronicstore.dto.BasketDTO;
+import com.thanh.electronicstore.dto.BasketItemDTO;
+import com.thanh.electronicstore.dto.DealDTO;
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.service.BasketService;
+import com.thanh.electronicstore.service.ProductChangedEvent;
+import com.thanh.electronicstore.service.ProductService;
+import com.thanh.electronicstore.service.ReceiptBatchService;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Computes the receipts of {@link #baskets} baskets of {@link #LINES} lines, once with one {@link
+ * BasketService#calculateReceipt} call per basket, as the reconciliation job does, and once through
+ * {@link ReceiptBatchService}. Every product carries a deal, and the receipt cache is emptied
+ * before each invocation so both sides price every basket.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReceiptBatchBenchmark {
+  private static final int PRODUCTS = 50;
+  private static final int LINES = 10;
+
+  @Param({"100", "1000"})
+  public int baskets;
+
+  private ConfigurableApplicationContext context;
+  private BasketService basketService;
+  private ReceiptBatchService receiptBatchService;
+  private List<UUID> productIds;
+  private List<UUID> basketIds;
+
+  @Setup(Level.Trial)
+  public void startApplication() {
+    context = BenchmarkApplication.start();
+    basketService = context.getBean(BasketService.class);
+    receiptBatchService = context.getBean(ReceiptBatchService.class);
+    ProductService productService = context.getBean(ProductService.class);
+
+    productIds =
+        BenchmarkApplication.saveProducts(context, PRODUCTS).stream().map(Product::getId).toList();
+    for (UUID productId : productIds) {
+      productService.addDeals(
+          List.of(
+              DealDTO.builder()
+                  .description("10% off")
+                  .type("PERCENTAGE_DISCOUNT")
+                  .expiration(LocalDateTime.now().plusDays(1).toString())
+                  .discountValue(BigDecimal.TEN)
+                  .build()),
+          productId.toString());
+    }
+
+    basketIds = new ArrayList<>(baskets);
+    for (int b = 0; b < baskets; b++) {
+      List<BasketItemDTO> items = new ArrayList<>(LINES);
+      for (int line = 0; line < LINES; line++) {
+        items.add(
+            BasketItemDTO.builder()
+                .productId(productIds.get((b + line) % PRODUCTS).toString())
+                .quantity(1)
+                .build());
+      }
+      basketIds.add(
+          UUID.fromString(
+              basketService.createBasket(BasketDTO.builder().basketItems(items).build()).getId()));
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void emptyReceiptCache() {
+    productIds.forEach(productId -> context.publishEvent(new ProductChangedEvent(productId)));
+  }
+
+  @Benchmark
+  public void perBasket(Blackhole blackhole) {
+    for (UUID basketId : basketIds) {
+      blackhole.consume(basketService.calculateReceipt(basketId.toString()));
+    }
+  }
+
+  @Benchmark
+  public void batch(Blackhole blackhole) {
+    receiptBatchService.calculateReceipts(basketIds, blackhole::consume);
+  }
+
+  @TearDown(Level.Trial)
+  public void stopApplication() {
+    context.close();
+  }
+}
@@ -0,0 +1,104 @@
+package com.thanh.electronicstore.benchmark;
+
+import com.thanh.electronicstore.dto.BasketDTO;
+import com.thanh.electronicstore.dto.BasketItemDTO;
+import com.thanh.electronicstore.dto.DealDTO;
+import com.thanh.electronicstore.dto.ReceiptDTO;
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.service.BasketService;
+import com.thanh.electronicstore.service.ProductChangedEvent;
+import com.thanh.electronicstore.service.ProductService;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * {@link BasketService#calculateReceipt} on a basket of {@link #lines} lines spread over {@link
+ * #PRODUCTS} products that each carry a deal. {@code cached} measures the unchanged basket served
+ * from the receipt cache; {@code computed} empties the cache before each call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ReceiptBenchmark {
+  private static final int PRODUCTS = 50;
+
+  @Param({"1", "10", "1000"})
+  public int lines;
+
+  private ConfigurableApplicationContext context;
+  private BasketService basketService;
+  private List<UUID> basketProductIds;
+  private String basketId;
+
+  @Setup(Level.Trial)
+  public void startApplication() {
+    context = BenchmarkApplication.start();
+    basketService = context.getBean(BasketService.class);
+    ProductService productService = context.getBean(ProductService.class);
+
+    List<UUID> productIds =
+        BenchmarkApplication.saveProducts(context, PRODUCTS).stream().map(Product::getId).toList();
+    for (UUID productId : productIds) {
+      productService.addDeals(
+          List.of(
+              DealDTO.builder()
+                  .description("10% off")
+                  .type("PERCENTAGE_DISCOUNT")
+                  .expiration(LocalDateTime.now().plusDays(1).toString())
+                  .discountValue(BigDecimal.TEN)
+                  .build()),
+          productId.toString());
+    }
+
+    List<BasketItemDTO> items = new ArrayList<>(lines);
+    for (int i = 0; i < lines; i++) {
+      items.add(
+          BasketItemDTO.builder()
+              .productId(productIds.get(i % PRODUCTS).toString())
+              .quantity(1)
+              .build());
+    }
+    basketId = basketService.createBasket(BasketDTO.builder().basketItems(items).build()).getId();
+    basketProductIds = productIds.subList(0, Math.min(lines, PRODUCTS));
+  }
+
+  /** Only for {@link #computed}; other benchmarks have no per-invocation setup. */
+  @State(Scope.Thread)
+  public static class EmptyCache {
+    @Setup(Level.Invocation)
+    public void emptyReceiptCache(ReceiptBenchmark benchmark) {
+      benchmark.basketProductIds.forEach(
+          productId -> benchmark.context.publishEvent(new ProductChangedEvent(productId)));
+    }
+  }
+
+  @Benchmark
+  public ReceiptDTO cached() {
+    return basketService.calculateReceipt(basketId);
+  }
+
+  @Benchmark
+  public ReceiptDTO computed(EmptyCache emptyCache) {
+    return basketService.calculateReceipt(basketId);
+  }
+
+  @TearDown(Level.Trial)
+  public void stopApplication() {
+    context.close();
+  }
+}
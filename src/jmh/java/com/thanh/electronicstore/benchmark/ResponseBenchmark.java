@@ -0,0 +1,106 @@
+package com.thanh.electronicstore.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thanh.electronicstore.dto.BasketDTO;
+import com.thanh.electronicstore.dto.BasketItemDTO;
+import com.thanh.electronicstore.dto.DealDTO;
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.service.BasketService;
+import com.thanh.electronicstore.service.ProductChangedEvent;
+import com.thanh.electronicstore.service.ProductService;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Time to produce the JSON body of {@code GET /products} and {@code GET
+ * /baskets/{id}/calculate-receipt}: the service call plus serialization with the application's
+ * object mapper, without the HTTP stack. There are {@link #size} products, each with a deal, and
+ * the basket has one line per product. {@code receiptComputed} empties the receipt cache before
+ * each call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseBenchmark {
+
+  @Param({"10", "1000"})
+  public int size;
+
+  private ConfigurableApplicationContext context;
+  private ObjectMapper objectMapper;
+  private ProductService productService;
+  private BasketService basketService;
+  private List<UUID> productIds;
+  private String basketId;
+
+  @Setup(Level.Trial)
+  public void startApplication() {
+    context = BenchmarkApplication.start();
+    objectMapper = context.getBean(ObjectMapper.class);
+    productService = context.getBean(ProductService.class);
+    basketService = context.getBean(BasketService.class);
+
+    productIds =
+        BenchmarkApplication.saveProducts(context, size).stream().map(Product::getId).toList();
+    List<BasketItemDTO> items = new ArrayList<>(size);
+    for (UUID productId : productIds) {
+      productService.addDeals(
+          List.of(
+              DealDTO.builder()
+                  .description("15% off")
+                  .type("PERCENTAGE_DISCOUNT")
+                  .expiration(LocalDateTime.now().plusDays(1).toString())
+                  .discountValue(BigDecimal.valueOf(15))
+                  .build()),
+          productId.toString());
+      items.add(BasketItemDTO.builder().productId(productId.toString()).quantity(3).build());
+    }
+    basketId = basketService.createBasket(BasketDTO.builder().basketItems(items).build()).getId();
+  }
+
+  /** Only for {@link #receiptComputed}; other benchmarks have no per-invocation setup. */
+  @State(Scope.Thread)
+  public static class EmptyCache {
+    @Setup(Level.Invocation)
+    public void emptyReceiptCache(ResponseBenchmark benchmark) {
+      benchmark.productIds.forEach(
+          productId -> benchmark.context.publishEvent(new ProductChangedEvent(productId)));
+    }
+  }
+
+  @Benchmark
+  public byte[] products() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(productService.getAllProducts());
+  }
+
+  @Benchmark
+  public byte[] receiptCached() throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(basketService.calculateReceipt(basketId));
+  }
+
+  @Benchmark
+  public byte[] receiptComputed(EmptyCache emptyCache) throws JsonProcessingException {
+    return objectMapper.writeValueAsBytes(basketService.calculateReceipt(basketId));
+  }
+
+  @TearDown(Level.Trial)
+  public void stopApplication() {
+    context.close();
+  }
+}
@@ -0,0 +1,88 @@
+package com.thanh.electronicstore.benchmark;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import javax.sql.DataSource;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.ApplicationContextInitializer;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Records the statements the application sends to the database, with their bound parameters, so a
+ * benchmark can look at the SQL Hibernate actually generated rather than a hand-written copy. The
+ * DataSource is wrapped with datasource-proxy, as {@code QueryCountConfig} does for the tests.
+ */
+final class SqlCapture implements QueryExecutionListener {
+  private final List<Statement> recorded = new CopyOnWriteArrayList<>();
+  private volatile boolean recording;
+
+  /** A statement as sent, and the values bound to its parameters in order. */
+  record Statement(String sql, Object[] parameters) {}
+
+  /** Wraps every DataSource of the context; pass it to {@link BenchmarkApplication#start}. */
+  ApplicationContextInitializer<ConfigurableApplicationContext> initializer() {
+    BeanPostProcessor wrapDataSource =
+        new BeanPostProcessor() {
+          @Override
+          public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof DataSource dataSource) {
+              return ProxyDataSourceBuilder.create(dataSource)
+                  .name("sql-capture")
+                  .listener(SqlCapture.this)
+                  .build();
+            }
+            return bean;
+          }
+        };
+    return context -> context.getBeanFactory().addBeanPostProcessor(wrapDataSource);
+  }
+
+  /** Runs the action and returns the statements it executed, one per parameter set. */
+  List<Statement> record(Runnable action) {
+    recorded.clear();
+    recording = true;
+    try {
+      action.run();
+    } finally {
+      recording = false;
+    }
+    return List.copyOf(recorded);
+  }
+
+  @Override
+  public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {}
+
+  @Override
+  public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    if (!recording) {
+      return;
+    }
+    for (QueryInfo query : queryInfoList) {
+      if (query.getParametersList().isEmpty()) {
+        recorded.add(new Statement(query.getQuery(), new Object[0]));
+      }
+      for (List<ParameterSetOperation> parameters : query.getParametersList()) {
+        recorded.add(new Statement(query.getQuery(), values(parameters)));
+      }
+    }
+  }
+
+  /** The values of {@code setXxx(index, value)} calls, ordered by index. */
+  private static Object[] values(List<ParameterSetOperation> parameters) {
+    List<Object[]> bound = new ArrayList<>();
+    for (ParameterSetOperation parameter : parameters) {
+      Object[] args = parameter.getArgs();
+      boolean isNull = "setNull".equals(parameter.getMethod().getName());
+      bound.add(new Object[] {args[0], isNull ? null : args[1]});
+    }
+    bound.sort(Comparator.comparingInt(arg -> ((Number) arg[0]).intValue()));
+    return bound.stream().map(arg -> arg[1]).toArray();
+  }
+}
@@ -0,0 +1,53 @@
+package com.thanh.electronicstore.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.annotation.EnableRetry;
+
+@Configuration
+@EnableRetry
+public class RetryConfig {
+
+  /**
+   * Counts optimistic-lock conflicts per operation ({@code store.retry.conflicts}) and the calls
+   * that still failed after the last attempt ({@code store.retry.exhausted}).
+   */
+  @Bean
+  public RetryListener optimisticLockRetryListener(MeterRegistry meterRegistry) {
+    return new RetryListener() {
+      @Override
+      public <T, E extends Throwable> void onError(
+          RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+        meterRegistry.counter("store.retry.conflicts", "operation", operation(context)).increment();
+      }
+
+      @Override
+      public <T, E extends Throwable> void close(
+          RetryContext context, RetryCallback<T, E> callback, Throwable throwable) {
+        if (throwable != null) {
+          meterRegistry
+              .counter("store.retry.exhausted", "operation", operation(context))
+              .increment();
+        }
+      }
+    };
+  }
+
+  private static String operation(RetryContext context) {
+    Object label = context.getAttribute(RetryContext.NAME);
+    if (label == null) {
+      return "unknown";
+    }
+    // Labels default to the generic method signature; keep just "Class.method" for the tag.
+    String signature = label.toString();
+    int paren = signature.indexOf('(');
+    String qualified = paren >= 0 ? signature.substring(0, paren) : signature;
+    int methodDot = qualified.lastIndexOf('.');
+    int classDot = methodDot > 0 ? qualified.lastIndexOf('.', methodDot - 1) : -1;
+    return qualified.substring(classDot + 1);
+  }
+}
@@ -0,0 +1,17 @@
+package com.thanh.electronicstore.config;
+
+import java.time.Clock;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+
+  /** Deal expirations are local date-times, so the clock carries the system zone. */
+  @Bean
+  public Clock clock() {
+    return Clock.systemDefaultZone();
+  }
+}
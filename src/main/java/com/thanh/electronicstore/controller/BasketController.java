@@ -1,26 +1,51 @@
 package com.thanh.electronicstore.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.thanh.electronicstore.dto.BasketDTO;
 import com.thanh.electronicstore.dto.BasketItemDTO;
 import com.thanh.electronicstore.dto.ReceiptDTO;
+import com.thanh.electronicstore.dto.ReceiptErrorDTO;
 import com.thanh.electronicstore.service.BasketService;
+import com.thanh.electronicstore.service.IdempotencyService;
+import com.thanh.electronicstore.service.QuoteService;
+import com.thanh.electronicstore.service.ReceiptBatchService;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.UUID;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/baskets")
 public class BasketController {
   private final BasketService basketService;
+  private final IdempotencyService idempotencyService;
+  private final ReceiptBatchService receiptBatchService;
+  private final QuoteService quoteService;
+  private final ObjectMapper objectMapper;
 
-  public BasketController(BasketService basketService) {
+  public BasketController(
+      BasketService basketService,
+      IdempotencyService idempotencyService,
+      ReceiptBatchService receiptBatchService,
+      QuoteService quoteService,
+      ObjectMapper objectMapper) {
     this.basketService = basketService;
+    this.idempotencyService = idempotencyService;
+    this.receiptBatchService = receiptBatchService;
+    this.quoteService = quoteService;
+    this.objectMapper = objectMapper;
   }
 
   @GetMapping("/{id}")
@@ -29,27 +54,90 @@ public class BasketController {
   }
 
   @PostMapping
-  public ResponseEntity<BasketDTO> createBasket(@RequestBody BasketDTO basketDTO) {
-    BasketDTO basket = basketService.createBasket(basketDTO);
-    return ResponseEntity.status(HttpStatus.CREATED).body(basket);
+  public ResponseEntity<BasketDTO> createBasket(
+      @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+      @RequestBody BasketDTO basketDTO) {
+    return idempotencyService.execute(
+        idempotencyKey,
+        "POST /baskets",
+        basketDTO,
+        () -> {
+          BasketDTO basket = basketService.createBasket(basketDTO);
+          return ResponseEntity.status(HttpStatus.CREATED).body(basket);
+        });
+  }
+
+  /** What the lines would cost in a basket now, without creating one or reserving stock. */
+  @PostMapping("/quote")
+  public ResponseEntity<ReceiptDTO> quote(@RequestBody List<BasketItemDTO> basketItemDTOs) {
+    return ResponseEntity.ok(quoteService.quote(basketItemDTOs));
   }
 
   @PostMapping("/{id}/add-items")
   public ResponseEntity<BasketDTO> addItems(
-      @PathVariable String id, @RequestBody List<BasketItemDTO> basketItemDTOs) {
-    BasketDTO basketDTO = basketService.addBasketItems(id, basketItemDTOs);
-    return ResponseEntity.ok(basketDTO);
+      @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+      @PathVariable String id,
+      @RequestBody List<BasketItemDTO> basketItemDTOs) {
+    return idempotencyService.execute(
+        idempotencyKey,
+        "POST /baskets/" + id + "/add-items",
+        basketItemDTOs,
+        () -> {
+          BasketDTO basketDTO = basketService.addBasketItems(id, basketItemDTOs);
+          return ResponseEntity.ok(basketDTO);
+        });
   }
 
   @PostMapping("/{id}/delete-items")
   public ResponseEntity<BasketDTO> removeItems(
-      @PathVariable String id, @RequestBody List<String> basketItemIds) {
-    BasketDTO basketDTO = basketService.removeBasketItems(id, basketItemIds);
-    return ResponseEntity.ok(basketDTO);
+      @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+      @PathVariable String id,
+      @RequestBody List<String> basketItemIds) {
+    return idempotencyService.execute(
+        idempotencyKey,
+        "POST /baskets/" + id + "/delete-items",
+        basketItemIds,
+        () -> {
+          BasketDTO basketDTO = basketService.removeBasketItems(id, basketItemIds);
+          return ResponseEntity.ok(basketDTO);
+        });
   }
 
   @GetMapping("/{id}/calculate-receipt")
   public ResponseEntity<ReceiptDTO> calculateReceipt(@PathVariable String id) {
     return ResponseEntity.ok(basketService.calculateReceipt(id));
   }
+
+  /**
+   * Receipts of many baskets as newline-delimited JSON, one receipt per line in the order of the
+   * ids. Baskets that do not exist are left out, and a basket whose receipt fails gets an error
+   * line in its place. Too many ids, or one that is not a UUID, is a 400 before anything is sent.
+   */
+  @PostMapping(value = "/calculate-receipts", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> calculateReceipts(
+      @RequestBody List<String> basketIds) {
+    List<UUID> ids = receiptBatchService.parseBasketIds(basketIds);
+    StreamingResponseBody body =
+        out ->
+            receiptBatchService.calculateReceipts(
+                ids,
+                receipt -> writeLine(out, receipt),
+                (basketId, failure) ->
+                    writeLine(
+                        out,
+                        ReceiptErrorDTO.builder()
+                            .basketId(basketId.toString())
+                            .error(failure.getMessage())
+                            .build()));
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+
+  private void writeLine(OutputStream out, Object line) {
+    try {
+      out.write(objectMapper.writeValueAsBytes(line));
+      out.write('\n');
+    } catch (IOException ex) {
+      throw new UncheckedIOException(ex);
+    }
+  }
 }
@@ -1,9 +1,16 @@
 package com.thanh.electronicstore.controller;
 
 import com.thanh.electronicstore.exception.BasketAlreadyCheckedOutException;
+import com.thanh.electronicstore.exception.BasketExpiredException;
 import com.thanh.electronicstore.exception.BasketNotFoundException;
+import com.thanh.electronicstore.exception.IdempotencyKeyInProgressException;
+import com.thanh.electronicstore.exception.IdempotencyKeyReusedException;
+import com.thanh.electronicstore.exception.InvalidCursorException;
 import com.thanh.electronicstore.exception.InvalidDealException;
+import com.thanh.electronicstore.exception.InvalidPageSizeException;
+import com.thanh.electronicstore.exception.InvalidReceiptBatchException;
 import com.thanh.electronicstore.exception.ProductNotFoundException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -17,11 +24,48 @@ public class GlobalExceptionHandler {
     return ResponseEntity.badRequest().body(ex.getMessage());
   }
 
+  @ExceptionHandler(InvalidCursorException.class)
+  public ResponseEntity<String> handleInvalidCursor(InvalidCursorException ex) {
+    return ResponseEntity.badRequest().body(ex.getMessage());
+  }
+
+  @ExceptionHandler(InvalidPageSizeException.class)
+  public ResponseEntity<String> handleInvalidPageSize(InvalidPageSizeException ex) {
+    return ResponseEntity.badRequest().body(ex.getMessage());
+  }
+
+  @ExceptionHandler(InvalidReceiptBatchException.class)
+  public ResponseEntity<String> handleInvalidReceiptBatch(InvalidReceiptBatchException ex) {
+    return ResponseEntity.badRequest().body(ex.getMessage());
+  }
+
   @ExceptionHandler({ProductNotFoundException.class, BasketNotFoundException.class})
   public ResponseEntity<String> handleProductNotFound(ProductNotFoundException ex) {
     return ResponseEntity.status(HttpStatus.NOT_FOUND).body(ex.getMessage());
   }
 
+  @ExceptionHandler(BasketExpiredException.class)
+  public ResponseEntity<String> handleBasketExpired(BasketExpiredException ex) {
+    return ResponseEntity.status(HttpStatus.GONE).body(ex.getMessage());
+  }
+
+  @ExceptionHandler(IdempotencyKeyReusedException.class)
+  public ResponseEntity<String> handleIdempotencyKeyReused(IdempotencyKeyReusedException ex) {
+    return ResponseEntity.unprocessableEntity().body(ex.getMessage());
+  }
+
+  @ExceptionHandler(IdempotencyKeyInProgressException.class)
+  public ResponseEntity<String> handleIdempotencyKeyInProgress(
+      IdempotencyKeyInProgressException ex) {
+    return ResponseEntity.status(HttpStatus.CONFLICT).body(ex.getMessage());
+  }
+
+  @ExceptionHandler(OptimisticLockingFailureException.class)
+  public ResponseEntity<String> handleConcurrentModification(OptimisticLockingFailureException ex) {
+    return ResponseEntity.status(HttpStatus.CONFLICT)
+        .body("Concurrent modification, please retry: " + ex.getMessage());
+  }
+
   @ExceptionHandler(RuntimeException.class)
   public ResponseEntity<String> handleGeneralRuntime(RuntimeException ex) {
     return ResponseEntity.internalServerError().body("Unexpected error: " + ex.getMessage());
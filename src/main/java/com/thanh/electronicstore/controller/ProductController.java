@@ -1,11 +1,19 @@
 package com.thanh.electronicstore.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.thanh.electronicstore.dto.DealDTO;
 import com.thanh.electronicstore.dto.ProductDTO;
 import com.thanh.electronicstore.dto.ProductFilterCriteria;
+import com.thanh.electronicstore.dto.ProductSliceDTO;
+import com.thanh.electronicstore.dto.ProductSort;
+import com.thanh.electronicstore.service.CatalogExportService;
+import com.thanh.electronicstore.service.IdempotencyService;
 import com.thanh.electronicstore.service.ProductService;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.List;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,18 +21,30 @@ import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/products")
 public class ProductController {
 
   private final ProductService productService;
+  private final IdempotencyService idempotencyService;
+  private final CatalogExportService catalogExportService;
+  private final ObjectMapper objectMapper;
 
-  public ProductController(ProductService productService) {
+  public ProductController(
+      ProductService productService,
+      IdempotencyService idempotencyService,
+      CatalogExportService catalogExportService,
+      ObjectMapper objectMapper) {
     this.productService = productService;
+    this.idempotencyService = idempotencyService;
+    this.catalogExportService = catalogExportService;
+    this.objectMapper = objectMapper;
   }
 
   @GetMapping
@@ -32,23 +52,59 @@ public class ProductController {
     return ResponseEntity.ok(productService.getAllProducts());
   }
 
+  /**
+   * Every product as newline-delimited JSON, one product per line in id order. Lines are written as
+   * the catalog is read, so the response never sits in memory as a whole.
+   */
+  @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> exportProducts() {
+    StreamingResponseBody body =
+        out ->
+            catalogExportService.exportProducts(
+                product -> {
+                  try {
+                    out.write(objectMapper.writeValueAsBytes(product));
+                    out.write('\n');
+                  } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                  }
+                });
+    return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+  }
+
   @GetMapping("/{id}")
   public ResponseEntity<ProductDTO> getProductById(@PathVariable String id) {
     return ResponseEntity.ok(productService.getProductById(id));
   }
 
   @PostMapping
-  public ResponseEntity<ProductDTO> createProduct(@RequestBody ProductDTO productDTO) {
-    ProductDTO createdProduct = productService.createProduct(productDTO);
-    return ResponseEntity.created(URI.create("/products/" + createdProduct.getId()))
-        .body(createdProduct);
+  public ResponseEntity<ProductDTO> createProduct(
+      @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+      @RequestBody ProductDTO productDTO) {
+    return idempotencyService.execute(
+        idempotencyKey,
+        "POST /products",
+        productDTO,
+        () -> {
+          ProductDTO createdProduct = productService.createProduct(productDTO);
+          return ResponseEntity.created(URI.create("/products/" + createdProduct.getId()))
+              .body(createdProduct);
+        });
   }
 
   @PostMapping("/{id}/add-deals")
   public ResponseEntity<ProductDTO> addDeal(
-      @PathVariable String id, @RequestBody List<DealDTO> dealDTOs) {
-    ProductDTO savedProduct = productService.addDeals(dealDTOs, id);
-    return ResponseEntity.ok(savedProduct);
+      @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+      @PathVariable String id,
+      @RequestBody List<DealDTO> dealDTOs) {
+    return idempotencyService.execute(
+        idempotencyKey,
+        "POST /products/" + id + "/add-deals",
+        dealDTOs,
+        () -> {
+          ProductDTO savedProduct = productService.addDeals(dealDTOs, id);
+          return ResponseEntity.ok(savedProduct);
+        });
   }
 
   @GetMapping("/search")
@@ -60,9 +116,30 @@ public class ProductController {
     return ResponseEntity.ok(products);
   }
 
+  /**
+   * Like {@link #searchProducts}, but scrolled with the {@code nextCursor} of the previous slice
+   * instead of a page number.
+   */
+  @GetMapping("/search/cursor")
+  public ResponseEntity<ProductSliceDTO> scrollProducts(
+      @ModelAttribute ProductFilterCriteria criteria,
+      @RequestParam(defaultValue = "PRICE") ProductSort sort,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "10") int size) {
+    return ResponseEntity.ok(productService.scrollProducts(criteria, sort, cursor, size));
+  }
+
   @DeleteMapping("/{id}")
-  public ResponseEntity<Void> deleteProduct(@PathVariable String id) {
-    productService.deleteProduct(id);
-    return ResponseEntity.ok().build();
+  public ResponseEntity<Void> deleteProduct(
+      @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+      @PathVariable String id) {
+    return idempotencyService.execute(
+        idempotencyKey,
+        "DELETE /products/" + id,
+        null,
+        () -> {
+          productService.deleteProduct(id);
+          return ResponseEntity.ok().build();
+        });
   }
 }
@@ -15,6 +15,7 @@ import lombok.Setter;
 public class DealDTO {
   private String id;
   private String description;
+  private String startsAt;
   private String expiration;
   private String type;
   private BigDecimal discountValue;
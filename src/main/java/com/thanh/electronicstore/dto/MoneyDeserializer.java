@@ -0,0 +1,98 @@
+package com.thanh.electronicstore.dto;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.thanh.electronicstore.model.Money;
+import java.io.IOException;
+import java.math.BigDecimal;
+
+/**
+ * Reads a {@link Money} from a JSON number, or a string holding one, in the store's currency. Plain
+ * decimals with no more decimals than the currency has are parsed from the token's characters into
+ * minor units; anything else (exponents, extra decimals, very large values) goes through BigDecimal
+ * and is rounded half up.
+ */
+public class MoneyDeserializer extends StdDeserializer<Money> {
+  private static final int MAX_DIGITS = 18;
+  private static final long[] POWERS_OF_TEN = {
+    1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L
+  };
+
+  public MoneyDeserializer() {
+    super(Money.class);
+  }
+
+  @Override
+  public Money deserialize(JsonParser parser, DeserializationContext context) throws IOException {
+    JsonToken token = parser.currentToken();
+    if (token == JsonToken.VALUE_NUMBER_INT || token == JsonToken.VALUE_NUMBER_FLOAT) {
+      Money parsed =
+          parse(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+      return parsed != null ? parsed : fromDecimal(parser.getDecimalValue(), parser, context);
+    }
+    if (token == JsonToken.VALUE_STRING) {
+      String text = parser.getText().trim();
+      Money parsed = parse(text.toCharArray(), 0, text.length());
+      if (parsed != null) {
+        return parsed;
+      }
+      try {
+        return fromDecimal(new BigDecimal(text), parser, context);
+      } catch (NumberFormatException ex) {
+        return (Money) context.handleWeirdStringValue(Money.class, text, "not a decimal amount");
+      }
+    }
+    return (Money) context.handleUnexpectedToken(Money.class, parser);
+  }
+
+  private static Money fromDecimal(
+      BigDecimal amount, JsonParser parser, DeserializationContext context) throws IOException {
+    try {
+      return Money.of(amount);
+    } catch (ArithmeticException ex) {
+      return (Money)
+          context.handleWeirdNumberValue(Money.class, amount, "amount out of range of Money");
+    }
+  }
+
+  /**
+   * Parses {@code [-]digits[.digits]} with at most the currency's decimals and at most 18 digits of
+   * minor units, so that they cannot overflow. Returns null for anything else.
+   */
+  static Money parse(char[] text, int offset, int length) {
+    if (text == null || length == 0) {
+      return null;
+    }
+    int scale = Money.DEFAULT_CURRENCY.getDefaultFractionDigits();
+    int position = offset;
+    int end = offset + length;
+    boolean negative = text[position] == '-';
+    if (negative) {
+      position++;
+    }
+    long units = 0;
+    int digits = 0;
+    int decimals = -1;
+    for (; position < end; position++) {
+      char c = text[position];
+      if (c == '.' && decimals < 0) {
+        decimals = 0;
+      } else if (c >= '0' && c <= '9' && ++digits <= MAX_DIGITS) {
+        units = units * 10 + (c - '0');
+        if (decimals >= 0 && ++decimals > scale) {
+          return null;
+        }
+      } else {
+        return null;
+      }
+    }
+    int padding = scale - Math.max(decimals, 0);
+    if (digits == 0 || decimals == 0 || digits + padding > MAX_DIGITS) {
+      return null;
+    }
+    units *= POWERS_OF_TEN[padding];
+    return Money.ofMinor(negative ? -units : units);
+  }
+}
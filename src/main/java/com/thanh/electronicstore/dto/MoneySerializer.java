@@ -0,0 +1,52 @@
+package com.thanh.electronicstore.dto;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.thanh.electronicstore.model.Money;
+import java.io.IOException;
+
+/**
+ * Writes a {@link Money} as a JSON number with the currency's decimals, formatting the minor units
+ * straight into a per-thread buffer instead of going through a BigDecimal and its string.
+ */
+public class MoneySerializer extends StdSerializer<Money> {
+  // Sign, 19 digits of a long, a decimal point and leading zeros for up to 8 decimals.
+  private static final int MAX_LENGTH = 32;
+  private static final ThreadLocal<char[]> BUFFER =
+      ThreadLocal.withInitial(() -> new char[MAX_LENGTH]);
+
+  public MoneySerializer() {
+    super(Money.class);
+  }
+
+  @Override
+  public void serialize(Money value, JsonGenerator generator, SerializerProvider provider)
+      throws IOException {
+    char[] buffer = BUFFER.get();
+    int start = format(value.minorUnits(), value.scale(), buffer);
+    generator.writeNumber(buffer, start, buffer.length - start);
+  }
+
+  /** Writes the amount at the end of the buffer and returns where it starts. */
+  static int format(long minorUnits, int scale, char[] buffer) {
+    // Digits are taken from the negated value, whose range also covers Long.MIN_VALUE.
+    long remaining = minorUnits < 0 ? minorUnits : -minorUnits;
+    int position = buffer.length;
+    for (int i = 0; i < scale; i++) {
+      buffer[--position] = (char) ('0' - remaining % 10);
+      remaining /= 10;
+    }
+    if (scale > 0) {
+      buffer[--position] = '.';
+    }
+    do {
+      buffer[--position] = (char) ('0' - remaining % 10);
+      remaining /= 10;
+    } while (remaining != 0);
+    if (minorUnits < 0) {
+      buffer[--position] = '-';
+    }
+    return position;
+  }
+}
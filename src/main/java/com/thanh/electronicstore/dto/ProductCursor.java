@@ -0,0 +1,60 @@
+package com.thanh.electronicstore.dto;
+
+import com.thanh.electronicstore.exception.InvalidCursorException;
+import com.thanh.electronicstore.model.Product;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in a product search: the sort key and id of the last product returned. Clients get it
+ * as an opaque URL-safe token and hand it back unchanged to read the next slice.
+ */
+public record ProductCursor(ProductSort sort, String key, UUID id) {
+
+  /** The cursor that continues after {@code product}. */
+  public static ProductCursor after(ProductSort sort, Product product) {
+    String key =
+        switch (sort) {
+          case PRICE -> product.getPrice().toPlainString();
+          case NAME -> product.getName();
+        };
+    return new ProductCursor(sort, key, product.getId());
+  }
+
+  /** Reads a token made by {@link #encode} for a search in the given order. */
+  public static ProductCursor decode(String token, ProductSort sort) {
+    String[] parts;
+    try {
+      parts =
+          new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|", 3);
+    } catch (IllegalArgumentException e) {
+      throw new InvalidCursorException("Invalid cursor: " + token, e);
+    }
+    if (parts.length != 3 || !parts[0].equals(sort.name())) {
+      throw new InvalidCursorException("Cursor does not belong to a search by " + sort);
+    }
+    try {
+      ProductCursor cursor = new ProductCursor(sort, parts[2], UUID.fromString(parts[1]));
+      if (sort == ProductSort.PRICE) {
+        cursor.price();
+      }
+      return cursor;
+    } catch (IllegalArgumentException e) {
+      throw new InvalidCursorException("Invalid cursor: " + token, e);
+    }
+  }
+
+  public String encode() {
+    String raw = sort.name() + "|" + id + "|" + key;
+    return Base64.getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /** The key of a cursor of a search by price. */
+  public BigDecimal price() {
+    return new BigDecimal(key);
+  }
+}
@@ -1,8 +1,8 @@
 package com.thanh.electronicstore.dto;
 
+import com.thanh.electronicstore.model.Money;
 import com.thanh.electronicstore.model.ProductCategory;
 import jakarta.annotation.Nullable;
-import java.math.BigDecimal;
 import java.util.List;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -12,7 +12,7 @@ import lombok.Setter;
 
 @Getter
 @Setter
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class ProductDTO {
@@ -20,7 +20,7 @@ public class ProductDTO {
   private String name;
   private String description;
   private ProductCategory category;
-  private BigDecimal price;
+  private Money price;
   private Integer stock;
   private Boolean available;
   private List<DealDTO> deals;
@@ -0,0 +1,13 @@
+package com.thanh.electronicstore.dto;
+
+import java.util.List;
+import lombok.Builder;
+import lombok.Data;
+
+/** One slice of a product search; {@code nextCursor} is null on the last slice. */
+@Data
+@Builder
+public class ProductSliceDTO {
+  private List<ProductDTO> products;
+  private String nextCursor;
+}
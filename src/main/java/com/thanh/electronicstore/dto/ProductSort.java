@@ -0,0 +1,7 @@
+package com.thanh.electronicstore.dto;
+
+/** Orders a product search can be scrolled in; ties are broken by product id. */
+public enum ProductSort {
+  PRICE,
+  NAME
+}
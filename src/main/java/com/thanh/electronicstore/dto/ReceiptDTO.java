@@ -1,6 +1,6 @@
 package com.thanh.electronicstore.dto;
 
-import java.math.BigDecimal;
+import com.thanh.electronicstore.model.Money;
 import java.util.List;
 import lombok.Builder;
 import lombok.Data;
@@ -10,5 +10,5 @@ import lombok.Data;
 public class ReceiptDTO {
   private String basketId;
   private List<ReceiptItemDTO> items;
-  private BigDecimal totalPrice;
+  private Money totalPrice;
 }
@@ -0,0 +1,12 @@
+package com.thanh.electronicstore.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+/** Stands in a batch of receipts for a basket whose receipt could not be produced. */
+@Data
+@Builder
+public class ReceiptErrorDTO {
+  private String basketId;
+  private String error;
+}
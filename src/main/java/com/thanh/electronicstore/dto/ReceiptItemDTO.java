@@ -1,6 +1,6 @@
 package com.thanh.electronicstore.dto;
 
-import java.math.BigDecimal;
+import com.thanh.electronicstore.model.Money;
 import lombok.Builder;
 import lombok.Data;
 
@@ -9,7 +9,7 @@ import lombok.Data;
 public class ReceiptItemDTO {
   private String productName;
   private int quantity;
-  private BigDecimal originalPrice;
-  private BigDecimal discount;
-  private BigDecimal finalPrice;
+  private Money originalPrice;
+  private Money discount;
+  private Money finalPrice;
 }
@@ -0,0 +1,7 @@
+package com.thanh.electronicstore.exception;
+
+public class BasketExpiredException extends RuntimeException {
+  public BasketExpiredException(String basketId) {
+    super("Basket with ID " + basketId + " has expired and its items were released.");
+  }
+}
@@ -0,0 +1,7 @@
+package com.thanh.electronicstore.exception;
+
+public class IdempotencyKeyInProgressException extends RuntimeException {
+  public IdempotencyKeyInProgressException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,7 @@
+package com.thanh.electronicstore.exception;
+
+public class IdempotencyKeyReusedException extends RuntimeException {
+  public IdempotencyKeyReusedException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,11 @@
+package com.thanh.electronicstore.exception;
+
+public class InvalidCursorException extends RuntimeException {
+  public InvalidCursorException(String message) {
+    super(message);
+  }
+
+  public InvalidCursorException(String message, Throwable cause) {
+    super(message, cause);
+  }
+}
@@ -0,0 +1,7 @@
+package com.thanh.electronicstore.exception;
+
+public class InvalidPageSizeException extends RuntimeException {
+  public InvalidPageSizeException(String message) {
+    super(message);
+  }
+}
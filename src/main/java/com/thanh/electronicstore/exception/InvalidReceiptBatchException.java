@@ -0,0 +1,7 @@
+package com.thanh.electronicstore.exception;
+
+public class InvalidReceiptBatchException extends RuntimeException {
+  public InvalidReceiptBatchException(String message) {
+    super(message);
+  }
+}
@@ -7,8 +7,11 @@ import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -19,7 +22,7 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "basket")
+@Table(name = "basket", indexes = @Index(columnList = "status, expiresAt, id"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -28,9 +31,32 @@ import lombok.Setter;
 public class Basket {
   @Id @GeneratedValue private UUID id;
 
+  @Version private Long version;
+
   @Enumerated(EnumType.STRING)
   private BasketStatus status;
 
+  /** Last time items were added or removed. */
+  private Instant lastTouchedAt;
+
+  /**
+   * When the stock reservation lapses: the last touch plus the reservation TTL in force at that
+   * time. Kept per basket, so changing the TTL only affects baskets touched afterwards.
+   */
+  private Instant expiresAt;
+
+  // Running sums of the prices stored on the items, maintained as lines are added and removed.
+  @Builder.Default private Money subtotal = Money.ZERO;
+  @Builder.Default private Money discountTotal = Money.ZERO;
+  @Builder.Default private Money total = Money.ZERO;
+
+  /**
+   * Whether the stored prices must be recomputed before use: true until the lines are first priced,
+   * and set again when a price of one of the basket's products changes or one of its deals starts,
+   * expires or changes.
+   */
+  @Builder.Default private boolean pricesStale = true;
+
   @OneToMany(mappedBy = "basket", cascade = CascadeType.ALL, orphanRemoval = true)
   @Builder.Default
   private List<BasketItem> basketItems = new ArrayList<>();
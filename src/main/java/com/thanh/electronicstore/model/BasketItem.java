@@ -4,7 +4,9 @@ import com.thanh.electronicstore.dto.BasketItemDTO;
 import jakarta.persistence.Entity;
 import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
@@ -16,14 +18,17 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "basket_item")
+@Table(name = "basket_item", indexes = @Index(columnList = "stockApplied"))
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 public class BasketItem {
-  @Id @GeneratedValue private UUID id;
+  // Generated in the JVM before the INSERT, unlike IDENTITY, so new items can be batch inserted.
+  @Id
+  @GeneratedValue(strategy = GenerationType.UUID)
+  private UUID id;
 
   @ManyToOne(fetch = FetchType.LAZY, optional = false)
   @JoinColumn(name = "product_id")
@@ -35,6 +40,18 @@ public class BasketItem {
 
   private int quantity;
 
+  /**
+   * Whether the quantity has already been taken out of {@code product.stock}. Always true when
+   * stock is reserved directly in the database; with the in-memory stock ledger the item is written
+   * first and the flusher applies it to the product row later.
+   */
+  @Builder.Default private boolean stockApplied = true;
+
+  // The line's price as of the basket's last pricing; null until priced.
+  private Money originalPrice;
+  private Money discount;
+  private Money finalPrice;
+
   public BasketItemDTO toDto() {
     return BasketItemDTO.builder()
         .id(id.toString())
@@ -2,5 +2,6 @@ package com.thanh.electronicstore.model;
 
 public enum BasketStatus {
   ACTIVE,
-  CHECKED_OUT
+  CHECKED_OUT,
+  EXPIRED
 }
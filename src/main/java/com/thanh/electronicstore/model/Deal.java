@@ -29,6 +29,10 @@ import lombok.Setter;
 public class Deal {
   @Id @GeneratedValue private UUID id;
   private String description;
+
+  /** When the deal starts to apply; null if it applies as soon as it is created. */
+  private LocalDateTime startsAt;
+
   private LocalDateTime expiration;
 
   @Enumerated(EnumType.STRING)
@@ -41,10 +45,16 @@ public class Deal {
   @ManyToMany(mappedBy = "deals")
   private List<Product> products;
 
+  /** Whether the deal has a non-empty window: no start, or a start before the expiration. */
+  public boolean startsBeforeExpiration() {
+    return startsAt == null || startsAt.isBefore(expiration);
+  }
+
   public DealDTO toDto() {
     return DealDTO.builder()
         .id(this.id.toString())
         .description(this.description)
+        .startsAt(this.startsAt != null ? this.startsAt.toString() : null)
         .expiration(this.expiration.toString())
         .type(this.type.name())
         .discountValue(discountValue)
@@ -0,0 +1,82 @@
+package com.thanh.electronicstore.model;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.thanh.electronicstore.dto.MoneyDeserializer;
+import com.thanh.electronicstore.dto.MoneySerializer;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Objects;
+
+/**
+ * An amount of money as a whole number of the currency's minor units, cents for the store's
+ * currency. Arithmetic is exact and throws {@link ArithmeticException} on overflow. In JSON it is a
+ * plain decimal number with the currency's number of decimals, the same as the BigDecimal amounts
+ * it replaces.
+ */
+@JsonSerialize(using = MoneySerializer.class)
+@JsonDeserialize(using = MoneyDeserializer.class)
+public record Money(long minorUnits, Currency currency) implements Comparable<Money> {
+  /** The store prices everything in a single currency. */
+  public static final Currency DEFAULT_CURRENCY = Currency.getInstance("USD");
+
+  public static final Money ZERO = new Money(0, DEFAULT_CURRENCY);
+
+  public Money {
+    Objects.requireNonNull(currency, "currency");
+  }
+
+  public static Money ofMinor(long minorUnits) {
+    return new Money(minorUnits, DEFAULT_CURRENCY);
+  }
+
+  /** The amount rounded half up to the currency's minor units. */
+  public static Money of(BigDecimal amount) {
+    return of(amount, DEFAULT_CURRENCY);
+  }
+
+  public static Money of(BigDecimal amount, Currency currency) {
+    return new Money(
+        amount
+            .setScale(currency.getDefaultFractionDigits(), RoundingMode.HALF_UP)
+            .scaleByPowerOfTen(currency.getDefaultFractionDigits())
+            .longValueExact(),
+        currency);
+  }
+
+  /** Number of decimals of the currency. */
+  public int scale() {
+    return currency.getDefaultFractionDigits();
+  }
+
+  public Money plus(Money other) {
+    return new Money(Math.addExact(minorUnits, checkCurrency(other).minorUnits), currency);
+  }
+
+  public Money minus(Money other) {
+    return new Money(Math.subtractExact(minorUnits, checkCurrency(other).minorUnits), currency);
+  }
+
+  public BigDecimal toBigDecimal() {
+    return BigDecimal.valueOf(minorUnits, scale());
+  }
+
+  @Override
+  public int compareTo(Money other) {
+    return Long.compare(minorUnits, checkCurrency(other).minorUnits);
+  }
+
+  @Override
+  public String toString() {
+    return toBigDecimal().toPlainString();
+  }
+
+  private Money checkCurrency(Money other) {
+    if (!currency.equals(other.currency)) {
+      throw new IllegalArgumentException(
+          "Currency mismatch: " + currency + " and " + other.currency);
+    }
+    return other;
+  }
+}
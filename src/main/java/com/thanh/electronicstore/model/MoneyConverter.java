@@ -0,0 +1,18 @@
+package com.thanh.electronicstore.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/** Stores {@link Money} attributes as their minor units in the store's currency. */
+@Converter(autoApply = true)
+public class MoneyConverter implements AttributeConverter<Money, Long> {
+  @Override
+  public Long convertToDatabaseColumn(Money money) {
+    return money == null ? null : money.minorUnits();
+  }
+
+  @Override
+  public Money convertToEntityAttribute(Long minorUnits) {
+    return minorUnits == null ? null : Money.ofMinor(minorUnits);
+  }
+}
@@ -6,10 +6,12 @@ import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.JoinTable;
 import jakarta.persistence.ManyToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.UUID;
@@ -20,7 +22,16 @@ import lombok.NoArgsConstructor;
 import lombok.Setter;
 
 @Entity
-@Table(name = "product")
+// Each search filter leads an index that continues with (price, id), the order searches by price
+// are scrolled in; price and name carry their own for unfiltered ranges and scrolls.
+@Table(
+    name = "product",
+    indexes = {
+      @Index(columnList = "category, price, id"),
+      @Index(columnList = "available, price, id"),
+      @Index(columnList = "price, id"),
+      @Index(columnList = "name, id")
+    })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -29,6 +40,8 @@ import lombok.Setter;
 public class Product {
   @Id @GeneratedValue private UUID id;
 
+  @Version private Long version;
+
   @Column(nullable = false)
   private String name;
 
@@ -54,7 +67,7 @@ public class Product {
         .id(this.id.toString())
         .name(this.name)
         .category(this.category)
-        .price(this.price)
+        .price(this.price != null ? Money.of(this.price) : null)
         .stock(this.stock)
         .available(this.available)
         .description(this.description)
@@ -0,0 +1,6 @@
+package com.thanh.electronicstore.model;
+
+import java.util.UUID;
+
+/** A quantity of one product to take out of, or put back into, stock. */
+public record StockReservation(UUID productId, int quantity) {}
@@ -1,9 +1,87 @@
 package com.thanh.electronicstore.repository;
 
 import com.thanh.electronicstore.model.BasketItem;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface BasketItemRepository extends JpaRepository<BasketItem, UUID> {}
+public interface BasketItemRepository
+    extends JpaRepository<BasketItem, UUID>, BasketItemStockRepository {
+  List<BasketItem> findByStockAppliedFalse(Pageable pageable);
+
+  @Query("SELECT bi FROM BasketItem bi WHERE bi.basket.id = :basketId AND bi.id IN :ids")
+  List<BasketItem> findByBasketIdAndIdIn(
+      @Param("basketId") UUID basketId, @Param("ids") Collection<UUID> ids);
+
+  /**
+   * Scoped to the basket so the database can narrow the rows down through its foreign key index.
+   */
+  @Modifying
+  @Query("DELETE FROM BasketItem bi WHERE bi.basket.id = :basketId AND bi.id IN :ids")
+  int deleteFromBasket(@Param("basketId") UUID basketId, @Param("ids") Collection<UUID> ids);
+
+  List<BasketItem> findByBasketIdIn(Collection<UUID> basketIds);
+
+  @Modifying
+  @Query("DELETE FROM BasketItem bi WHERE bi.basket.id IN :basketIds")
+  int deleteByBasketIds(@Param("basketIds") Collection<UUID> basketIds);
+
+  /**
+   * Prices every line of the basket in the database: the discount of each deal live at {@code now}
+   * is rounded to cents like its {@code DealStrategy}, the line's discounts are summed, and the
+   * receipt total is a window sum over the lines. Lines come in no particular order.
+   */
+  @Query(
+      value =
+          "SELECT CAST(line.product_id AS VARCHAR) AS productId, line.name AS productName,"
+              + " line.quantity AS quantity, line.original_price AS originalPrice,"
+              + " line.discount AS discount,"
+              + " ROUND(line.original_price - line.discount, 2) AS finalPrice,"
+              + " SUM(ROUND(line.original_price - line.discount, 2)) OVER () AS totalPrice"
+              + " FROM (SELECT bi.id, p.id AS product_id, p.name, bi.quantity,"
+              + "   p.price * bi.quantity AS original_price,"
+              + "   COALESCE(SUM(CASE d.type"
+              + "     WHEN 'PERCENTAGE_DISCOUNT' THEN"
+              + "       ROUND(p.price * bi.quantity * ROUND(d.discount_value * 0.01, 4), 2)"
+              + "     WHEN 'FIXED_AMOUNT_DISCOUNT' THEN"
+              + "       ROUND(LEAST(d.discount_value * bi.quantity, p.price * bi.quantity), 2)"
+              + "   END), 0) AS discount"
+              + " FROM basket_item bi"
+              + " JOIN product p ON p.id = bi.product_id"
+              + " LEFT JOIN product_deal pd ON pd.product_id = p.id"
+              + " LEFT JOIN deal d ON d.id = pd.deal_id"
+              + "   AND (d.starts_at IS NULL OR d.starts_at <= :now)"
+              + "   AND (d.expiration IS NULL OR d.expiration > :now)"
+              + " WHERE bi.basket_id = :basketId"
+              + " GROUP BY bi.id, p.id, p.name, bi.quantity, p.price) line",
+      nativeQuery = true)
+  List<ReceiptLine> findReceiptLines(
+      @Param("basketId") UUID basketId, @Param("now") LocalDateTime now);
+
+  /** One priced line of a receipt, with the total of all the receipt's lines. */
+  interface ReceiptLine {
+    /** As text: a native query hands UUID columns back as bytes. */
+    String getProductId();
+
+    String getProductName();
+
+    int getQuantity();
+
+    BigDecimal getOriginalPrice();
+
+    BigDecimal getDiscount();
+
+    BigDecimal getFinalPrice();
+
+    BigDecimal getTotalPrice();
+  }
+}
@@ -0,0 +1,22 @@
+package com.thanh.electronicstore.repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+public interface BasketItemStockRepository {
+  /**
+   * Locks the given basket item rows until the end of the transaction and returns the ids of those
+   * whose stock has already been applied to the product row. Reads the database directly, never the
+   * persistence context, so the flag is current.
+   */
+  Set<UUID> lockAppliedItems(Collection<UUID> basketItemIds);
+
+  /**
+   * Flags the given items as applied in one JDBC batch. Element {@code i} of the result is true
+   * when item {@code i} was still unapplied and has now been flagged; deleted or already applied
+   * items report false.
+   */
+  boolean[] markStockApplied(List<UUID> basketItemIds);
+}
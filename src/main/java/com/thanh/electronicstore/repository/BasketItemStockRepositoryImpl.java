@@ -0,0 +1,48 @@
+package com.thanh.electronicstore.repository;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+class BasketItemStockRepositoryImpl implements BasketItemStockRepository {
+  private static final String LOCK_APPLIED_ITEMS =
+      "SELECT id, stock_applied FROM basket_item WHERE id IN (:ids) FOR UPDATE";
+  private static final String MARK_STOCK_APPLIED =
+      "UPDATE basket_item SET stock_applied = TRUE WHERE id = ? AND stock_applied = FALSE";
+
+  private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+  private final ConditionalBatch markStockApplied;
+
+  BasketItemStockRepositoryImpl(
+      JdbcTemplate jdbcTemplate, NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+    this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    this.markStockApplied = new ConditionalBatch(jdbcTemplate, MARK_STOCK_APPLIED);
+  }
+
+  @Override
+  public Set<UUID> lockAppliedItems(Collection<UUID> basketItemIds) {
+    Set<UUID> appliedItemIds = new HashSet<>();
+    if (basketItemIds.isEmpty()) {
+      return appliedItemIds;
+    }
+    namedParameterJdbcTemplate.query(
+        LOCK_APPLIED_ITEMS,
+        Map.of("ids", basketItemIds),
+        rs -> {
+          if (rs.getBoolean("stock_applied")) {
+            appliedItemIds.add(rs.getObject("id", UUID.class));
+          }
+        });
+    return appliedItemIds;
+  }
+
+  @Override
+  public boolean[] markStockApplied(List<UUID> basketItemIds) {
+    return markStockApplied.execute(basketItemIds.stream().map(id -> new Object[] {id}).toList());
+  }
+}
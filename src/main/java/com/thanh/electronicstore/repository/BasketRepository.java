@@ -1,9 +1,123 @@
 package com.thanh.electronicstore.repository;
 
 import com.thanh.electronicstore.model.Basket;
+import com.thanh.electronicstore.model.BasketStatus;
+import jakarta.persistence.LockModeType;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface BasketRepository extends JpaRepository<Basket, UUID> {}
+public interface BasketRepository extends JpaRepository<Basket, UUID> {
+  @Query("SELECT b.version FROM Basket b WHERE b.id = :id")
+  Optional<Long> findVersionById(@Param("id") UUID id);
+
+  @Query("SELECT b.version AS version, b.pricesStale AS pricesStale FROM Basket b WHERE b.id = :id")
+  Optional<BasketPricingState> findPricingStateById(@Param("id") UUID id);
+
+  @Query("SELECT b.id AS id, b.version AS version FROM Basket b WHERE b.id IN :ids")
+  List<BasketVersion> findVersionsByIdIn(@Param("ids") Collection<UUID> ids);
+
+  /** Loads the basket together with its items in one query. */
+  @EntityGraph(attributePaths = "basketItems")
+  Optional<Basket> findWithItemsById(UUID id);
+
+  /**
+   * Loads the basket, its items and their products in one query. Receipts take product deals from
+   * the {@code ActiveDealIndex}, not from this graph.
+   */
+  @EntityGraph(attributePaths = {"basketItems", "basketItems.product"})
+  Optional<Basket> findWithItemsAndProductsById(UUID id);
+
+  /** Loads the baskets, their items and their products in one query. */
+  @EntityGraph(attributePaths = {"basketItems", "basketItems.product"})
+  List<Basket> findWithItemsAndProductsByIdIn(Collection<UUID> ids);
+
+  /**
+   * Loads the basket for a mutation. Its version is incremented on commit even when only the items
+   * change, so two concurrent mutations of the same basket cannot both succeed.
+   */
+  @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+  Optional<Basket> findForUpdateById(UUID id);
+
+  /**
+   * Locks those of the given baskets that are still in the status and whose reservation lapsed at
+   * or before {@code now}. A mutation that commits first moves the deadline past it; one that
+   * commits afterwards fails its version check.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query(
+      "SELECT b FROM Basket b WHERE b.id IN :ids AND b.status = :status"
+          + " AND b.expiresAt <= :now")
+  List<Basket> findExpiredForUpdate(
+      @Param("ids") Collection<UUID> ids,
+      @Param("status") BasketStatus status,
+      @Param("now") Instant now);
+
+  /**
+   * One page of the deadlines of the baskets in the status, in deadline order, after the given
+   * deadline and id. Pages are read by key, so each one costs the same however deep it is.
+   */
+  @Query(
+      "SELECT b.id AS id, b.expiresAt AS expiresAt FROM Basket b WHERE b.status = :status"
+          + " AND (b.expiresAt > :afterExpiresAt"
+          + " OR (b.expiresAt = :afterExpiresAt AND b.id > :afterId))"
+          + " ORDER BY b.expiresAt, b.id")
+  List<BasketDeadline> findDeadlinesByStatus(
+      @Param("status") BasketStatus status,
+      @Param("afterExpiresAt") Instant afterExpiresAt,
+      @Param("afterId") UUID afterId,
+      Pageable page);
+
+  /**
+   * Gives baskets in the status that have no deadline yet, saved before deadlines were kept, one
+   * that starts now.
+   */
+  @Modifying
+  @Query(
+      "UPDATE Basket b SET b.lastTouchedAt = COALESCE(b.lastTouchedAt, :now),"
+          + " b.expiresAt = :deadline WHERE b.status = :status AND b.expiresAt IS NULL")
+  int stampMissingDeadlines(
+      @Param("status") BasketStatus status,
+      @Param("now") Instant now,
+      @Param("deadline") Instant deadline);
+
+  /**
+   * Flags the stored prices of every basket holding the product as stale. The version is bumped so
+   * that a concurrent mutation, which would write the flag back, fails and is retried.
+   */
+  @Modifying
+  @Query(
+      "UPDATE Basket b SET b.pricesStale = true, b.version = b.version + 1"
+          + " WHERE b.pricesStale = false AND b.id IN"
+          + " (SELECT bi.basket.id FROM BasketItem bi WHERE bi.product.id = :productId)")
+  int markPricesStale(@Param("productId") UUID productId);
+
+  interface BasketVersion {
+    UUID getId();
+
+    Long getVersion();
+  }
+
+  interface BasketPricingState {
+    Long getVersion();
+
+    Boolean getPricesStale();
+  }
+
+  interface BasketDeadline {
+    UUID getId();
+
+    Instant getExpiresAt();
+  }
+}
@@ -0,0 +1,96 @@
+package com.thanh.electronicstore.repository;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.List;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Runs a conditional UPDATE once per argument row and tells, row by row, whether it matched. The
+ * rows go out as one JDBC batch, but some drivers (Oracle, MySQL with {@code
+ * rewriteBatchedStatements}) answer a batch with {@link Statement#SUCCESS_NO_INFO} instead of
+ * counts. The batch then runs behind a savepoint: when a count is missing it is rolled back and the
+ * rows are run one at a time, and later calls skip the batch altogether.
+ *
+ * <p>Must run inside a transaction, on its connection.
+ */
+public class ConditionalBatch {
+  private final JdbcTemplate jdbcTemplate;
+  private final String sql;
+
+  private volatile boolean countsReported = true;
+
+  public ConditionalBatch(JdbcTemplate jdbcTemplate, String sql) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.sql = sql;
+  }
+
+  /** Element {@code i} is true when row {@code i} updated exactly one row. */
+  public boolean[] execute(List<Object[]> rows) {
+    if (rows.isEmpty()) {
+      return new boolean[0];
+    }
+    return jdbcTemplate.execute(
+        (ConnectionCallback<boolean[]>)
+            connection ->
+                matched(countsReported ? batch(connection, rows) : oneByOne(connection, rows)));
+  }
+
+  private int[] batch(Connection connection, List<Object[]> rows) throws SQLException {
+    Savepoint savepoint = connection.setSavepoint();
+    int[] counts;
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      for (Object[] row : rows) {
+        bind(statement, row);
+        statement.addBatch();
+      }
+      counts = statement.executeBatch();
+    }
+    if (Arrays.stream(counts).noneMatch(count -> count == Statement.SUCCESS_NO_INFO)) {
+      release(connection, savepoint);
+      return counts;
+    }
+    connection.rollback(savepoint);
+    countsReported = false;
+    return oneByOne(connection, rows);
+  }
+
+  private int[] oneByOne(Connection connection, List<Object[]> rows) throws SQLException {
+    int[] counts = new int[rows.size()];
+    try (PreparedStatement statement = connection.prepareStatement(sql)) {
+      for (int i = 0; i < rows.size(); i++) {
+        bind(statement, rows.get(i));
+        counts[i] = statement.executeUpdate();
+      }
+    }
+    return counts;
+  }
+
+  private static void bind(PreparedStatement statement, Object[] row) throws SQLException {
+    for (int i = 0; i < row.length; i++) {
+      statement.setObject(i + 1, row[i]);
+    }
+  }
+
+  private static void release(Connection connection, Savepoint savepoint) throws SQLException {
+    try {
+      connection.releaseSavepoint(savepoint);
+    } catch (SQLFeatureNotSupportedException ex) {
+      // Oracle keeps savepoints until the transaction ends.
+    }
+  }
+
+  private static boolean[] matched(int[] counts) {
+    boolean[] matched = new boolean[counts.length];
+    for (int i = 0; i < counts.length; i++) {
+      matched[i] = counts[i] == 1;
+    }
+    return matched;
+  }
+}
@@ -1,9 +1,66 @@
 package com.thanh.electronicstore.repository;
 
 import com.thanh.electronicstore.model.Deal;
+import com.thanh.electronicstore.model.DealType;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface DealRepository extends JpaRepository<Deal, UUID> {}
+public interface DealRepository extends JpaRepository<Deal, UUID> {
+  @Query(
+      "SELECT p.id AS productId, p.price AS unitPrice, d.id AS dealId, d.type AS type, "
+          + "d.discountValue AS discountValue, d.expiration AS expiration "
+          + "FROM Product p JOIN p.deals d WHERE (d.startsAt IS NULL OR d.startsAt <= :now) "
+          + "AND (d.expiration IS NULL OR d.expiration > :now)")
+  List<LiveDeal> findLiveDeals(@Param("now") LocalDateTime now);
+
+  @Query(
+      "SELECT p.id AS productId, p.price AS unitPrice, d.id AS dealId, d.type AS type, "
+          + "d.discountValue AS discountValue, d.expiration AS expiration "
+          + "FROM Product p JOIN p.deals d WHERE p.id = :productId "
+          + "AND (d.startsAt IS NULL OR d.startsAt <= :now) "
+          + "AND (d.expiration IS NULL OR d.expiration > :now)")
+  List<LiveDeal> findLiveDealsByProductId(
+      @Param("productId") UUID productId, @Param("now") LocalDateTime now);
+
+  @Query(
+      "SELECT p.id AS productId, d.startsAt AS startsAt, d.expiration AS expiration "
+          + "FROM Product p JOIN p.deals d WHERE d.startsAt > :now OR d.expiration > :now")
+  List<DealWindow> findUpcomingWindows(@Param("now") LocalDateTime now);
+
+  @Query(
+      "SELECT p.id AS productId, d.startsAt AS startsAt, d.expiration AS expiration "
+          + "FROM Product p JOIN p.deals d WHERE p.id = :productId "
+          + "AND (d.startsAt > :now OR d.expiration > :now)")
+  List<DealWindow> findUpcomingWindowsByProductId(
+      @Param("productId") UUID productId, @Param("now") LocalDateTime now);
+
+  interface LiveDeal {
+    UUID getProductId();
+
+    BigDecimal getUnitPrice();
+
+    UUID getDealId();
+
+    DealType getType();
+
+    BigDecimal getDiscountValue();
+
+    LocalDateTime getExpiration();
+  }
+
+  /** When a deal of a product starts and expires, for deals with one of those still ahead. */
+  interface DealWindow {
+    UUID getProductId();
+
+    LocalDateTime getStartsAt();
+
+    LocalDateTime getExpiration();
+  }
+}
@@ -1,28 +1,74 @@
 package com.thanh.electronicstore.repository;
 
 import com.thanh.electronicstore.model.Product;
-import com.thanh.electronicstore.model.ProductCategory;
-import java.math.BigDecimal;
+import jakarta.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product, UUID> {
+public interface ProductRepository
+    extends JpaRepository<Product, UUID>, ProductStockRepository, ProductSearchRepository {
+  /** Loads every product together with its deals in one query. */
+  @EntityGraph(attributePaths = "deals")
+  @Query("SELECT p FROM Product p")
+  List<Product> findAllWithDeals();
+
+  @EntityGraph(attributePaths = "deals")
+  Optional<Product> findWithDealsById(UUID id);
+
+  @EntityGraph(attributePaths = "deals")
+  List<Product> findWithDealsByIdIn(Collection<UUID> ids);
+
+  /** Every product id in order, read from the database in batches; the stream must be closed. */
+  @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+  @Query("SELECT p.id FROM Product p ORDER BY p.id")
+  Stream<UUID> streamAllIds();
+
+  @Query("SELECT p.id AS id, p.version AS version, p.stock AS stock FROM Product p")
+  List<ProductStock> findAllStock();
+
+  @Query(
+      "SELECT p.id AS id, p.version AS version, p.stock AS stock FROM Product p"
+          + " WHERE p.id IN :ids")
+  List<ProductStock> findStockByIdIn(@Param("ids") Collection<UUID> ids);
+
+  /**
+   * Stock still available per product: the stored stock minus basket items that reserved stock
+   * without having been applied to the product row yet.
+   */
   @Query(
-      "SELECT p FROM Product p WHERE "
-          + "(:category IS NULL OR p.category = :category) AND "
-          + "(:minPrice IS NULL OR p.price >= :minPrice) AND "
-          + "(:maxPrice IS NULL OR p.price <= :maxPrice) AND "
-          + "(:available IS NULL OR p.available = :available)")
-  Page<Product> findByFilter(
-      @Param("category") ProductCategory category,
-      @Param("minPrice") BigDecimal minPrice,
-      @Param("maxPrice") BigDecimal maxPrice,
-      @Param("available") Boolean available,
-      Pageable pageable);
+      "SELECT p.id AS productId, p.stock - COALESCE((SELECT SUM(bi.quantity) FROM BasketItem bi "
+          + "WHERE bi.product = p AND bi.stockApplied = false), 0) AS available "
+          + "FROM Product p WHERE p.id IN :ids")
+  List<ProductAvailability> findAvailability(@Param("ids") Collection<UUID> ids);
+
+  @Query(
+      "SELECT p.id AS productId, p.stock - COALESCE((SELECT SUM(bi.quantity) FROM BasketItem bi "
+          + "WHERE bi.product = p AND bi.stockApplied = false), 0) AS available "
+          + "FROM Product p")
+  List<ProductAvailability> findAllAvailability();
+
+  interface ProductStock {
+    UUID getId();
+
+    long getVersion();
+
+    int getStock();
+  }
+
+  interface ProductAvailability {
+    UUID getProductId();
+
+    Long getAvailable();
+  }
 }
@@ -0,0 +1,27 @@
+package com.thanh.electronicstore.repository;
+
+import com.thanh.electronicstore.dto.ProductCursor;
+import com.thanh.electronicstore.dto.ProductFilterCriteria;
+import com.thanh.electronicstore.dto.ProductSort;
+import com.thanh.electronicstore.model.Product;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+
+public interface ProductSearchRepository {
+  /**
+   * The page of products matching the criteria, by price and then id, so pages are stable and the
+   * (filter, price, id) indexes return them in order. Only the criteria that are set become
+   * predicates, so the database can use the index for them. The count is skipped when the page
+   * shows it. The sort of {@code pageable} is ignored.
+   */
+  Page<Product> findByFilter(ProductFilterCriteria criteria, Pageable pageable);
+
+  /**
+   * Up to {@code size} products matching the criteria in {@code sort} order, then by id, starting
+   * after {@code after} if given. The slice is found by seeking past the cursor's key instead of
+   * skipping rows; one extra row is read to tell whether there is more, and nothing is counted.
+   */
+  Slice<Product> findSlice(
+      ProductFilterCriteria criteria, ProductSort sort, ProductCursor after, int size);
+}
@@ -0,0 +1,128 @@
+package com.thanh.electronicstore.repository;
+
+import com.thanh.electronicstore.dto.ProductCursor;
+import com.thanh.electronicstore.dto.ProductFilterCriteria;
+import com.thanh.electronicstore.dto.ProductSort;
+import com.thanh.electronicstore.model.Product;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.support.PageableExecutionUtils;
+
+/**
+ * Builds product searches with the Criteria API, so that each query holds only the predicates the
+ * search actually sets. The indexes they are meant to use are declared on {@link Product}.
+ */
+class ProductSearchRepositoryImpl implements ProductSearchRepository {
+  private final EntityManager entityManager;
+
+  ProductSearchRepositoryImpl(EntityManager entityManager) {
+    this.entityManager = entityManager;
+  }
+
+  @Override
+  public Page<Product> findByFilter(ProductFilterCriteria criteria, Pageable pageable) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Product> query = cb.createQuery(Product.class);
+    Root<Product> product = query.from(Product.class);
+    query
+        .select(product)
+        .where(filter(cb, product, criteria).toArray(Predicate[]::new))
+        .orderBy(cb.asc(product.get("price")), cb.asc(product.get("id")));
+
+    List<Product> content =
+        entityManager
+            .createQuery(query)
+            .setFirstResult((int) pageable.getOffset())
+            .setMaxResults(pageable.getPageSize())
+            .getResultList();
+    return PageableExecutionUtils.getPage(content, pageable, () -> count(criteria));
+  }
+
+  @Override
+  public Slice<Product> findSlice(
+      ProductFilterCriteria criteria, ProductSort sort, ProductCursor after, int size) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Product> query = cb.createQuery(Product.class);
+    Root<Product> product = query.from(Product.class);
+    Path<UUID> id = product.get("id");
+
+    List<Predicate> predicates = filter(cb, product, criteria);
+    Expression<?> key;
+    switch (sort) {
+      case PRICE -> {
+        Path<BigDecimal> price = product.get("price");
+        if (after != null) {
+          predicates.add(seek(cb, price, after.price(), id, after.id()));
+        }
+        key = price;
+      }
+      case NAME -> {
+        Path<String> name = product.get("name");
+        if (after != null) {
+          predicates.add(seek(cb, name, after.key(), id, after.id()));
+        }
+        key = name;
+      }
+      default -> throw new IllegalArgumentException("Unknown sort " + sort);
+    }
+    query
+        .select(product)
+        .where(predicates.toArray(Predicate[]::new))
+        .orderBy(cb.asc(key), cb.asc(id));
+
+    List<Product> rows = entityManager.createQuery(query).setMaxResults(size + 1).getResultList();
+    boolean hasNext = rows.size() > size;
+    List<Product> content = hasNext ? rows.subList(0, size) : rows;
+    return new SliceImpl<>(content, PageRequest.of(0, size), hasNext);
+  }
+
+  private long count(ProductFilterCriteria criteria) {
+    CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+    CriteriaQuery<Long> query = cb.createQuery(Long.class);
+    Root<Product> product = query.from(Product.class);
+    query.select(cb.count(product)).where(filter(cb, product, criteria).toArray(Predicate[]::new));
+    return entityManager.createQuery(query).getSingleResult();
+  }
+
+  private static List<Predicate> filter(
+      CriteriaBuilder cb, Root<Product> product, ProductFilterCriteria criteria) {
+    List<Predicate> predicates = new ArrayList<>(4);
+    if (criteria.getCategory() != null) {
+      predicates.add(cb.equal(product.get("category"), criteria.getCategory()));
+    }
+    if (criteria.getAvailable() != null) {
+      predicates.add(cb.equal(product.get("available"), criteria.getAvailable()));
+    }
+    if (criteria.getMinPrice() != null) {
+      predicates.add(
+          cb.greaterThanOrEqualTo(product.<BigDecimal>get("price"), criteria.getMinPrice()));
+    }
+    if (criteria.getMaxPrice() != null) {
+      predicates.add(
+          cb.lessThanOrEqualTo(product.<BigDecimal>get("price"), criteria.getMaxPrice()));
+    }
+    return predicates;
+  }
+
+  /** Rows after ({@code key}, {@code id}) in (key, id) order. */
+  private static <T extends Comparable<? super T>> Predicate seek(
+      CriteriaBuilder cb, Path<T> key, T afterKey, Path<UUID> id, UUID afterId) {
+    return cb.or(
+        cb.greaterThan(key, afterKey),
+        cb.and(cb.equal(key, afterKey), cb.greaterThan(id, afterId)));
+  }
+}
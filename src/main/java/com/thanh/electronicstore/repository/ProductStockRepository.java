@@ -0,0 +1,23 @@
+package com.thanh.electronicstore.repository;
+
+import com.thanh.electronicstore.model.StockReservation;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+public interface ProductStockRepository {
+  /**
+   * Decrements stock for every reservation in one JDBC batch. Each row is only updated if enough
+   * stock is left, and the product is marked unavailable when it reaches zero; the version is
+   * bumped so that entity updates holding a stale copy of the stock fail instead of overwriting it.
+   * Element {@code i} of the result tells whether reservation {@code i} succeeded. Reservations of
+   * the same product are applied in list order.
+   */
+  boolean[] decrementStock(List<StockReservation> reservations);
+
+  /**
+   * Adds each delta to the product's stock in one JDBC batch, without a stock check. Products whose
+   * stock drops to zero or below are marked unavailable.
+   */
+  void adjustStock(Map<UUID, Integer> deltas);
+}
@@ -0,0 +1,58 @@
+package com.thanh.electronicstore.repository;
+
+import com.thanh.electronicstore.model.StockReservation;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Plain JDBC so that the conditional UPDATEs go out as one batch while still reporting the
+ * affected-row count of every statement, see {@link ConditionalBatch}. Runs on the connection of
+ * the surrounding JPA transaction.
+ */
+class ProductStockRepositoryImpl implements ProductStockRepository {
+  private static final String DECREMENT_STOCK =
+      "UPDATE product SET stock = stock - ?, version = version + 1, "
+          + "available = CASE WHEN stock = ? THEN FALSE ELSE available END "
+          + "WHERE id = ? AND stock >= ?";
+  private static final String ADJUST_STOCK =
+      "UPDATE product SET stock = stock + ?, version = version + 1, "
+          + "available = CASE WHEN stock + ? <= 0 THEN FALSE ELSE available END "
+          + "WHERE id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final ConditionalBatch decrementStock;
+
+  ProductStockRepositoryImpl(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.decrementStock = new ConditionalBatch(jdbcTemplate, DECREMENT_STOCK);
+  }
+
+  @Override
+  public boolean[] decrementStock(List<StockReservation> reservations) {
+    return decrementStock.execute(
+        reservations.stream()
+            .map(
+                reservation ->
+                    new Object[] {
+                      reservation.quantity(),
+                      reservation.quantity(),
+                      reservation.productId(),
+                      reservation.quantity()
+                    })
+            .toList());
+  }
+
+  @Override
+  public void adjustStock(Map<UUID, Integer> deltas) {
+    if (deltas.isEmpty()) {
+      return;
+    }
+    jdbcTemplate.batchUpdate(
+        ADJUST_STOCK,
+        deltas.entrySet().stream()
+            .map(delta -> new Object[] {delta.getValue(), delta.getValue(), delta.getKey()})
+            .toList());
+  }
+}
@@ -0,0 +1,30 @@
+package com.thanh.electronicstore.service;
+
+import com.thanh.electronicstore.model.DealType;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A deal as the receipt path needs it: immutable, with its value already scaled for {@link
+ * DealStrategy#calculateDiscountCents}. {@code exact} is false when the value has no scaled form,
+ * in which case lines carrying the deal are priced with BigDecimal.
+ */
+public record ActiveDeal(
+    UUID id,
+    DealType type,
+    BigDecimal discountValue,
+    LocalDateTime expiration,
+    long scaledValue,
+    boolean exact) {
+
+  public static ActiveDeal of(
+      UUID id, DealType type, BigDecimal discountValue, LocalDateTime expiration) {
+    try {
+      long scaledValue = type.getStrategy().scaleDealValue(discountValue);
+      return new ActiveDeal(id, type, discountValue, expiration, scaledValue, true);
+    } catch (ArithmeticException ex) {
+      return new ActiveDeal(id, type, discountValue, expiration, 0, false);
+    }
+  }
+}
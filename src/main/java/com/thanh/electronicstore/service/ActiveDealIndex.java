@@ -0,0 +1,143 @@
+package com.thanh.electronicstore.service;
+
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.repository.DealRepository;
+import com.thanh.electronicstore.repository.DealRepository.LiveDeal;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Live deals per product, so the receipt path never loads deals from the database. Each product
+ * also keeps the {@link EffectivePrice} of its live deals, computed for the price loaded with them,
+ * so pricing a line does not go through the deals' strategies.
+ *
+ * <p>The index is loaded once the application is ready and reloaded per product whenever a {@link
+ * ProductChangedEvent} is committed. The {@link DealScheduler} publishes one when a deal starts or
+ * expires, so lookups take the entry as it is and never compare timestamps.
+ */
+@Component
+public class ActiveDealIndex {
+  private static final Logger logger = LoggerFactory.getLogger(ActiveDealIndex.class);
+
+  private static final Comparator<ActiveDeal> BY_EXPIRATION =
+      Comparator.comparing(ActiveDeal::expiration, Comparator.nullsLast(Comparator.naturalOrder()));
+
+  private final DealRepository dealRepository;
+  private final Clock clock;
+  private final Map<UUID, ProductDeals> deals = new ConcurrentHashMap<>();
+
+  // Taken before each read of the database, so a slow load never overwrites a newer one.
+  private final AtomicLong loads = new AtomicLong();
+
+  public ActiveDealIndex(DealRepository dealRepository, Clock clock) {
+    this.dealRepository = dealRepository;
+    this.clock = clock;
+  }
+
+  /** The live deals of the product, earliest expiration first. */
+  public List<ActiveDeal> liveDeals(UUID productId) {
+    ProductDeals entry = deals.get(productId);
+    return entry == null ? List.of() : entry.deals();
+  }
+
+  /**
+   * The pricing of the product's live deals. It is precomputed unless the product's price differs
+   * from the one loaded with its deals.
+   */
+  public EffectivePrice effectivePrice(Product product) {
+    ProductDeals entry = deals.get(product.getId());
+    if (entry == null) {
+      return EffectivePrice.of(product.getPrice(), List.of());
+    }
+    if (entry.pricing() != null && entry.unitPrice().compareTo(product.getPrice()) == 0) {
+      return entry.pricing();
+    }
+    return EffectivePrice.of(product.getPrice(), entry.deals());
+  }
+
+  /** Replaces the deals known for the product, whose price is {@code unitPrice}. */
+  public void replace(UUID productId, BigDecimal unitPrice, Collection<ActiveDeal> productDeals) {
+    replace(productId, unitPrice, productDeals, loads.incrementAndGet());
+  }
+
+  /** Reloads the live deals of one product. */
+  public void refresh(UUID productId) {
+    long load = loads.incrementAndGet();
+    List<LiveDeal> rows =
+        dealRepository.findLiveDealsByProductId(productId, LocalDateTime.now(clock));
+    replaceRows(productId, rows.isEmpty() ? null : rows.get(0).getUnitPrice(), rows, load);
+  }
+
+  /** Loads the live deals of every product; this is the only query that reads them all. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    long load = loads.incrementAndGet();
+    Map<UUID, List<LiveDeal>> byProduct =
+        dealRepository.findLiveDeals(LocalDateTime.now(clock)).stream()
+            .collect(Collectors.groupingBy(LiveDeal::getProductId));
+    byProduct.forEach(
+        (productId, rows) -> replaceRows(productId, rows.get(0).getUnitPrice(), rows, load));
+    logger.info("Active deal index loaded for {} product(s)", byProduct.size());
+  }
+
+  /**
+   * Reloads the product once its change is committed. Runs before the other listeners of the event,
+   * so anything they reprice sees the new deals.
+   */
+  @Order(0)
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onProductChanged(ProductChangedEvent event) {
+    refresh(event.productId());
+  }
+
+  /** Number of products known to the index, including those whose deals have all ended. */
+  public int size() {
+    return deals.size();
+  }
+
+  private void replaceRows(UUID productId, BigDecimal unitPrice, List<LiveDeal> rows, long load) {
+    replace(productId, unitPrice, rows.stream().map(ActiveDealIndex::toActiveDeal).toList(), load);
+  }
+
+  private void replace(
+      UUID productId, BigDecimal unitPrice, Collection<ActiveDeal> productDeals, long load) {
+    ActiveDeal[] byExpiration = productDeals.toArray(ActiveDeal[]::new);
+    Arrays.sort(byExpiration, BY_EXPIRATION);
+    List<ActiveDeal> sorted = List.of(byExpiration);
+    ProductDeals entry =
+        new ProductDeals(
+            sorted,
+            unitPrice,
+            unitPrice == null ? null : EffectivePrice.of(unitPrice, sorted),
+            load);
+    // Kept even when empty, so that an older load cannot bring back removed deals.
+    deals.merge(
+        productId, entry, (current, loaded) -> current.load() > loaded.load() ? current : loaded);
+  }
+
+  private static ActiveDeal toActiveDeal(LiveDeal deal) {
+    return ActiveDeal.of(
+        deal.getDealId(), deal.getType(), deal.getDiscountValue(), deal.getExpiration());
+  }
+
+  /** {@code pricing} prices all the deals at {@code unitPrice}; both are null if it is unknown. */
+  private record ProductDeals(
+      List<ActiveDeal> deals, BigDecimal unitPrice, EffectivePrice pricing, long load) {}
+}
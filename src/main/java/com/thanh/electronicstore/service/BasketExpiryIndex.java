@@ -0,0 +1,75 @@
+package com.thanh.electronicstore.service;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Time-bucketed index of basket expiry deadlines. Deadlines are rounded up to fixed-width buckets
+ * kept in deadline order, so finding what is due only visits the buckets that are due, and moving a
+ * basket after a touch is two hash operations. Nothing is ever scanned.
+ *
+ * <p>A basket is always scheduled into a bucket strictly after the current one, so a bucket that
+ * {@link #pollDue()} has taken can no longer receive new entries.
+ */
+public class BasketExpiryIndex {
+  private final Clock clock;
+  private final long bucketMillis;
+  private final ConcurrentSkipListMap<Long, Set<UUID>> buckets = new ConcurrentSkipListMap<>();
+  private final Map<UUID, Long> bucketByBasket = new ConcurrentHashMap<>();
+
+  public BasketExpiryIndex(Clock clock, long bucketMillis) {
+    if (bucketMillis <= 0) {
+      throw new IllegalArgumentException("bucketMillis must be positive");
+    }
+    this.clock = clock;
+    this.bucketMillis = bucketMillis;
+  }
+
+  /** Schedules the basket to expire at the deadline, replacing any earlier deadline. */
+  public void schedule(UUID basketId, Instant deadline) {
+    long bucket =
+        Math.max(
+            Math.floorDiv(deadline.toEpochMilli() + bucketMillis - 1, bucketMillis),
+            currentBucket() + 1);
+    Long previous = bucketByBasket.put(basketId, bucket);
+    if (previous != null && previous != bucket) {
+      Set<UUID> previousBucket = buckets.get(previous);
+      if (previousBucket != null) {
+        previousBucket.remove(basketId);
+      }
+    }
+    buckets.computeIfAbsent(bucket, key -> ConcurrentHashMap.newKeySet()).add(basketId);
+  }
+
+  /** Removes and returns every basket whose deadline has passed. */
+  public List<UUID> pollDue() {
+    long current = currentBucket();
+    List<UUID> due = new ArrayList<>();
+    Map.Entry<Long, Set<UUID>> entry;
+    while ((entry = buckets.firstEntry()) != null && entry.getKey() <= current) {
+      if (buckets.remove(entry.getKey(), entry.getValue())) {
+        for (UUID basketId : entry.getValue()) {
+          if (bucketByBasket.remove(basketId, entry.getKey())) {
+            due.add(basketId);
+          }
+        }
+      }
+    }
+    return due;
+  }
+
+  public int size() {
+    return bucketByBasket.size();
+  }
+
+  private long currentBucket() {
+    return Math.floorDiv(clock.millis(), bucketMillis);
+  }
+}
@@ -0,0 +1,164 @@
+package com.thanh.electronicstore.service;
+
+import com.thanh.electronicstore.model.Basket;
+import com.thanh.electronicstore.model.BasketItem;
+import com.thanh.electronicstore.model.BasketStatus;
+import com.thanh.electronicstore.repository.BasketItemRepository;
+import com.thanh.electronicstore.repository.BasketRepository;
+import com.thanh.electronicstore.repository.BasketRepository.BasketDeadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Expires ACTIVE baskets whose reservation deadline has passed and gives their stock back. Each
+ * touch stores the basket's own deadline, the reservation TTL in force at the time after it.
+ * Deadlines also live in a {@link BasketExpiryIndex}, so each tick only looks at baskets that are
+ * due; the database is asked to confirm them, never to find them.
+ */
+@Service
+public class BasketExpiryService {
+  private static final Logger logger = LoggerFactory.getLogger(BasketExpiryService.class);
+
+  private final BasketRepository basketRepository;
+  private final BasketItemRepository basketItemRepository;
+  private final StockReservationStrategy stockReservationStrategy;
+  private final TransactionTemplate transactionTemplate;
+  private final Clock clock;
+  private final Duration reservationTtl;
+  private final int batchSize;
+  private final BasketExpiryIndex index;
+  private final Counter expiredCounter;
+
+  public BasketExpiryService(
+      BasketRepository basketRepository,
+      BasketItemRepository basketItemRepository,
+      StockReservationStrategy stockReservationStrategy,
+      TransactionTemplate transactionTemplate,
+      Clock clock,
+      MeterRegistry meterRegistry,
+      @Value("${store.basket.reservation-ttl:30m}") Duration reservationTtl,
+      @Value("${store.basket.expiry.bucket-ms:1000}") long bucketMillis,
+      @Value("${store.basket.expiry.batch-size:500}") int batchSize) {
+    this.basketRepository = basketRepository;
+    this.basketItemRepository = basketItemRepository;
+    this.stockReservationStrategy = stockReservationStrategy;
+    this.transactionTemplate = transactionTemplate;
+    this.clock = clock;
+    this.reservationTtl = reservationTtl;
+    this.batchSize = batchSize;
+    this.index = new BasketExpiryIndex(clock, bucketMillis);
+    this.expiredCounter = meterRegistry.counter("store.basket.expired");
+    meterRegistry.gauge("store.basket.expiry.tracked", index, BasketExpiryIndex::size);
+  }
+
+  /**
+   * Stamps the basket as touched now and moves its deadline a reservation TTL ahead. Its expiry is
+   * rescheduled once the surrounding transaction commits, so a rolled-back mutation keeps the
+   * previous deadline.
+   */
+  public void touch(Basket basket) {
+    Instant now = clock.instant();
+    basket.setLastTouchedAt(now);
+    basket.setExpiresAt(now.plus(reservationTtl));
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(
+          new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+              index.schedule(basket.getId(), basket.getExpiresAt());
+            }
+          });
+    } else if (basket.getId() != null) {
+      index.schedule(basket.getId(), basket.getExpiresAt());
+    }
+  }
+
+  /**
+   * Rebuilds the index from the ACTIVE baskets, a page of {@code store.basket.expiry.batch-size}
+   * deadlines at a time in deadline order, so memory stays bounded and the baskets due first are
+   * tracked first.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    Instant now = clock.instant();
+    Integer stamped =
+        transactionTemplate.execute(
+            status ->
+                basketRepository.stampMissingDeadlines(
+                    BasketStatus.ACTIVE, now, now.plus(reservationTtl)));
+    Instant afterExpiresAt = Instant.EPOCH;
+    UUID afterId = new UUID(0, 0);
+    int tracked = 0;
+    List<BasketDeadline> page;
+    do {
+      page =
+          basketRepository.findDeadlinesByStatus(
+              BasketStatus.ACTIVE, afterExpiresAt, afterId, PageRequest.of(0, batchSize));
+      for (BasketDeadline deadline : page) {
+        index.schedule(deadline.getId(), deadline.getExpiresAt());
+      }
+      if (!page.isEmpty()) {
+        BasketDeadline last = page.get(page.size() - 1);
+        afterExpiresAt = last.getExpiresAt();
+        afterId = last.getId();
+        tracked += page.size();
+      }
+    } while (page.size() == batchSize);
+    logger.info(
+        "Basket expiry index rebuilt for {} active basket(s), {} given a deadline now",
+        tracked,
+        stamped);
+  }
+
+  @Scheduled(fixedDelayString = "${store.basket.expiry.tick-ms:1000}")
+  public void expireDue() {
+    List<UUID> due = index.pollDue();
+    for (int from = 0; from < due.size(); from += batchSize) {
+      List<UUID> batch = due.subList(from, Math.min(from + batchSize, due.size()));
+      try {
+        Integer expired = transactionTemplate.execute(status -> expireBatch(batch));
+        if (expired != null && expired > 0) {
+          expiredCounter.increment(expired);
+          logger.info("Expired {} basket(s) and released their stock", expired);
+        }
+      } catch (RuntimeException ex) {
+        logger.warn("Could not expire {} basket(s), retrying next tick", batch.size(), ex);
+        Instant now = clock.instant();
+        batch.forEach(basketId -> index.schedule(basketId, now));
+      }
+    }
+  }
+
+  private int expireBatch(List<UUID> basketIds) {
+    List<Basket> expired =
+        basketRepository.findExpiredForUpdate(basketIds, BasketStatus.ACTIVE, clock.instant());
+    if (expired.isEmpty()) {
+      return 0;
+    }
+
+    List<UUID> expiredIds = expired.stream().map(Basket::getId).toList();
+    List<BasketItem> items = basketItemRepository.findByBasketIdIn(expiredIds);
+    if (!items.isEmpty()) {
+      stockReservationStrategy.release(items);
+      basketItemRepository.deleteByBasketIds(expiredIds);
+    }
+    expired.forEach(basket -> basket.setStatus(BasketStatus.EXPIRED));
+    return expired.size();
+  }
+}
@@ -0,0 +1,150 @@
+package com.thanh.electronicstore.service;
+
+import com.thanh.electronicstore.dto.ReceiptDTO;
+import com.thanh.electronicstore.dto.ReceiptItemDTO;
+import com.thanh.electronicstore.exception.BasketNotFoundException;
+import com.thanh.electronicstore.model.Basket;
+import com.thanh.electronicstore.model.BasketItem;
+import com.thanh.electronicstore.model.Money;
+import com.thanh.electronicstore.repository.BasketRepository;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Keeps each line's price on the basket item and running totals on the basket, so a receipt is read
+ * rather than computed. Mutations price only the lines they add and subtract the lines they remove.
+ * A price or deal change, including a deal starting or expiring, flags the baskets holding the
+ * product, and those are repriced in full the next time their receipt is asked for.
+ */
+@Service
+public class BasketPricingService {
+  private static final Logger logger = LoggerFactory.getLogger(BasketPricingService.class);
+
+  private final BasketRepository basketRepository;
+  private final PricingEngine pricingEngine;
+  private final TransactionTemplate newTransaction;
+
+  public BasketPricingService(
+      BasketRepository basketRepository,
+      PricingEngine pricingEngine,
+      PlatformTransactionManager transactionManager) {
+    this.basketRepository = basketRepository;
+    this.pricingEngine = pricingEngine;
+    this.newTransaction = new TransactionTemplate(transactionManager);
+    this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+  }
+
+  /** Whether the stored prices can be used as they are. */
+  public boolean isCurrent(Basket basket) {
+    return !basket.isPricesStale();
+  }
+
+  /** Prices the new lines and adds them to the basket's totals. */
+  public void addLines(Basket basket, Collection<BasketItem> lines) {
+    if (lines.isEmpty()) {
+      return;
+    }
+    List<ReceiptItemDTO> prices = pricingEngine.priceItems(lines);
+    int i = 0;
+    for (BasketItem line : lines) {
+      ReceiptItemDTO price = prices.get(i++);
+      store(line, price);
+      basket.setSubtotal(basket.getSubtotal().plus(price.getOriginalPrice()));
+      basket.setDiscountTotal(basket.getDiscountTotal().plus(price.getDiscount()));
+      basket.setTotal(basket.getTotal().plus(price.getFinalPrice()));
+    }
+  }
+
+  /** Takes removed lines out of the basket's totals. */
+  public void removeLines(Basket basket, Collection<BasketItem> lines) {
+    for (BasketItem line : lines) {
+      if (line.getFinalPrice() == null) {
+        basket.setPricesStale(true);
+        continue;
+      }
+      basket.setSubtotal(basket.getSubtotal().minus(line.getOriginalPrice()));
+      basket.setDiscountTotal(basket.getDiscountTotal().minus(line.getDiscount()));
+      basket.setTotal(basket.getTotal().minus(line.getFinalPrice()));
+    }
+  }
+
+  /** Prices every line of the basket from scratch; its items and their products must be loaded. */
+  public void repriceAll(Basket basket) {
+    basket.setSubtotal(Money.ZERO);
+    basket.setDiscountTotal(Money.ZERO);
+    basket.setTotal(Money.ZERO);
+    basket.setPricesStale(false);
+    addLines(basket, basket.getBasketItems());
+  }
+
+  /**
+   * Reprices the basket and commits it. Call it before reading the receipt rather than from inside
+   * a read-only transaction, so a stale read never holds a second connection while it waits for
+   * this one. Returns the repriced basket, with its items and products loaded and its new version.
+   */
+  @RetryOnConflict
+  @Transactional
+  public Basket reprice(UUID basketId) {
+    Basket basket =
+        basketRepository
+            .findWithItemsAndProductsById(basketId)
+            .orElseThrow(() -> new BasketNotFoundException(basketId.toString()));
+    repriceAll(basket);
+    return basketRepository.saveAndFlush(basket);
+  }
+
+  /** The receipt made of the stored prices. */
+  public ReceiptDTO storedReceipt(Basket basket) {
+    List<ReceiptItemDTO> items =
+        basket.getBasketItems().stream()
+            .map(
+                item ->
+                    ReceiptItemDTO.builder()
+                        .productName(item.getProduct().getName())
+                        .quantity(item.getQuantity())
+                        .originalPrice(item.getOriginalPrice())
+                        .discount(item.getDiscount())
+                        .finalPrice(item.getFinalPrice())
+                        .build())
+            .toList();
+    return ReceiptDTO.builder()
+        .basketId(basket.getId().toString())
+        .items(items)
+        .totalPrice(basket.getTotal())
+        .build();
+  }
+
+  /**
+   * Flags the baskets holding the product once its change is committed. Runs after the {@link
+   * ActiveDealIndex} has reloaded the product, so a repricing triggered by the flag sees the new
+   * deals.
+   */
+  @Order(1)
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onProductChanged(ProductChangedEvent event) {
+    Integer flagged =
+        newTransaction.execute(status -> basketRepository.markPricesStale(event.productId()));
+    if (flagged != null && flagged > 0) {
+      logger.info(
+          "Flagged {} basket(s) for repricing after product {} changed",
+          flagged,
+          event.productId());
+    }
+  }
+
+  private static void store(BasketItem line, ReceiptItemDTO price) {
+    line.setOriginalPrice(price.getOriginalPrice());
+    line.setDiscount(price.getDiscount());
+    line.setFinalPrice(price.getFinalPrice());
+  }
+}
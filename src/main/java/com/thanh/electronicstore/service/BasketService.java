@@ -3,217 +3,245 @@ package com.thanh.electronicstore.service;
 import com.thanh.electronicstore.dto.BasketDTO;
 import com.thanh.electronicstore.dto.BasketItemDTO;
 import com.thanh.electronicstore.dto.ReceiptDTO;
-import com.thanh.electronicstore.dto.ReceiptItemDTO;
 import com.thanh.electronicstore.exception.BasketAlreadyCheckedOutException;
+import com.thanh.electronicstore.exception.BasketExpiredException;
 import com.thanh.electronicstore.exception.BasketNotFoundException;
+import com.thanh.electronicstore.exception.ProductNotFoundException;
 import com.thanh.electronicstore.model.Basket;
 import com.thanh.electronicstore.model.BasketItem;
 import com.thanh.electronicstore.model.BasketStatus;
-import com.thanh.electronicstore.model.Deal;
 import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.repository.BasketItemRepository;
 import com.thanh.electronicstore.repository.BasketRepository;
-import jakarta.transaction.Transactional;
-import java.math.BigDecimal;
+import com.thanh.electronicstore.repository.BasketRepository.BasketPricingState;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class BasketService {
   private static final Logger logger = LoggerFactory.getLogger(BasketService.class);
 
   private final BasketRepository basketRepository;
+  private final BasketItemRepository basketItemRepository;
   private final ProductService productService;
-  private final DealCalculatorService dealCalculatorService;
-  private final ReentrantLock lock = new ReentrantLock();
+  private final StockReservationStrategy stockReservationStrategy;
+  private final BasketExpiryService basketExpiryService;
+  private final ReceiptCache receiptCache;
+  private final BasketPricingService basketPricingService;
+  private final ReceiptStrategy receiptStrategy;
 
   public BasketService(
       BasketRepository basketRepository,
+      BasketItemRepository basketItemRepository,
       ProductService productService,
-      DealCalculatorService dealCalculatorService) {
+      StockReservationStrategy stockReservationStrategy,
+      BasketExpiryService basketExpiryService,
+      ReceiptCache receiptCache,
+      BasketPricingService basketPricingService,
+      ReceiptStrategy receiptStrategy) {
     this.basketRepository = basketRepository;
+    this.basketItemRepository = basketItemRepository;
     this.productService = productService;
-    this.dealCalculatorService = dealCalculatorService;
+    this.stockReservationStrategy = stockReservationStrategy;
+    this.basketExpiryService = basketExpiryService;
+    this.receiptCache = receiptCache;
+    this.basketPricingService = basketPricingService;
+    this.receiptStrategy = receiptStrategy;
   }
 
+  @Transactional(readOnly = true)
   public BasketDTO getBasket(String id) {
     Basket basket =
         basketRepository
-            .findById(UUID.fromString(id))
+            .findWithItemsById(UUID.fromString(id))
             .orElseThrow(() -> new BasketNotFoundException(id));
     return basket.toDto();
   }
 
+  @RetryOnConflict
   @Transactional
   public BasketDTO createBasket(BasketDTO basketDTO) {
-    lock.lock();
-    try {
-      Basket basket = new Basket();
-      basket.setStatus(BasketStatus.ACTIVE);
-
-      List<UUID> productIds =
-          basketDTO.getBasketItems().stream()
-              .map(dto -> UUID.fromString(dto.getProductId()))
-              .toList();
-      Map<UUID, Product> productMap =
-          productService.getAllProductByIds(productIds).stream()
-              .collect(Collectors.toMap(Product::getId, Function.identity()));
-
-      List<BasketItem> addBasketItems = new ArrayList<>();
-
-      for (BasketItemDTO basketItemDTO : basketDTO.getBasketItems()) {
-        Product product = productMap.get(UUID.fromString(basketItemDTO.getProductId()));
-        if (product == null) {
-          logger.error("Product not found.");
-          continue;
-        }
-        if (product.getStock() < basketItemDTO.getQuantity()) {
-          logger.error("Product has not enough stock to add");
-          continue;
-        }
-
-        product.setStock(product.getStock() - basketItemDTO.getQuantity());
-        if (product.getStock() == 0) {
-          product.setAvailable(Boolean.FALSE);
-        }
-
-        addBasketItems.add(
+    Basket basket = new Basket();
+    basket.setStatus(BasketStatus.ACTIVE);
+
+    Map<UUID, Product> productMap = loadProducts(basketDTO.getBasketItems());
+
+    List<BasketItem> candidateItems = new ArrayList<>();
+
+    for (BasketItemDTO basketItemDTO : basketDTO.getBasketItems()) {
+      Product product = productMap.get(UUID.fromString(basketItemDTO.getProductId()));
+      if (product == null) {
+        logger.error("Product not found.");
+        continue;
+      }
+      if (isValidQuantity(product, basketItemDTO.getQuantity())) {
+        candidateItems.add(
             BasketItem.builder()
                 .product(product)
                 .quantity(basketItemDTO.getQuantity())
                 .basket(basket)
                 .build());
       }
-
-      basket.setBasketItems(addBasketItems);
-      return basketRepository.save(basket).toDto();
-    } finally {
-      lock.unlock();
     }
+
+    basket.setBasketItems(reserveStock(candidateItems));
+    basketPricingService.repriceAll(basket);
+    basketExpiryService.touch(basket);
+    return basketRepository.save(basket).toDto();
   }
 
+  @RetryOnConflict
   @Transactional
   public BasketDTO addBasketItems(String basketId, List<BasketItemDTO> addBasketItems) {
-    lock.lock();
-
-    try {
-      Basket basket =
-          basketRepository
-              .findById(UUID.fromString(basketId))
-              .orElseThrow(() -> new BasketNotFoundException(basketId));
-
-      if (basket.getStatus() != BasketStatus.ACTIVE) {
-        throw new BasketAlreadyCheckedOutException(basketId);
-      }
-
-      List<BasketItemDTO> skippedItems = new ArrayList<>();
-      List<BasketItemDTO> addedItems = new ArrayList<>();
-      for (BasketItemDTO basketItemDTO : addBasketItems) {
-        Product product = productService.getProductEntityById(basketItemDTO.getProductId());
-
-        if (product.getStock() < basketItemDTO.getQuantity()) {
-          skippedItems.add(basketItemDTO);
-          continue;
-        }
+    Basket basket =
+        basketRepository
+            .findForUpdateById(UUID.fromString(basketId))
+            .orElseThrow(() -> new BasketNotFoundException(basketId));
 
-        product.setStock(product.getStock() - basketItemDTO.getQuantity());
-        if (product.getStock() == 0) {
-          product.setAvailable(Boolean.FALSE);
-        }
+    if (basket.getStatus() == BasketStatus.EXPIRED) {
+      throw new BasketExpiredException(basketId);
+    }
+    if (basket.getStatus() != BasketStatus.ACTIVE) {
+      throw new BasketAlreadyCheckedOutException(basketId);
+    }
 
-        addedItems.add(basketItemDTO);
+    Map<UUID, Product> productMap = loadProducts(addBasketItems);
 
-        BasketItem basketItem =
+    List<BasketItem> candidateItems = new ArrayList<>();
+    for (BasketItemDTO basketItemDTO : addBasketItems) {
+      Product product = productMap.get(UUID.fromString(basketItemDTO.getProductId()));
+      if (product == null) {
+        throw new ProductNotFoundException(basketItemDTO.getProductId());
+      }
+      if (isValidQuantity(product, basketItemDTO.getQuantity())) {
+        candidateItems.add(
             BasketItem.builder()
                 .product(product)
                 .basket(basket)
                 .quantity(basketItemDTO.getQuantity())
-                .build();
-
-        basket.getBasketItems().add(basketItem);
+                .build());
       }
-
-      Basket savedBasket = basketRepository.saveAndFlush(basket);
-      return savedBasket.toDto();
-    } finally {
-      lock.unlock();
     }
+
+    List<BasketItem> reservedItems = reserveStock(candidateItems);
+    basket.getBasketItems().addAll(reservedItems);
+    basketPricingService.addLines(basket, reservedItems);
+    basketExpiryService.touch(basket);
+
+    Basket savedBasket = basketRepository.saveAndFlush(basket);
+    return savedBasket.toDto();
   }
 
+  @RetryOnConflict
   @Transactional
   public BasketDTO removeBasketItems(String basketId, List<String> removedBasketItemIds) {
     Basket basket =
         basketRepository
-            .findById(UUID.fromString(basketId))
+            .findForUpdateById(UUID.fromString(basketId))
             .orElseThrow(() -> new BasketNotFoundException(basketId));
-    List<BasketItem> basketItems = basket.getBasketItems();
-    basketItems.removeIf(
-        item -> {
-          if (removedBasketItemIds.contains(item.getId().toString())) {
-            Product product = item.getProduct();
-            product.setStock(product.getStock() + item.getQuantity());
-            return true;
-          }
-          return false;
-        });
+
+    // Matched and deleted in the database so the item collection is only loaded once, for the
+    // response, after the rows are gone.
+    Set<UUID> itemIds = parseItemIds(removedBasketItemIds);
+    List<BasketItem> removedItems =
+        itemIds.isEmpty()
+            ? List.of()
+            : basketItemRepository.findByBasketIdAndIdIn(basket.getId(), itemIds);
+    if (!removedItems.isEmpty()) {
+      stockReservationStrategy.release(removedItems);
+      basketPricingService.removeLines(basket, removedItems);
+      basketItemRepository.deleteFromBasket(
+          basket.getId(), removedItems.stream().map(BasketItem::getId).toList());
+      basketExpiryService.touch(basket);
+    }
 
     return basketRepository.save(basket).toDto();
   }
 
+  /**
+   * Serves the receipt from {@link ReceiptCache} while the basket version is unchanged, which costs
+   * one lookup of the version instead of loading the basket. On a miss the configured {@link
+   * ReceiptStrategy} first refreshes a stale basket in a transaction of its own, and only then
+   * opens the read-only one that produces the receipt, so a request never holds two connections.
+   */
   public ReceiptDTO calculateReceipt(String basketId) {
-    Optional<Basket> basketOptional = basketRepository.findById(UUID.fromString(basketId));
-    if (basketOptional.isEmpty()) {
-      throw new BasketNotFoundException(basketId);
+    UUID id = UUID.fromString(basketId);
+    BasketPricingState state =
+        basketRepository
+            .findPricingStateById(id)
+            .orElseThrow(() -> new BasketNotFoundException(basketId));
+    ReceiptDTO cached = receiptCache.get(id, state.getVersion());
+    if (cached != null) {
+      return cached;
     }
+    long version = state.getVersion();
+    if (receiptStrategy.refresh(id, state.getPricesStale())) {
+      version =
+          basketRepository
+              .findVersionById(id)
+              .orElseThrow(() -> new BasketNotFoundException(basketId));
+    }
+    return receiptStrategy.calculate(id, version, receiptCache.stamp());
+  }
+
+  /** Loads every product referenced by the given lines with a single query. */
+  private Map<UUID, Product> loadProducts(List<BasketItemDTO> basketItemDTOs) {
+    List<UUID> productIds =
+        basketItemDTOs.stream().map(dto -> UUID.fromString(dto.getProductId())).distinct().toList();
+    return productService.getAllProductByIds(productIds).stream()
+        .collect(Collectors.toMap(Product::getId, Function.identity()));
+  }
 
-    Basket basket = basketOptional.get();
-    List<ReceiptItemDTO> receiptItems =
-        basket.getBasketItems().stream()
-            .map(
-                basketItem -> {
-                  Product product = basketItem.getProduct();
-                  int quantity = basketItem.getQuantity();
-                  BigDecimal unitPrice = product.getPrice();
-                  BigDecimal originalPrice = unitPrice.multiply(BigDecimal.valueOf(quantity));
-
-                  BigDecimal totalDiscount = BigDecimal.ZERO;
-                  if (product.getDeals() != null) {
-                    for (Deal deal : product.getDeals()) {
-                      totalDiscount =
-                          totalDiscount.add(
-                              dealCalculatorService.calculateDiscount(deal, unitPrice, quantity));
-                    }
-                  }
-
-                  BigDecimal finalPrice = originalPrice.subtract(totalDiscount);
-
-                  return ReceiptItemDTO.builder()
-                      .productName(product.getName())
-                      .quantity(quantity)
-                      .originalPrice(originalPrice)
-                      .discount(totalDiscount)
-                      .finalPrice(finalPrice)
-                      .build();
-                })
-            .toList();
-
-    BigDecimal totalPrice =
-        receiptItems.stream()
-            .map(ReceiptItemDTO::getFinalPrice)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-    return ReceiptDTO.builder()
-        .basketId(basketId)
-        .items(receiptItems)
-        .totalPrice(totalPrice)
-        .build();
+  /** Ids that are not UUIDs cannot name an item of the basket, so they are skipped like others. */
+  private static Set<UUID> parseItemIds(List<String> itemIds) {
+    Set<UUID> parsed = new HashSet<>();
+    for (String itemId : itemIds) {
+      if (itemId == null) {
+        continue;
+      }
+      try {
+        parsed.add(UUID.fromString(itemId));
+      } catch (IllegalArgumentException e) {
+        logger.warn("Skipping malformed basket item id {}", itemId);
+      }
+    }
+    return parsed;
+  }
+
+  private boolean isValidQuantity(Product product, int quantity) {
+    if (quantity <= 0) {
+      logger.error("Invalid quantity {} for product {}", quantity, product.getId());
+      return false;
+    }
+    return true;
+  }
+
+  /** Reserves stock for all candidate lines at once and returns those that got it, in order. */
+  private List<BasketItem> reserveStock(List<BasketItem> candidateItems) {
+    if (candidateItems.isEmpty()) {
+      return new ArrayList<>();
+    }
+    boolean[] reserved = stockReservationStrategy.reserve(candidateItems);
+
+    List<BasketItem> reservedItems = new ArrayList<>();
+    for (int i = 0; i < candidateItems.size(); i++) {
+      BasketItem item = candidateItems.get(i);
+      if (reserved[i]) {
+        reservedItems.add(item);
+      } else {
+        logger.error("Product {} has not enough stock to add", item.getProduct().getId());
+      }
+    }
+    return reservedItems;
   }
 }
@@ -0,0 +1,79 @@
+package com.thanh.electronicstore.service;
+
+import com.thanh.electronicstore.dto.ProductDTO;
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.repository.ProductRepository;
+import jakarta.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Walks the whole catalog for export without holding it in memory. Product ids are streamed from
+ * one query, read from the database a fetch size at a time. Every chunk of ids is loaded with its
+ * deals in one more query, handed to the sink and cleared from the persistence context, so memory
+ * stays at one chunk whatever the size of the catalog.
+ */
+@Service
+public class CatalogExportService {
+  private final ProductRepository productRepository;
+  private final EntityManager entityManager;
+  private final TransactionTemplate readOnlyTransaction;
+  private final int chunkSize;
+
+  public CatalogExportService(
+      ProductRepository productRepository,
+      EntityManager entityManager,
+      PlatformTransactionManager transactionManager,
+      @Value("${store.catalog.export.chunk-size:500}") int chunkSize) {
+    this.productRepository = productRepository;
+    this.entityManager = entityManager;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.chunkSize = chunkSize;
+  }
+
+  /** Hands every product, with its deals, to the sink in id order. */
+  public void exportProducts(Consumer<ProductDTO> sink) {
+    readOnlyTransaction.executeWithoutResult(
+        status -> {
+          List<UUID> chunk = new ArrayList<>(chunkSize);
+          try (Stream<UUID> productIds = productRepository.streamAllIds()) {
+            productIds.forEach(
+                productId -> {
+                  chunk.add(productId);
+                  if (chunk.size() == chunkSize) {
+                    write(chunk, sink);
+                  }
+                });
+          }
+          write(chunk, sink);
+        });
+  }
+
+  private void write(List<UUID> chunk, Consumer<ProductDTO> sink) {
+    if (chunk.isEmpty()) {
+      return;
+    }
+    Map<UUID, Product> products =
+        productRepository.findWithDealsByIdIn(chunk).stream()
+            .collect(Collectors.toMap(Product::getId, Function.identity()));
+    for (UUID productId : chunk) {
+      Product product = products.get(productId);
+      if (product != null) {
+        sink.accept(product.toDto());
+      }
+    }
+    chunk.clear();
+    entityManager.clear();
+  }
+}
@@ -0,0 +1,269 @@
+package com.thanh.electronicstore.service;
+
+import com.thanh.electronicstore.dto.ProductDTO;
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.repository.ProductRepository;
+import com.thanh.electronicstore.repository.ProductRepository.ProductStock;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Every product with its deals, held in memory as an immutable {@link Catalog} so the product read
+ * endpoints and quotes never touch the database. Readers take the current catalog with a single
+ * volatile read; writers build a new one and publish it in its place.
+ *
+ * <p>The catalog is loaded once the application is ready and reloaded per product whenever a {@link
+ * ProductChangedEvent} is committed. Stock moves with every basket mutation, so it is not
+ * published event by event: a committed {@link StockChangedEvent} only marks its products, and
+ * {@link #refreshStock} reads the stock of the marked products every {@code
+ * store.catalog.stock-refresh-ms} and publishes at most one new catalog, which bounds how stale a
+ * stock count can be. {@link #reconcile} compares every product every {@code
+ * store.catalog.reconcile-ms} to pick up products saved, changed or deleted without an event.
+ *
+ * <p>The DTOs and products handed out are shared by every reader; they must not be modified, and
+ * the products, which hold only id, name and price, must not be persisted.
+ */
+@Component
+public class CatalogSnapshot {
+  private static final Logger logger = LoggerFactory.getLogger(CatalogSnapshot.class);
+
+  // Products read per query when refreshing stock or reconciling.
+  private static final int CHUNK_SIZE = 500;
+
+  private static final Comparator<ProductDTO> BY_NAME =
+      Comparator.comparing(ProductDTO::getName).thenComparing(ProductDTO::getId);
+
+  private final ProductRepository productRepository;
+
+  private volatile Catalog catalog = Catalog.EMPTY;
+
+  // Products whose stock was written since the last refresh.
+  private final Set<UUID> stockChanged = ConcurrentHashMap.newKeySet();
+
+  // Taken before each read of the database, so a slow load never overwrites a newer one.
+  private final AtomicLong loads = new AtomicLong();
+
+  public CatalogSnapshot(ProductRepository productRepository) {
+    this.productRepository = productRepository;
+  }
+
+  /** The catalog as last published. */
+  public Catalog current() {
+    return catalog;
+  }
+
+  /**
+   * The product as of the last load. A product missing from the catalog is reported missing
+   * without a look at the database, so unknown ids cost nothing; one saved without an event shows
+   * up after the next {@link #reconcile}.
+   */
+  public Optional<Product> find(UUID productId) {
+    return entry(productId).map(Entry::product);
+  }
+
+  /** The product's DTO, looked up like {@link #find}. */
+  public Optional<ProductDTO> findDto(UUID productId) {
+    return entry(productId).map(Entry::dto);
+  }
+
+  /** Loads every product and replaces everything loaded before. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    long load = loads.incrementAndGet();
+    List<Product> products = productRepository.findAllWithDeals();
+    Map<UUID, Entry> loaded = new HashMap<>();
+    products.forEach(product -> loaded.put(product.getId(), Entry.of(product, load)));
+    publish(
+        current -> {
+          current.values().removeIf(entry -> entry.load() < load);
+          loaded.forEach((id, entry) -> current.merge(id, entry, CatalogSnapshot::newer));
+        });
+    logger.info("Catalog snapshot loaded with {} product(s)", products.size());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onProductChanged(ProductChangedEvent event) {
+    reload(event.productId());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onStockChanged(StockChangedEvent event) {
+    stockChanged.addAll(event.productIds());
+  }
+
+  /**
+   * Brings the stock of the products marked since the last run up to date. Only products whose
+   * version moved are rewritten; a new catalog is published only if one did.
+   */
+  @Scheduled(
+      initialDelayString = "${store.catalog.stock-refresh-ms:5000}",
+      fixedDelayString = "${store.catalog.stock-refresh-ms:5000}")
+  public void refreshStock() {
+    List<UUID> marked = new ArrayList<>();
+    for (Iterator<UUID> it = stockChanged.iterator(); it.hasNext(); ) {
+      marked.add(it.next());
+      it.remove();
+    }
+    Map<UUID, ProductStock> moved = new HashMap<>();
+    Catalog seen = catalog;
+    for (int from = 0; from < marked.size(); from += CHUNK_SIZE) {
+      List<UUID> chunk = marked.subList(from, Math.min(from + CHUNK_SIZE, marked.size()));
+      for (ProductStock row : productRepository.findStockByIdIn(chunk)) {
+        Entry entry = seen.entries().get(row.getId());
+        if (entry != null && row.getVersion() > entry.version()) {
+          moved.put(row.getId(), row);
+        }
+      }
+    }
+    if (!moved.isEmpty()) {
+      publish(
+          current ->
+              moved.forEach(
+                  (id, row) ->
+                      current.computeIfPresent(
+                          id,
+                          (key, entry) ->
+                              row.getVersion() > entry.version()
+                                  ? entry.withStock(row.getStock(), row.getVersion())
+                                  : entry)));
+    }
+  }
+
+  /**
+   * Compares every product version with the database and reloads in full, deals included, every
+   * product that is new or whose version moved, since a write made without an event may have
+   * changed more than its stock. Reloads are read in chunks and applied, along with the products
+   * gone from the database, in a single new catalog, published only if anything differed.
+   */
+  @Scheduled(
+      initialDelayString = "${store.catalog.reconcile-ms:300000}",
+      fixedDelayString = "${store.catalog.reconcile-ms:300000}")
+  public void reconcile() {
+    long load = loads.incrementAndGet();
+    Map<UUID, ProductStock> rows = new HashMap<>();
+    productRepository.findAllStock().forEach(row -> rows.put(row.getId(), row));
+
+    Catalog seen = catalog;
+    List<UUID> outdated = new ArrayList<>();
+    rows.forEach(
+        (id, row) -> {
+          Entry entry = seen.entries().get(id);
+          if (entry == null || row.getVersion() > entry.version()) {
+            outdated.add(id);
+          }
+        });
+    boolean anyGone = seen.entries().values().stream().anyMatch(entry -> isGone(entry, rows, load));
+    if (outdated.isEmpty() && !anyGone) {
+      return;
+    }
+
+    Map<UUID, Entry> loaded = new HashMap<>();
+    for (int from = 0; from < outdated.size(); from += CHUNK_SIZE) {
+      List<UUID> chunk = outdated.subList(from, Math.min(from + CHUNK_SIZE, outdated.size()));
+      productRepository
+          .findWithDealsByIdIn(chunk)
+          .forEach(product -> loaded.put(product.getId(), Entry.of(product, load)));
+    }
+    publish(
+        current -> {
+          current.values().removeIf(entry -> isGone(entry, rows, load));
+          loaded.forEach((id, entry) -> current.merge(id, entry, CatalogSnapshot::newer));
+        });
+    logger.info(
+        "Catalog snapshot reconciled: {} product(s) reloaded after changes without an event",
+        loaded.size());
+  }
+
+  public int size() {
+    return catalog.entries().size();
+  }
+
+  private Optional<Entry> entry(UUID productId) {
+    return Optional.ofNullable(catalog.entries().get(productId));
+  }
+
+  private static boolean isGone(Entry entry, Map<UUID, ProductStock> rows, long load) {
+    return entry.load() < load && !rows.containsKey(entry.product().getId());
+  }
+
+  /** Replaces the product with its state in the database, or drops it if it is gone. */
+  private void reload(UUID productId) {
+    long load = loads.incrementAndGet();
+    Optional<Entry> loaded =
+        productRepository.findWithDealsById(productId).map(product -> Entry.of(product, load));
+    if (loaded.isEmpty() && !catalog.entries().containsKey(productId)) {
+      return;
+    }
+    publish(
+        current -> {
+          if (loaded.isPresent()) {
+            current.merge(productId, loaded.get(), CatalogSnapshot::newer);
+          } else {
+            current.computeIfPresent(
+                productId, (id, existing) -> existing.load() > load ? existing : null);
+          }
+        });
+  }
+
+  private static Entry newer(Entry existing, Entry loaded) {
+    return existing.load() > loaded.load() ? existing : loaded;
+  }
+
+  /** Copies the catalog, applies the change to the copy and publishes it; writers take turns. */
+  private synchronized void publish(Consumer<Map<UUID, Entry>> change) {
+    Map<UUID, Entry> entries = new HashMap<>(catalog.entries());
+    change.accept(entries);
+    catalog =
+        new Catalog(
+            catalog.version() + 1,
+            Map.copyOf(entries),
+            entries.values().stream().map(Entry::dto).sorted(BY_NAME).toList());
+  }
+
+  /**
+   * One published state of the catalog. {@code products} holds the same DTOs as {@code entries},
+   * sorted by name.
+   */
+  public record Catalog(long version, Map<UUID, Entry> entries, List<ProductDTO> products) {
+    static final Catalog EMPTY = new Catalog(0, Map.of(), List.of());
+  }
+
+  /**
+   * A product as the catalog holds it: {@code version} is the row version its stock was read at,
+   * {@code load} the load that read it.
+   */
+  public record Entry(ProductDTO dto, Product product, long version, long load) {
+    static Entry of(Product product, long load) {
+      return new Entry(
+          product.toDto(),
+          Product.builder()
+              .id(product.getId())
+              .name(product.getName())
+              .price(product.getPrice())
+              .build(),
+          product.getVersion() != null ? product.getVersion() : 0,
+          load);
+    }
+
+    Entry withStock(int stock, long version) {
+      return new Entry(dto.toBuilder().stock(stock).build(), product, version, load);
+    }
+  }
+}
@@ -0,0 +1,39 @@
+package com.thanh.electronicstore.service;
+
+import com.thanh.electronicstore.model.BasketItem;
+import com.thanh.electronicstore.model.StockReservation;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/** Reserves stock with conditional UPDATEs on the product rows; safe across any number of nodes. */
+@Component
+@ConditionalOnProperty(
+    name = "store.stock.ledger.enabled",
+    havingValue = "false",
+    matchIfMissing = true)
+public class DatabaseStockReservationStrategy implements StockReservationStrategy {
+  private final ProductService productService;
+
+  public DatabaseStockReservationStrategy(ProductService productService) {
+    this.productService = productService;
+  }
+
+  @Override
+  public boolean[] reserve(List<BasketItem> items) {
+    return productService.reserveStock(
+        items.stream()
+            .map(item -> new StockReservation(item.getProduct().getId(), item.getQuantity()))
+            .toList());
+  }
+
+  @Override
+  public void release(List<BasketItem> items) {
+    productService.releaseStock(
+        items.stream()
+            .collect(
+                Collectors.toMap(
+                    item -> item.getProduct().getId(), BasketItem::getQuantity, Integer::sum)));
+  }
+}
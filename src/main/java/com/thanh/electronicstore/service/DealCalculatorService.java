@@ -1,6 +1,7 @@
 package com.thanh.electronicstore.service;
 
 import com.thanh.electronicstore.model.Deal;
+import com.thanh.electronicstore.model.DealType;
 import java.math.BigDecimal;
 import org.springframework.stereotype.Service;
 
@@ -8,9 +9,13 @@ import org.springframework.stereotype.Service;
 public class DealCalculatorService {
 
   public BigDecimal calculateDiscount(Deal deal, BigDecimal unitPrice, int quantity) {
-    if (deal == null || deal.getType() == null) return BigDecimal.valueOf(0.0);
-    return deal.getType()
-        .getStrategy()
-        .calculateDiscount(unitPrice, quantity, deal.getDiscountValue());
+    if (deal == null) return BigDecimal.valueOf(0.0);
+    return calculateDiscount(deal.getType(), deal.getDiscountValue(), unitPrice, quantity);
+  }
+
+  public BigDecimal calculateDiscount(
+      DealType type, BigDecimal discountValue, BigDecimal unitPrice, int quantity) {
+    if (type == null) return BigDecimal.valueOf(0.0);
+    return type.getStrategy().calculateDiscount(unitPrice, quantity, discountValue);
   }
 }
@@ -0,0 +1,198 @@
+package com.thanh.electronicstore.service;
+
+import com.thanh.electronicstore.repository.DealRepository;
+import com.thanh.electronicstore.repository.DealRepository.DealWindow;
+import jakarta.annotation.PreDestroy;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Announces deals starting and expiring. Every upcoming start and expiration is a boundary in a
+ * {@link DelayQueue}, taken by a single thread that publishes a {@link ProductChangedEvent} for the
+ * product when the boundary passes. The listeners of that event (the deal index, basket prices,
+ * receipt and catalog caches) then refresh once per boundary, and none of them has to compare
+ * timestamps when it is read.
+ *
+ * <p>Deals sharing a product and an instant make one boundary. A boundary whose deal was moved or
+ * removed since it was queued is dropped when taken.
+ */
+@Component
+public class DealScheduler {
+  private static final Logger logger = LoggerFactory.getLogger(DealScheduler.class);
+
+  private final DealRepository dealRepository;
+  private final ApplicationEventPublisher eventPublisher;
+  private final Clock clock;
+  private final DelayQueue<Boundary> queue = new DelayQueue<>();
+
+  // The boundaries each product currently has. Only changed inside the map's compute methods.
+  private final Map<UUID, Set<LocalDateTime>> boundaries = new ConcurrentHashMap<>();
+
+  private volatile Thread worker;
+
+  public DealScheduler(
+      DealRepository dealRepository, ApplicationEventPublisher eventPublisher, Clock clock) {
+    this.dealRepository = dealRepository;
+    this.eventPublisher = eventPublisher;
+    this.clock = clock;
+  }
+
+  /**
+   * Loads the upcoming boundaries of every product and starts the thread. Runs before the {@link
+   * ActiveDealIndex} is loaded, so a deal starting or expiring in between is still announced.
+   */
+  @Order(0)
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    Map<UUID, List<DealWindow>> byProduct =
+        dealRepository.findUpcomingWindows(LocalDateTime.now(clock)).stream()
+            .collect(Collectors.groupingBy(DealWindow::getProductId));
+    byProduct.forEach(this::merge);
+    worker = Thread.ofPlatform().name("deal-scheduler").daemon().start(this::run);
+    logger.info("Deal scheduler started with {} boundary(ies)", queue.size());
+  }
+
+  @PreDestroy
+  public void stop() {
+    Thread current = worker;
+    if (current != null) {
+      current.interrupt();
+    }
+  }
+
+  /**
+   * Reloads the boundaries of the product once its change is committed. Changes announced by this
+   * scheduler leave the boundaries ahead as they are, so they are not reloaded.
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onProductChanged(ProductChangedEvent event) {
+    if (Thread.currentThread() != worker) {
+      reload(event.productId());
+    }
+  }
+
+  /** Replaces the upcoming boundaries of one product. */
+  public void reload(UUID productId) {
+    LocalDateTime now = LocalDateTime.now(clock);
+    Set<LocalDateTime> ahead =
+        upcoming(dealRepository.findUpcomingWindowsByProductId(productId, now), now);
+    boundaries.compute(
+        productId,
+        (id, current) -> {
+          for (LocalDateTime at : ahead) {
+            if (current == null || !current.contains(at)) {
+              queue.add(new Boundary(at, id, clock));
+            }
+          }
+          // A boundary that has passed but is still queued is announced all the same.
+          if (current != null) {
+            current.stream().filter(at -> !at.isAfter(now)).forEach(ahead::add);
+          }
+          return ahead.isEmpty() ? null : ahead;
+        });
+  }
+
+  /** Announces every boundary that has passed, without waiting; returns how many were. */
+  public int announceDue() {
+    int announced = 0;
+    Boundary due;
+    while ((due = queue.poll()) != null) {
+      if (announce(due)) {
+        announced++;
+      }
+    }
+    return announced;
+  }
+
+  /** Number of boundaries waiting, including those dropped once taken. */
+  public int pending() {
+    return queue.size();
+  }
+
+  private void run() {
+    while (!Thread.currentThread().isInterrupted()) {
+      try {
+        announce(queue.take());
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      } catch (RuntimeException ex) {
+        logger.error("Failed to announce a deal boundary", ex);
+      }
+    }
+  }
+
+  private boolean announce(Boundary boundary) {
+    boolean[] current = new boolean[1];
+    boundaries.computeIfPresent(
+        boundary.productId(),
+        (id, ahead) -> {
+          current[0] = ahead.remove(boundary.at());
+          return ahead.isEmpty() ? null : ahead;
+        });
+    if (current[0]) {
+      eventPublisher.publishEvent(new ProductChangedEvent(boundary.productId()));
+    }
+    return current[0];
+  }
+
+  /** Adds boundaries found by the full load to those a product change may have loaded already. */
+  private void merge(UUID productId, List<DealWindow> windows) {
+    Set<LocalDateTime> ahead = upcoming(windows, LocalDateTime.now(clock));
+    boundaries.compute(
+        productId,
+        (id, current) -> {
+          Set<LocalDateTime> merged = current == null ? new HashSet<>() : current;
+          for (LocalDateTime at : ahead) {
+            if (merged.add(at)) {
+              queue.add(new Boundary(at, id, clock));
+            }
+          }
+          return merged.isEmpty() ? null : merged;
+        });
+  }
+
+  private static Set<LocalDateTime> upcoming(List<DealWindow> windows, LocalDateTime now) {
+    Set<LocalDateTime> ahead = new HashSet<>();
+    for (DealWindow window : windows) {
+      if (window.getStartsAt() != null && window.getStartsAt().isAfter(now)) {
+        ahead.add(window.getStartsAt());
+      }
+      if (window.getExpiration() != null && window.getExpiration().isAfter(now)) {
+        ahead.add(window.getExpiration());
+      }
+    }
+    return ahead;
+  }
+
+  private record Boundary(LocalDateTime at, UUID productId, Clock clock) implements Delayed {
+    @Override
+    public long getDelay(TimeUnit unit) {
+      Duration delay = Duration.between(clock.instant(), at.atZone(clock.getZone()).toInstant());
+      return unit.convert(delay);
+    }
+
+    @Override
+    public int compareTo(Delayed other) {
+      return at.compareTo(((Boundary) other).at);
+    }
+  }
+}
@@ -1,6 +1,7 @@
 package com.thanh.electronicstore.service;
 
 import com.thanh.electronicstore.dto.DealDTO;
+import com.thanh.electronicstore.exception.InvalidDealException;
 import com.thanh.electronicstore.model.Deal;
 import com.thanh.electronicstore.model.DealType;
 import com.thanh.electronicstore.repository.DealRepository;
@@ -9,14 +10,18 @@ import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class DealService {
   private final DealRepository dealRepository;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public DealService(DealRepository dealRepository) {
+  public DealService(DealRepository dealRepository, ApplicationEventPublisher eventPublisher) {
     this.dealRepository = dealRepository;
+    this.eventPublisher = eventPublisher;
   }
 
   public List<DealDTO> getAllDeals() {
@@ -28,12 +33,18 @@ public class DealService {
     Deal deal =
         Deal.builder()
             .description(dealDTO.getDescription())
+            .startsAt(
+                dealDTO.getStartsAt() != null ? LocalDateTime.parse(dealDTO.getStartsAt()) : null)
             .type(DealType.valueOf(dealDTO.getType()))
             .expiration(LocalDateTime.parse(dealDTO.getExpiration()))
             .build();
+    if (!deal.startsBeforeExpiration()) {
+      throw new InvalidDealException("Deal must start before it expires: " + deal.getStartsAt());
+    }
     dealRepository.save(deal);
   }
 
+  @Transactional
   public void updateDeal(String dealId, DealDTO dealDTO) {
     Optional<Deal> dealOptional = dealRepository.findById(UUID.fromString(dealId));
     if (dealOptional.isEmpty()) {
@@ -43,11 +54,22 @@ public class DealService {
     Deal deal = dealOptional.get();
     try {
       deal.setDescription(dealDTO.getDescription());
+      if (dealDTO.getStartsAt() != null) {
+        deal.setStartsAt(LocalDateTime.parse(dealDTO.getStartsAt()));
+      }
       deal.setExpiration(LocalDateTime.parse(dealDTO.getExpiration()));
     } catch (DateTimeParseException ex) {
       throw new IllegalArgumentException("Invalid expiration date time!");
     }
+    if (!deal.startsBeforeExpiration()) {
+      throw new InvalidDealException("Deal must start before it expires: " + deal.getStartsAt());
+    }
 
     dealRepository.save(deal);
+    if (deal.getProducts() != null) {
+      deal.getProducts()
+          .forEach(
+              product -> eventPublisher.publishEvent(new ProductChangedEvent(product.getId())));
+    }
   }
 }
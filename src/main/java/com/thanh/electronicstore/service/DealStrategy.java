@@ -4,4 +4,35 @@ import java.math.BigDecimal;
 
 public interface DealStrategy {
   BigDecimal calculateDiscount(BigDecimal unitPrice, int quantity, BigDecimal dealValue);
+
+  /**
+   * Converts a deal value to the fixed-point form taken by {@link #calculateDiscountCents}.
+   *
+   * @throws ArithmeticException if the value has no exact fixed-point form
+   */
+  long scaleDealValue(BigDecimal dealValue);
+
+  /**
+   * The unrounded discount on a single unit, in 1/10000 of a cent, for a unit price in cents and a
+   * value from {@link #scaleDealValue}. A line's discount is this times the quantity, rounded to
+   * cents.
+   *
+   * @throws ArithmeticException if the result overflows a long
+   */
+  long unitDiscount(long unitPriceCents, long scaledDealValue);
+
+  /**
+   * Same discount as {@link #calculateDiscount}, in cents, for a unit price in cents and a value
+   * from {@link #scaleDealValue}.
+   *
+   * @throws ArithmeticException if an intermediate result overflows a long
+   */
+  default long calculateDiscountCents(long unitPriceCents, int quantity, long scaledDealValue) {
+    if (quantity <= 0) {
+      return 0;
+    }
+    return FixedPoint.divideHalfUp(
+        Math.multiplyExact(unitDiscount(unitPriceCents, scaledDealValue), quantity),
+        FixedPoint.UNIT_DISCOUNT_SCALE);
+  }
 }
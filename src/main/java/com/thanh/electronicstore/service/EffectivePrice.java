@@ -0,0 +1,105 @@
+package com.thanh.electronicstore.service;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * The discount on a product line as a function of its quantity, precomputed for one unit price and
+ * one set of live deals.
+ *
+ * <p>Each deal's discount is rounded to cents on its own. Summing the deals' unit discounts first
+ * gives the same cents when at most one of them has a fraction of a cent and none is negative, so
+ * such lines cost one multiply and one division. Other lines apply each deal in turn.
+ */
+public final class EffectivePrice {
+  private final List<ActiveDeal> deals;
+  private final boolean exact;
+  private final long unitPriceCents;
+  private final boolean combined;
+  private final long unitDiscount;
+
+  private EffectivePrice(
+      List<ActiveDeal> deals,
+      boolean exact,
+      long unitPriceCents,
+      boolean combined,
+      long unitDiscount) {
+    this.deals = deals;
+    this.exact = exact;
+    this.unitPriceCents = unitPriceCents;
+    this.combined = combined;
+    this.unitDiscount = unitDiscount;
+  }
+
+  public static EffectivePrice of(BigDecimal unitPrice, List<ActiveDeal> deals) {
+    try {
+      long unitPriceCents = FixedPoint.toCents(unitPrice);
+      long unitDiscount = 0;
+      int fractional = 0;
+      boolean negative = false;
+      for (ActiveDeal deal : deals) {
+        if (!deal.exact()) {
+          return new EffectivePrice(deals, false, 0, false, 0);
+        }
+        long dealDiscount =
+            deal.type().getStrategy().unitDiscount(unitPriceCents, deal.scaledValue());
+        if (dealDiscount % FixedPoint.UNIT_DISCOUNT_SCALE != 0) {
+          fractional++;
+        }
+        negative |= dealDiscount < 0;
+        unitDiscount = Math.addExact(unitDiscount, dealDiscount);
+      }
+      return new EffectivePrice(
+          deals, true, unitPriceCents, fractional <= 1 && !negative, unitDiscount);
+    } catch (ArithmeticException ex) {
+      return new EffectivePrice(deals, false, 0, false, 0);
+    }
+  }
+
+  /** The live deals this price was computed from. */
+  public List<ActiveDeal> deals() {
+    return deals;
+  }
+
+  /**
+   * @throws ArithmeticException if the price or a deal has no exact fixed-point form
+   */
+  public long unitPriceCents() {
+    requireExact();
+    return unitPriceCents;
+  }
+
+  /**
+   * The discount on {@code quantity} units, in cents, rounded exactly like {@link
+   * DealStrategy#calculateDiscount} summed over the deals.
+   *
+   * @throws ArithmeticException if the price or a deal has no exact fixed-point form, or on
+   *     overflow
+   */
+  public long discountCents(int quantity) {
+    requireExact();
+    if (quantity <= 0) {
+      return 0;
+    }
+    if (combined) {
+      return FixedPoint.divideHalfUp(
+          Math.multiplyExact(unitDiscount, quantity), FixedPoint.UNIT_DISCOUNT_SCALE);
+    }
+    long discountCents = 0;
+    for (ActiveDeal deal : deals) {
+      discountCents =
+          Math.addExact(
+              discountCents,
+              deal.type()
+                  .getStrategy()
+                  .calculateDiscountCents(unitPriceCents, quantity, deal.scaledValue()));
+    }
+    return discountCents;
+  }
+
+  private void requireExact() {
+    if (!exact) {
+      throw new ArithmeticException("Price or deal has no exact cent form");
+    }
+  }
+}
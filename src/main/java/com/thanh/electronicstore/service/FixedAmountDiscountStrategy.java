@@ -15,4 +15,17 @@ public class FixedAmountDiscountStrategy implements DealStrategy {
     BigDecimal totalPrice = unitPrice.multiply(BigDecimal.valueOf(quantity));
     return totalDiscount.min(totalPrice).setScale(2, RoundingMode.HALF_UP);
   }
+
+  /** The amount in units of 1/10000, so sub-cent amounts still add up exactly per quantity. */
+  @Override
+  public long scaleDealValue(BigDecimal dealValue) {
+    return dealValue.movePointRight(4).longValueExact();
+  }
+
+  /** The amount, capped at the unit price; capping per unit equals capping the line total. */
+  @Override
+  public long unitDiscount(long unitPriceCents, long amountE4) {
+    long unitPriceE4 = Math.multiplyExact(unitPriceCents, 100);
+    return Math.multiplyExact(Math.min(amountE4, unitPriceE4), 100);
+  }
 }
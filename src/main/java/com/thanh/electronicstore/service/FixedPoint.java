@@ -0,0 +1,28 @@
+package com.thanh.electronicstore.service;
+
+import java.math.BigDecimal;
+
+/** Conversions between BigDecimal amounts and long cents, with BigDecimal's HALF_UP rounding. */
+final class FixedPoint {
+  /** {@link DealStrategy#unitDiscount} is in 1/10000 of a cent. */
+  static final long UNIT_DISCOUNT_SCALE = 10_000;
+
+  private FixedPoint() {}
+
+  /**
+   * Divides by a positive even divisor, rounding halves away from zero like HALF_UP.
+   *
+   * @throws ArithmeticException if the dividend is too close to the range of a long
+   */
+  static long divideHalfUp(long dividend, long divisor) {
+    long magnitude = Math.addExact(Math.absExact(dividend), divisor / 2) / divisor;
+    return dividend < 0 ? -magnitude : magnitude;
+  }
+
+  /**
+   * @throws ArithmeticException if the amount has more than two decimals or does not fit a long
+   */
+  static long toCents(BigDecimal amount) {
+    return amount.movePointRight(2).longValueExact();
+  }
+}
@@ -0,0 +1,127 @@
+package com.thanh.electronicstore.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.thanh.electronicstore.exception.IdempotencyKeyInProgressException;
+import com.thanh.electronicstore.exception.IdempotencyKeyReusedException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+
+/**
+ * Replays the first response of a mutating request to clients that retry it with the same {@code
+ * Idempotency-Key}. Entries are bounded in number and expire after a TTL. A retry that arrives
+ * while the first request is still running waits, up to {@code store.idempotency.wait-timeout},
+ * for its outcome instead of running again. Failed requests are not remembered: a retry, or a
+ * duplicate that was waiting on the failed request, runs the request itself.
+ *
+ * <p>Each entry keeps a digest of the request body, so a key reused with a different body is
+ * rejected instead of being answered with the response to the other request.
+ */
+@Service
+public class IdempotencyService {
+  public static final String HEADER = "Idempotency-Key";
+  public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+  private final Cache<String, Entry> responses;
+  private final ObjectMapper objectMapper;
+  private final Duration waitTimeout;
+
+  public IdempotencyService(
+      ObjectMapper objectMapper,
+      @Value("${store.idempotency.max-entries:10000}") long maxEntries,
+      @Value("${store.idempotency.ttl:24h}") Duration ttl,
+      @Value("${store.idempotency.wait-timeout:30s}") Duration waitTimeout) {
+    this.responses = Caffeine.newBuilder().maximumSize(maxEntries).expireAfterWrite(ttl).build();
+    this.objectMapper = objectMapper;
+    this.waitTimeout = waitTimeout;
+  }
+
+  /**
+   * Runs the action once per key and scope. The scope identifies the endpoint, so the same key sent
+   * to two different endpoints does not collide; {@code request} is the body the action acts on.
+   * Without a key the action always runs.
+   */
+  @SuppressWarnings("unchecked")
+  public <T> ResponseEntity<T> execute(
+      String idempotencyKey, String scope, Object request, Supplier<ResponseEntity<T>> action) {
+    if (idempotencyKey == null || idempotencyKey.isBlank()) {
+      return action.get();
+    }
+
+    String key = scope + ' ' + idempotencyKey;
+    byte[] digest = digest(request);
+    while (true) {
+      Entry first = new Entry(digest, new CompletableFuture<>());
+      Entry existing = responses.asMap().putIfAbsent(key, first);
+      if (existing == null) {
+        return run(key, first, action);
+      }
+      if (!Arrays.equals(existing.digest(), digest)) {
+        throw new IdempotencyKeyReusedException(
+            "Idempotency key " + idempotencyKey + " was already used with a different request");
+      }
+      ResponseEntity<?> response = await(idempotencyKey, existing);
+      if (response != null) {
+        return (ResponseEntity<T>) replay(response);
+      }
+      // The first request failed and its entry is gone: run the request again.
+    }
+  }
+
+  private <T> ResponseEntity<T> run(String key, Entry first, Supplier<ResponseEntity<T>> action) {
+    try {
+      ResponseEntity<T> response = action.get();
+      first.response().complete(response);
+      return response;
+    } catch (Throwable ex) {
+      responses.asMap().remove(key, first);
+      first.response().completeExceptionally(ex);
+      throw ex;
+    }
+  }
+
+  /** The response of the first request, or null if it failed. */
+  private ResponseEntity<?> await(String idempotencyKey, Entry first) {
+    try {
+      return first.response().get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (ExecutionException ex) {
+      return null;
+    } catch (TimeoutException ex) {
+      throw new IdempotencyKeyInProgressException(
+          "A request with idempotency key " + idempotencyKey + " is still in progress");
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      throw new IdempotencyKeyInProgressException(
+          "Interrupted while waiting for the request with idempotency key " + idempotencyKey);
+    }
+  }
+
+  private static ResponseEntity<?> replay(ResponseEntity<?> response) {
+    return ResponseEntity.status(response.getStatusCode())
+        .headers(response.getHeaders())
+        .header(REPLAYED_HEADER, "true")
+        .body(response.getBody());
+  }
+
+  private byte[] digest(Object request) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+    } catch (JsonProcessingException | NoSuchAlgorithmException ex) {
+      throw new IllegalStateException("Cannot fingerprint request " + request, ex);
+    }
+  }
+
+  private record Entry(byte[] digest, CompletableFuture<ResponseEntity<?>> response) {}
+}
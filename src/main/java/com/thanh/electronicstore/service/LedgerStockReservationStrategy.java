@@ -0,0 +1,182 @@
+package com.thanh.electronicstore.service;
+
+import com.thanh.electronicstore.model.BasketItem;
+import com.thanh.electronicstore.repository.BasketItemRepository;
+import com.thanh.electronicstore.repository.ProductRepository;
+import com.thanh.electronicstore.repository.ProductRepository.ProductAvailability;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Reserves stock against the in-memory {@link StockLedger} so that add-to-basket never touches the
+ * product row. Items are saved with {@code stockApplied = false}; a background flusher later takes
+ * their quantities off {@code product.stock} in batches and flags them as applied. Those unapplied
+ * items double as the journal the ledger is rebuilt from after a restart: available stock is always
+ * {@code product.stock} minus the unapplied quantities.
+ *
+ * <p>The ledger is local to one JVM, so this mode assumes a single node serves basket writes.
+ */
+@Component
+@ConditionalOnProperty(name = "store.stock.ledger.enabled", havingValue = "true")
+public class LedgerStockReservationStrategy implements StockReservationStrategy {
+  private static final Logger logger =
+      LoggerFactory.getLogger(LedgerStockReservationStrategy.class);
+
+  private final StockLedger ledger;
+  private final ProductRepository productRepository;
+  private final BasketItemRepository basketItemRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final ApplicationEventPublisher eventPublisher;
+  private final int flushBatchSize;
+
+  public LedgerStockReservationStrategy(
+      ProductRepository productRepository,
+      BasketItemRepository basketItemRepository,
+      TransactionTemplate transactionTemplate,
+      ApplicationEventPublisher eventPublisher,
+      @Value("${store.stock.ledger.shards:8}") int shards,
+      @Value("${store.stock.ledger.flush-batch-size:500}") int flushBatchSize) {
+    this.ledger = new StockLedger(shards);
+    this.productRepository = productRepository;
+    this.basketItemRepository = basketItemRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.eventPublisher = eventPublisher;
+    this.flushBatchSize = flushBatchSize;
+  }
+
+  /** Seeds the ledger for the whole catalog in one query instead of on first use per product. */
+  @EventListener(ApplicationReadyEvent.class)
+  public void rebuild() {
+    List<ProductAvailability> availability = productRepository.findAllAvailability();
+    availability.forEach(product -> ledger.seed(product.getProductId(), product.getAvailable()));
+    logger.info("Stock ledger rebuilt for {} product(s)", availability.size());
+  }
+
+  public long availableStock(UUID productId) {
+    track(Set.of(productId));
+    return ledger.available(productId);
+  }
+
+  @Override
+  public boolean[] reserve(List<BasketItem> items) {
+    track(items.stream().map(item -> item.getProduct().getId()).collect(Collectors.toSet()));
+
+    boolean[] reserved = new boolean[items.size()];
+    Map<UUID, Integer> taken = new HashMap<>();
+    for (int i = 0; i < items.size(); i++) {
+      BasketItem item = items.get(i);
+      UUID productId = item.getProduct().getId();
+      reserved[i] = ledger.tryReserve(productId, item.getQuantity());
+      if (reserved[i]) {
+        item.setStockApplied(false);
+        taken.merge(productId, item.getQuantity(), Integer::sum);
+      }
+    }
+
+    // The ledger is not transactional: hand the stock back if the items never get committed.
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCompletion(int status) {
+            if (status != STATUS_COMMITTED) {
+              taken.forEach(ledger::release);
+            }
+          }
+        });
+    return reserved;
+  }
+
+  @Override
+  public void release(List<BasketItem> items) {
+    // Seed before touching product.stock below, or the seed would count applied items twice.
+    track(items.stream().map(item -> item.getProduct().getId()).collect(Collectors.toSet()));
+
+    // Locking the rows keeps the flusher from applying an item while it is being removed.
+    Set<UUID> appliedItemIds =
+        basketItemRepository.lockAppliedItems(items.stream().map(BasketItem::getId).toList());
+
+    Map<UUID, Integer> applied = new HashMap<>();
+    Map<UUID, Integer> released = new HashMap<>();
+    for (BasketItem item : items) {
+      UUID productId = item.getProduct().getId();
+      released.merge(productId, item.getQuantity(), Integer::sum);
+      if (appliedItemIds.contains(item.getId())) {
+        applied.merge(productId, item.getQuantity(), Integer::sum);
+      }
+    }
+    adjustStock(applied);
+
+    TransactionSynchronizationManager.registerSynchronization(
+        new TransactionSynchronization() {
+          @Override
+          public void afterCommit() {
+            released.forEach(ledger::release);
+          }
+        });
+  }
+
+  /** Writes the quantities of unapplied basket items through to the product rows. */
+  @Scheduled(
+      fixedDelayString = "${store.stock.ledger.flush-interval-ms:500}",
+      initialDelayString = "${store.stock.ledger.flush-interval-ms:500}")
+  public void flush() {
+    Integer flushed;
+    do {
+      flushed = transactionTemplate.execute(status -> flushBatch());
+    } while (flushed != null && flushed == flushBatchSize);
+  }
+
+  private int flushBatch() {
+    List<BasketItem> pending =
+        basketItemRepository.findByStockAppliedFalse(PageRequest.of(0, flushBatchSize));
+    if (pending.isEmpty()) {
+      return 0;
+    }
+
+    boolean[] marked =
+        basketItemRepository.markStockApplied(pending.stream().map(BasketItem::getId).toList());
+    Map<UUID, Integer> deltas = new HashMap<>();
+    for (int i = 0; i < pending.size(); i++) {
+      if (marked[i]) {
+        BasketItem item = pending.get(i);
+        deltas.merge(item.getProduct().getId(), -item.getQuantity(), Integer::sum);
+      }
+    }
+    adjustStock(deltas);
+    logger.debug("Applied {} basket item(s) to {} product(s)", pending.size(), deltas.size());
+    return pending.size();
+  }
+
+  private void adjustStock(Map<UUID, Integer> deltas) {
+    productRepository.adjustStock(deltas);
+    if (!deltas.isEmpty()) {
+      eventPublisher.publishEvent(new StockChangedEvent(Set.copyOf(deltas.keySet())));
+    }
+  }
+
+  private void track(Set<UUID> productIds) {
+    List<UUID> untracked = productIds.stream().filter(id -> !ledger.isTracked(id)).toList();
+    if (!untracked.isEmpty()) {
+      productRepository
+          .findAvailability(untracked)
+          .forEach(product -> ledger.seed(product.getProductId(), product.getAvailable()));
+    }
+  }
+}
@@ -16,4 +16,15 @@ public class PercentageDiscountStrategy implements DealStrategy {
 
     return totalPrice.multiply(discountRate).setScale(2, RoundingMode.HALF_UP);
   }
+
+  /** The discount rate in units of 1/10000, rounded HALF_UP like the 4-digit division above. */
+  @Override
+  public long scaleDealValue(BigDecimal dealValue) {
+    return dealValue.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+  }
+
+  @Override
+  public long unitDiscount(long unitPriceCents, long rateE4) {
+    return Math.multiplyExact(unitPriceCents, rateE4);
+  }
 }
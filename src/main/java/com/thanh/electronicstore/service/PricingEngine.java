@@ -0,0 +1,117 @@
+package com.thanh.electronicstore.service;
+
+import com.thanh.electronicstore.dto.ReceiptDTO;
+import com.thanh.electronicstore.dto.ReceiptItemDTO;
+import com.thanh.electronicstore.model.Basket;
+import com.thanh.electronicstore.model.BasketItem;
+import com.thanh.electronicstore.model.Money;
+import com.thanh.electronicstore.model.Product;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import org.springframework.stereotype.Component;
+
+/**
+ * Prices basket lines in long cents through {@link EffectivePrice}, which become the {@link Money}
+ * of the receipt DTOs as they are. The rounding matches the BigDecimal strategies exactly. A line
+ * that has no exact cent form (a price with sub-cent digits, a fixed deal finer than 1/10000) or
+ * that would overflow a long is priced with the BigDecimal strategies instead, and rounded to cents
+ * half up.
+ *
+ * <p>Deals come from the {@link ActiveDealIndex}, so only live deals apply, and their combined
+ * discount per unit is looked up rather than recomputed for every line.
+ */
+@Component
+public class PricingEngine {
+  private final DealCalculatorService dealCalculatorService;
+  private final ActiveDealIndex activeDealIndex;
+
+  public PricingEngine(
+      DealCalculatorService dealCalculatorService, ActiveDealIndex activeDealIndex) {
+    this.dealCalculatorService = dealCalculatorService;
+    this.activeDealIndex = activeDealIndex;
+  }
+
+  /**
+   * Prices every item of the basket with the deals live now. The basket may be transient, in which
+   * case the receipt has no basket id.
+   */
+  public ReceiptDTO price(Basket basket) {
+    return price(basket.getId(), basket.getBasketItems());
+  }
+
+  /** Prices the given lines with the deals live now, in order. */
+  public List<ReceiptItemDTO> priceItems(Collection<BasketItem> basketItems) {
+    return price(null, basketItems).getItems();
+  }
+
+  private ReceiptDTO price(UUID basketId, Collection<BasketItem> basketItems) {
+    List<ReceiptItemDTO> receiptItems = new ArrayList<>(basketItems.size());
+    long totalCents = 0;
+    Money inexactTotal = Money.ZERO;
+    for (BasketItem basketItem : basketItems) {
+      Product product = basketItem.getProduct();
+      EffectivePrice effectivePrice = activeDealIndex.effectivePrice(product);
+      int quantity = basketItem.getQuantity();
+      try {
+        long unitPriceCents = effectivePrice.unitPriceCents();
+        long originalCents = Math.multiplyExact(unitPriceCents, quantity);
+        long discountCents = effectivePrice.discountCents(quantity);
+        long finalCents = Math.subtractExact(originalCents, discountCents);
+        long newTotalCents = Math.addExact(totalCents, finalCents);
+
+        receiptItems.add(
+            receiptItem(
+                product,
+                quantity,
+                Money.ofMinor(originalCents),
+                Money.ofMinor(discountCents),
+                Money.ofMinor(finalCents)));
+        totalCents = newTotalCents;
+      } catch (ArithmeticException ex) {
+        ReceiptItemDTO receiptItem = priceInBigDecimal(product, effectivePrice.deals(), quantity);
+        receiptItems.add(receiptItem);
+        inexactTotal = inexactTotal.plus(receiptItem.getFinalPrice());
+      }
+    }
+
+    return ReceiptDTO.builder()
+        .basketId(basketId != null ? basketId.toString() : null)
+        .items(receiptItems)
+        .totalPrice(Money.ofMinor(totalCents).plus(inexactTotal))
+        .build();
+  }
+
+  private ReceiptItemDTO priceInBigDecimal(Product product, List<ActiveDeal> deals, int quantity) {
+    BigDecimal unitPrice = product.getPrice();
+    BigDecimal originalPrice = unitPrice.multiply(BigDecimal.valueOf(quantity));
+
+    BigDecimal totalDiscount = BigDecimal.ZERO;
+    for (ActiveDeal deal : deals) {
+      totalDiscount =
+          totalDiscount.add(
+              dealCalculatorService.calculateDiscount(
+                  deal.type(), deal.discountValue(), unitPrice, quantity));
+    }
+
+    return receiptItem(
+        product,
+        quantity,
+        Money.of(originalPrice),
+        Money.of(totalDiscount),
+        Money.of(originalPrice.subtract(totalDiscount)));
+  }
+
+  private static ReceiptItemDTO receiptItem(
+      Product product, int quantity, Money originalPrice, Money discount, Money finalPrice) {
+    return ReceiptItemDTO.builder()
+        .productName(product.getName())
+        .quantity(quantity)
+        .originalPrice(originalPrice)
+        .discount(discount)
+        .finalPrice(finalPrice)
+        .build();
+  }
+}
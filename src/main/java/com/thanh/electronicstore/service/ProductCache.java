@@ -0,0 +1,66 @@
+package com.thanh.electronicstore.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.thanh.electronicstore.dto.ProductDTO;
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.repository.ProductRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Bounded cache of single products as {@code GET /products/{id}} returns them, stock included.
+ * Caffeine admits and evicts by access frequency, so a scan over rarely read ids does not push out
+ * the products read all the time. Entries also expire {@code store.product-cache.ttl-ms} after they
+ * were loaded.
+ *
+ * <p>Every committed {@link ProductChangedEvent} and {@link StockChangedEvent} drops the products
+ * it names. A load still running when that happens finishes first and is then dropped, so a value
+ * read before the commit is never kept.
+ *
+ * <p>Metrics are published under {@code cache.*} with the tag {@code cache=products}.
+ */
+@Component
+public class ProductCache {
+  private final ProductRepository productRepository;
+  private final Cache<UUID, ProductDTO> products;
+
+  public ProductCache(
+      ProductRepository productRepository,
+      MeterRegistry meterRegistry,
+      @Value("${store.product-cache.max-entries:10000}") long maxEntries,
+      @Value("${store.product-cache.ttl-ms:60000}") long ttlMs) {
+    this.productRepository = productRepository;
+    this.products =
+        Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfterWrite(Duration.ofMillis(ttlMs))
+            .recordStats()
+            .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, products, "products");
+  }
+
+  /** The product, loaded with its deals on a miss; products that do not exist are not cached. */
+  public Optional<ProductDTO> get(UUID productId) {
+    return Optional.ofNullable(
+        products.get(
+            productId,
+            id -> productRepository.findWithDealsById(id).map(Product::toDto).orElse(null)));
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onProductChanged(ProductChangedEvent event) {
+    products.invalidate(event.productId());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onStockChanged(StockChangedEvent event) {
+    products.invalidateAll(event.productIds());
+  }
+}
@@ -0,0 +1,6 @@
+package com.thanh.electronicstore.service;
+
+import java.util.UUID;
+
+/** Published when a change to a product can alter the receipts of baskets that contain it. */
+public record ProductChangedEvent(UUID productId) {}
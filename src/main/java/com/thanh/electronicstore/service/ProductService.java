@@ -1,26 +1,36 @@
 package com.thanh.electronicstore.service;
 
 import com.thanh.electronicstore.dto.DealDTO;
+import com.thanh.electronicstore.dto.ProductCursor;
 import com.thanh.electronicstore.dto.ProductDTO;
 import com.thanh.electronicstore.dto.ProductFilterCriteria;
+import com.thanh.electronicstore.dto.ProductSliceDTO;
+import com.thanh.electronicstore.dto.ProductSort;
 import com.thanh.electronicstore.exception.InvalidDealException;
+import com.thanh.electronicstore.exception.InvalidPageSizeException;
 import com.thanh.electronicstore.exception.ProductNotFoundException;
 import com.thanh.electronicstore.model.Deal;
 import com.thanh.electronicstore.model.DealType;
 import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.model.StockReservation;
 import com.thanh.electronicstore.repository.DealRepository;
 import com.thanh.electronicstore.repository.ProductRepository;
-import jakarta.transaction.Transactional;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class ProductService {
@@ -28,39 +38,36 @@ public class ProductService {
 
   private final ProductRepository productRepository;
   private final DealRepository dealRepository;
-
-  public ProductService(ProductRepository productRepository, DealRepository dealRepository) {
+  private final ApplicationEventPublisher eventPublisher;
+  private final CatalogSnapshot catalogSnapshot;
+  private final ProductCache productCache;
+  private final int maxPageSize;
+
+  public ProductService(
+      ProductRepository productRepository,
+      DealRepository dealRepository,
+      ApplicationEventPublisher eventPublisher,
+      CatalogSnapshot catalogSnapshot,
+      ProductCache productCache,
+      @Value("${store.product-search.max-size:100}") int maxPageSize) {
     this.productRepository = productRepository;
     this.dealRepository = dealRepository;
+    this.eventPublisher = eventPublisher;
+    this.catalogSnapshot = catalogSnapshot;
+    this.productCache = productCache;
+    this.maxPageSize = maxPageSize;
   }
 
+  /** Every product, sorted by name, from the {@link CatalogSnapshot}. */
   public List<ProductDTO> getAllProducts() {
-    List<Product> products = productRepository.findAll();
-    return products.stream()
-        .map(
-            product ->
-                ProductDTO.builder()
-                    .id(String.valueOf(product.getId()))
-                    .name(product.getName())
-                    .description(product.getDescription())
-                    .price(product.getPrice())
-                    .stock(product.getStock())
-                    .category(product.getCategory())
-                    .available(product.getAvailable())
-                    .deals(
-                        product.getDeals() != null
-                            ? product.getDeals().stream().map(Deal::toDto).toList()
-                            : null)
-                    .build())
-        .toList();
+    return catalogSnapshot.current().products();
   }
 
+  /** The product with its current stock, from the {@link ProductCache}. */
   public ProductDTO getProductById(String id) {
-    Product product =
-        productRepository
-            .findById(UUID.fromString(id))
-            .orElseThrow(() -> new ProductNotFoundException(id));
-    return product.toDto();
+    return productCache
+        .get(UUID.fromString(id))
+        .orElseThrow(() -> new ProductNotFoundException(id));
   }
 
   public List<Product> getAllProductByIds(List<UUID> productIds) {
@@ -73,13 +80,37 @@ public class ProductService {
         .orElseThrow(() -> new ProductNotFoundException(productId));
   }
 
+  @Transactional
+  public boolean[] reserveStock(List<StockReservation> reservations) {
+    boolean[] reserved = productRepository.decrementStock(reservations);
+    List<UUID> changed = new ArrayList<>();
+    for (int i = 0; i < reserved.length; i++) {
+      if (reserved[i]) {
+        changed.add(reservations.get(i).productId());
+      }
+    }
+    if (!changed.isEmpty()) {
+      eventPublisher.publishEvent(new StockChangedEvent(changed));
+    }
+    return reserved;
+  }
+
+  /** Gives stock back with one UPDATE per product, whatever the number of lines released. */
+  @Transactional
+  public void releaseStock(Map<UUID, Integer> quantities) {
+    productRepository.adjustStock(quantities);
+    if (!quantities.isEmpty()) {
+      eventPublisher.publishEvent(new StockChangedEvent(Set.copyOf(quantities.keySet())));
+    }
+  }
+
   public ProductDTO createProduct(ProductDTO productDTO) {
     Product newProduct =
         Product.builder()
             .name(productDTO.getName())
             .description(productDTO.getDescription())
             .category(productDTO.getCategory())
-            .price(productDTO.getPrice())
+            .price(productDTO.getPrice() != null ? productDTO.getPrice().toBigDecimal() : null)
             .stock(productDTO.getStock())
             .available(productDTO.getAvailable())
             .deals(
@@ -89,6 +120,10 @@ public class ProductService {
                             dealDTO ->
                                 Deal.builder()
                                     .description(dealDTO.getDescription())
+                                    .startsAt(
+                                        dealDTO.getStartsAt() != null
+                                            ? LocalDateTime.parse(dealDTO.getStartsAt())
+                                            : null)
                                     .type(DealType.valueOf(dealDTO.getType()))
                                     .expiration(LocalDateTime.parse(dealDTO.getExpiration()))
                                     .discountValue(dealDTO.getDiscountValue())
@@ -96,12 +131,22 @@ public class ProductService {
                         .toList()
                     : null)
             .build();
+    if (newProduct.getDeals() != null) {
+      for (Deal deal : newProduct.getDeals()) {
+        if (!deal.startsBeforeExpiration()) {
+          throw new InvalidDealException(
+              "Deal must start before it expires: " + deal.getStartsAt());
+        }
+      }
+    }
 
     Product savedProduct = productRepository.save(newProduct);
+    eventPublisher.publishEvent(new ProductChangedEvent(savedProduct.getId()));
     logger.info("Product created with ID: {}", savedProduct.getId());
     return savedProduct.toDto();
   }
 
+  @RetryOnConflict
   @Transactional
   public ProductDTO addDeals(List<DealDTO> dealDTOs, String productId) {
     UUID productUUID = UUID.fromString(productId);
@@ -120,10 +165,14 @@ public class ProductService {
         Deal deal =
             Deal.builder()
                 .description(dto.getDescription())
+                .startsAt(dto.getStartsAt() != null ? LocalDateTime.parse(dto.getStartsAt()) : null)
                 .expiration(LocalDateTime.parse(dto.getExpiration()))
                 .type(DealType.valueOf(dto.getType()))
                 .discountValue(dto.getDiscountValue())
                 .build();
+        if (!deal.startsBeforeExpiration()) {
+          throw new InvalidDealException("Deal must start before it expires: " + dto.getStartsAt());
+        }
         deals.add(deal);
       } catch (DateTimeParseException | IllegalArgumentException e) {
         logger.error("Failed to parse deal DTO: {}", dto, e);
@@ -137,6 +186,7 @@ public class ProductService {
     }
     product.getDeals().addAll(savedDeals);
     Product savedProduct = productRepository.save(product);
+    eventPublisher.publishEvent(new ProductChangedEvent(productUUID));
 
     logger.info("Successfully added {} deal(s) to product ID: {}", deals.size(), productId);
     return savedProduct.toDto();
@@ -151,21 +201,44 @@ public class ProductService {
     }
 
     productRepository.deleteById(UUID.fromString(productId));
+    eventPublisher.publishEvent(new ProductChangedEvent(uuid));
     logger.info("Product deleted with ID: {}", productId);
   }
 
+  @Transactional(readOnly = true)
   public List<ProductDTO> filterProducts(ProductFilterCriteria criteria, int page, int size) {
-    Pageable pageable = PageRequest.of(page, size);
-    return productRepository
-        .findByFilter(
-            criteria.getCategory(),
-            criteria.getMinPrice(),
-            criteria.getMaxPrice(),
-            criteria.getAvailable(),
-            pageable)
-        .getContent()
-        .stream()
+    Pageable pageable = PageRequest.of(page, pageSize(size));
+    return productRepository.findByFilter(criteria, pageable).getContent().stream()
         .map(Product::toDto)
         .toList();
   }
+
+  /**
+   * One slice of the products matching {@code criteria} in {@code sort} order, continuing after
+   * {@code cursor} if given. Each slice is found by seeking past the last key, so deep slices cost
+   * the same as the first one, and no count is run.
+   */
+  @Transactional(readOnly = true)
+  public ProductSliceDTO scrollProducts(
+      ProductFilterCriteria criteria, ProductSort sort, String cursor, int size) {
+    ProductCursor after = cursor != null ? ProductCursor.decode(cursor, sort) : null;
+    Slice<Product> slice = productRepository.findSlice(criteria, sort, after, pageSize(size));
+
+    List<Product> products = slice.getContent();
+    return ProductSliceDTO.builder()
+        .products(products.stream().map(Product::toDto).toList())
+        .nextCursor(
+            slice.hasNext()
+                ? ProductCursor.after(sort, products.get(products.size() - 1)).encode()
+                : null)
+        .build();
+  }
+
+  /** {@code size}, refused below 1 and capped at {@code store.product-search.max-size}. */
+  private int pageSize(int size) {
+    if (size < 1) {
+      throw new InvalidPageSizeException("Page size must be at least 1, got " + size);
+    }
+    return Math.min(size, maxPageSize);
+  }
 }
@@ -0,0 +1,56 @@
+package com.thanh.electronicstore.service;
+
+import com.thanh.electronicstore.dto.BasketItemDTO;
+import com.thanh.electronicstore.dto.ReceiptDTO;
+import com.thanh.electronicstore.exception.ProductNotFoundException;
+import com.thanh.electronicstore.model.Basket;
+import com.thanh.electronicstore.model.BasketItem;
+import com.thanh.electronicstore.model.Product;
+import java.util.List;
+import java.util.UUID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Prices hypothetical baskets from the {@link CatalogSnapshot} and the {@link ActiveDealIndex},
+ * without a transaction, a query or a write. A product the snapshot does not hold is not found.
+ * Stock is not checked: a quote is not a reservation.
+ */
+@Service
+public class QuoteService {
+  private static final Logger logger = LoggerFactory.getLogger(QuoteService.class);
+
+  private final CatalogSnapshot catalogSnapshot;
+  private final PricingEngine pricingEngine;
+
+  public QuoteService(CatalogSnapshot catalogSnapshot, PricingEngine pricingEngine) {
+    this.catalogSnapshot = catalogSnapshot;
+    this.pricingEngine = pricingEngine;
+  }
+
+  /** The receipt the lines would get in a basket now; the receipt has no basket id. */
+  public ReceiptDTO quote(List<BasketItemDTO> basketItemDTOs) {
+    Basket basket = Basket.builder().build();
+    for (BasketItemDTO basketItemDTO : basketItemDTOs) {
+      Product product =
+          catalogSnapshot
+              .find(UUID.fromString(basketItemDTO.getProductId()))
+              .orElseThrow(() -> new ProductNotFoundException(basketItemDTO.getProductId()));
+      if (basketItemDTO.getQuantity() <= 0) {
+        logger.error(
+            "Invalid quantity {} for product {}", basketItemDTO.getQuantity(), product.getId());
+        continue;
+      }
+      basket
+          .getBasketItems()
+          .add(
+              BasketItem.builder()
+                  .basket(basket)
+                  .product(product)
+                  .quantity(basketItemDTO.getQuantity())
+                  .build());
+    }
+    return pricingEngine.price(basket);
+  }
+}
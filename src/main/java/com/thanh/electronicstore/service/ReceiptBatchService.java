@@ -0,0 +1,180 @@
+package com.thanh.electronicstore.service;
+
+import com.thanh.electronicstore.dto.ReceiptDTO;
+import com.thanh.electronicstore.exception.InvalidReceiptBatchException;
+import com.thanh.electronicstore.model.Basket;
+import com.thanh.electronicstore.repository.BasketRepository;
+import com.thanh.electronicstore.repository.BasketRepository.BasketVersion;
+import jakarta.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Computes the receipts of many baskets at once. Baskets are read in chunks, each costing one
+ * version lookup plus one fetch of the baskets that miss the {@link ReceiptCache}. Misses are read
+ * from their stored prices, and those that need repricing are repriced in parallel on a dedicated
+ * pool whose size bounds the CPU the batch can take.
+ *
+ * <p>A batch holds at most {@code store.receipt-batch.max-ids} ids, and they are all checked before
+ * anything is produced, so a bad request is refused before the response has started.
+ */
+@Service
+public class ReceiptBatchService {
+  private final BasketRepository basketRepository;
+  private final BasketPricingService basketPricingService;
+  private final ReceiptCache receiptCache;
+  private final TransactionTemplate readOnlyTransaction;
+  private final ForkJoinPool pricingPool;
+  private final int maxIds;
+  private final int chunkSize;
+
+  public ReceiptBatchService(
+      BasketRepository basketRepository,
+      BasketPricingService basketPricingService,
+      ReceiptCache receiptCache,
+      PlatformTransactionManager transactionManager,
+      @Value("${store.receipt-batch.parallelism:0}") int parallelism,
+      @Value("${store.receipt-batch.max-ids:1000}") int maxIds,
+      @Value("${store.receipt-batch.chunk-size:200}") int chunkSize) {
+    this.basketRepository = basketRepository;
+    this.basketPricingService = basketPricingService;
+    this.receiptCache = receiptCache;
+    this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+    this.readOnlyTransaction.setReadOnly(true);
+    this.pricingPool =
+        new ForkJoinPool(
+            parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    this.maxIds = maxIds;
+    this.chunkSize = chunkSize;
+  }
+
+  /** The ids of a batch, refused as a whole if there are too many or one is not a UUID. */
+  public List<UUID> parseBasketIds(List<String> basketIds) {
+    if (basketIds.size() > maxIds) {
+      throw new InvalidReceiptBatchException(
+          "At most " + maxIds + " basket ids per batch, got " + basketIds.size());
+    }
+    List<UUID> ids = new ArrayList<>(basketIds.size());
+    for (String basketId : basketIds) {
+      try {
+        ids.add(UUID.fromString(Objects.requireNonNullElse(basketId, "")));
+      } catch (IllegalArgumentException e) {
+        throw new InvalidReceiptBatchException("Invalid basket id: " + basketId);
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Hands the receipt of each basket to the sink, in the order of the ids. Baskets that do not
+   * exist are left out. A chunk is written while nothing else is read, so at most one chunk of
+   * baskets is held in memory. The first basket whose receipt fails ends the batch with its error.
+   */
+  public void calculateReceipts(List<UUID> basketIds, Consumer<ReceiptDTO> sink) {
+    calculateReceipts(
+        basketIds,
+        sink,
+        (basketId, failure) -> {
+          throw failure;
+        });
+  }
+
+  /**
+   * Like {@link #calculateReceipts(List, Consumer)}, but a basket whose receipt fails is handed to
+   * {@code onFailure} in its place and the batch goes on. A chunk that cannot be read fails each of
+   * its baskets.
+   */
+  public void calculateReceipts(
+      List<UUID> basketIds,
+      Consumer<ReceiptDTO> sink,
+      BiConsumer<UUID, RuntimeException> onFailure) {
+    for (int from = 0; from < basketIds.size(); from += chunkSize) {
+      List<UUID> chunk = basketIds.subList(from, Math.min(from + chunkSize, basketIds.size()));
+      List<CompletableFuture<ReceiptDTO>> receipts;
+      try {
+        receipts = submit(chunk);
+      } catch (RuntimeException e) {
+        chunk.forEach(basketId -> onFailure.accept(basketId, e));
+        continue;
+      }
+      for (int i = 0; i < chunk.size(); i++) {
+        ReceiptDTO result;
+        try {
+          result = receipts.get(i).join();
+        } catch (CompletionException e) {
+          onFailure.accept(chunk.get(i), unwrap(e));
+          continue;
+        }
+        if (result != null) {
+          sink.accept(result);
+        }
+      }
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    pricingPool.shutdown();
+  }
+
+  private List<CompletableFuture<ReceiptDTO>> submit(List<UUID> chunk) {
+    long stamp = receiptCache.stamp();
+    Map<UUID, ReceiptDTO> cached = new HashMap<>();
+    Map<UUID, Basket> baskets =
+        readOnlyTransaction.execute(
+            status -> {
+              List<UUID> misses = new ArrayList<>();
+              for (BasketVersion basket : basketRepository.findVersionsByIdIn(chunk)) {
+                ReceiptDTO receipt = receiptCache.get(basket.getId(), basket.getVersion());
+                if (receipt != null) {
+                  cached.put(basket.getId(), receipt);
+                } else {
+                  misses.add(basket.getId());
+                }
+              }
+              return misses.isEmpty()
+                  ? Map.of()
+                  : basketRepository.findWithItemsAndProductsByIdIn(misses).stream()
+                      .collect(Collectors.toMap(Basket::getId, Function.identity()));
+            });
+
+    List<CompletableFuture<ReceiptDTO>> receipts = new ArrayList<>(chunk.size());
+    for (UUID basketId : chunk) {
+      Basket basket = baskets.get(basketId);
+      receipts.add(
+          basket == null
+              ? CompletableFuture.completedFuture(cached.get(basketId))
+              : CompletableFuture.supplyAsync(() -> price(basket, stamp), pricingPool));
+    }
+    return receipts;
+  }
+
+  private static RuntimeException unwrap(CompletionException e) {
+    return e.getCause() instanceof RuntimeException cause ? cause : e;
+  }
+
+  private ReceiptDTO price(Basket basket, long stamp) {
+    Basket priced =
+        basketPricingService.isCurrent(basket)
+            ? basket
+            : basketPricingService.reprice(basket.getId());
+    ReceiptDTO receipt = basketPricingService.storedReceipt(priced);
+    receiptCache.put(priced, receipt, stamp);
+    return receipt;
+  }
+}
@@ -0,0 +1,87 @@
+package com.thanh.electronicstore.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.thanh.electronicstore.dto.ReceiptDTO;
+import com.thanh.electronicstore.model.Basket;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Bounded cache of computed receipts, one per basket, valid only for the basket version it was
+ * computed from. Any basket mutation bumps the version and so misses the cache; product changes,
+ * including deals starting or expiring, drop the receipts of the baskets containing that product.
+ *
+ * <p>Metrics are published under {@code cache.*} with the tag {@code cache=receipts}.
+ */
+@Component
+public class ReceiptCache {
+  private final Cache<UUID, CachedReceipt> receipts;
+
+  // Bumped by every product invalidation, so a receipt computed from data read before the
+  // invalidation is not stored after it.
+  private final AtomicLong invalidations = new AtomicLong();
+
+  public ReceiptCache(
+      MeterRegistry meterRegistry,
+      @Value("${store.receipt-cache.max-entries:10000}") long maxEntries) {
+    this.receipts = Caffeine.newBuilder().maximumSize(maxEntries).recordStats().build();
+    CaffeineCacheMetrics.monitor(meterRegistry, receipts, "receipts");
+  }
+
+  /** Returns the receipt cached for exactly this basket version, or null. */
+  public ReceiptDTO get(UUID basketId, long version) {
+    CachedReceipt cached = receipts.getIfPresent(basketId);
+    if (cached == null || cached.version() != version) {
+      return null;
+    }
+    return cached.receipt();
+  }
+
+  /** Stamp to take before reading the data a receipt is computed from; see {@link #put}. */
+  public long stamp() {
+    return invalidations.get();
+  }
+
+  /** Caches the receipt unless a product changed since {@code stamp} was taken. */
+  public void put(Basket basket, ReceiptDTO receipt, long stamp) {
+    put(
+        basket.getId(),
+        basket.getVersion(),
+        basket.getBasketItems().stream()
+            .map(item -> item.getProduct().getId())
+            .collect(Collectors.toUnmodifiableSet()),
+        receipt,
+        stamp);
+  }
+
+  /** Caches the receipt of the basket version, which holds the given products. */
+  public void put(
+      UUID basketId, long version, Set<UUID> productIds, ReceiptDTO receipt, long stamp) {
+    receipts.put(basketId, new CachedReceipt(version, productIds, receipt));
+    if (invalidations.get() != stamp) {
+      receipts.invalidate(basketId);
+    }
+  }
+
+  /**
+   * Drops the receipts of baskets containing the product once the change is committed. This walks
+   * the cache, which is bounded, because deal and price changes are rare next to receipt reads.
+   */
+  @Order(2)
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onProductChanged(ProductChangedEvent event) {
+    invalidations.incrementAndGet();
+    receipts.asMap().values().removeIf(cached -> cached.productIds().contains(event.productId()));
+  }
+
+  private record CachedReceipt(long version, Set<UUID> productIds, ReceiptDTO receipt) {}
+}
@@ -0,0 +1,26 @@
+package com.thanh.electronicstore.service;
+
+import com.thanh.electronicstore.dto.ReceiptDTO;
+import java.util.UUID;
+
+/**
+ * How a receipt missing from the {@link ReceiptCache} is produced. Selected per deployment with
+ * {@code store.receipt.mode}: {@code stored} (the default) or {@code sql}.
+ */
+public interface ReceiptStrategy {
+  /**
+   * Brings a basket whose stored prices are flagged stale up to date before its receipt is read.
+   * Called outside any transaction, so whatever it writes commits before {@link #calculate} opens
+   * its read. Returns whether it wrote to the basket, which moves its version.
+   */
+  default boolean refresh(UUID basketId, boolean pricesStale) {
+    return false;
+  }
+
+  /**
+   * Produces the receipt of an existing basket in a read-only transaction and caches it. {@code
+   * version} is the basket version read before, {@code stamp} the cache stamp taken before any of
+   * the basket's data was read.
+   */
+  ReceiptDTO calculate(UUID basketId, long version, long stamp);
+}
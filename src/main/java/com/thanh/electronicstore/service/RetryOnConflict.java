@@ -0,0 +1,31 @@
+package com.thanh.electronicstore.service;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
+
+/**
+ * Re-runs the annotated transactional method when it loses an optimistic-lock race. Attempts are
+ * bounded and spaced by an exponential, randomly jittered backoff so that colliding requests do not
+ * retry in lockstep. The retry advice wraps the transaction, so every attempt starts a fresh one
+ * and re-reads the current versions.
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Retryable(
+    retryFor = OptimisticLockingFailureException.class,
+    maxAttemptsExpression = "${store.retry.max-attempts:4}",
+    backoff =
+        @Backoff(
+            delayExpression = "${store.retry.delay-ms:10}",
+            maxDelayExpression = "${store.retry.max-delay-ms:200}",
+            multiplier = 2,
+            random = true),
+    listeners = "optimisticLockRetryListener")
+public @interface RetryOnConflict {}
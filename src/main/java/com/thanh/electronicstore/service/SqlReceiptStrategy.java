@@ -0,0 +1,65 @@
+package com.thanh.electronicstore.service;
+
+import com.thanh.electronicstore.dto.ReceiptDTO;
+import com.thanh.electronicstore.dto.ReceiptItemDTO;
+import com.thanh.electronicstore.model.Money;
+import com.thanh.electronicstore.repository.BasketItemRepository;
+import com.thanh.electronicstore.repository.BasketItemRepository.ReceiptLine;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Prices the basket with a single query that joins its items, their products and their live deals
+ * and computes every line and the total in the database. Neither the basket graph nor the {@link
+ * ActiveDealIndex} is read, and the stored prices are ignored.
+ */
+@Component
+@ConditionalOnProperty(name = "store.receipt.mode", havingValue = "sql")
+public class SqlReceiptStrategy implements ReceiptStrategy {
+  private final BasketItemRepository basketItemRepository;
+  private final ReceiptCache receiptCache;
+  private final Clock clock;
+
+  public SqlReceiptStrategy(
+      BasketItemRepository basketItemRepository, ReceiptCache receiptCache, Clock clock) {
+    this.basketItemRepository = basketItemRepository;
+    this.receiptCache = receiptCache;
+    this.clock = clock;
+  }
+
+  @Override
+  @Transactional(readOnly = true)
+  public ReceiptDTO calculate(UUID basketId, long version, long stamp) {
+    List<ReceiptLine> lines =
+        basketItemRepository.findReceiptLines(basketId, LocalDateTime.now(clock));
+    ReceiptDTO receipt =
+        ReceiptDTO.builder()
+            .basketId(basketId.toString())
+            .items(lines.stream().map(SqlReceiptStrategy::toReceiptItem).toList())
+            .totalPrice(lines.isEmpty() ? Money.ZERO : Money.of(lines.get(0).getTotalPrice()))
+            .build();
+    Set<UUID> productIds =
+        lines.stream()
+            .map(line -> UUID.fromString(line.getProductId()))
+            .collect(Collectors.toUnmodifiableSet());
+    receiptCache.put(basketId, version, productIds, receipt, stamp);
+    return receipt;
+  }
+
+  private static ReceiptItemDTO toReceiptItem(ReceiptLine line) {
+    return ReceiptItemDTO.builder()
+        .productName(line.getProductName())
+        .quantity(line.getQuantity())
+        .originalPrice(Money.of(line.getOriginalPrice()))
+        .discount(Money.of(line.getDiscount()))
+        .finalPrice(Money.of(line.getFinalPrice()))
+        .build();
+  }
+}
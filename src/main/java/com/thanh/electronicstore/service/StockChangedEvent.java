@@ -0,0 +1,10 @@
+package com.thanh.electronicstore.service;
+
+import java.util.Collection;
+import java.util.UUID;
+
+/**
+ * Published when the stored stock of products is written. Unlike {@link ProductChangedEvent} it
+ * leaves receipts alone: stock does not enter prices.
+ */
+public record StockChangedEvent(Collection<UUID> productIds) {}
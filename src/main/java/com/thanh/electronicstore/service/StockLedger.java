@@ -0,0 +1,123 @@
+package com.thanh.electronicstore.service;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory count of the stock still available per product. Each product's stock is split across a
+ * fixed number of shards so that concurrent reservations of the same product mostly hit different
+ * atomic counters instead of contending on one.
+ */
+public class StockLedger {
+  private final int shardCount;
+  private final Map<UUID, ShardedCounter> counters = new ConcurrentHashMap<>();
+
+  public StockLedger(int shardCount) {
+    if (shardCount <= 0) {
+      throw new IllegalArgumentException("Shard count must be positive: " + shardCount);
+    }
+    this.shardCount = shardCount;
+  }
+
+  public boolean isTracked(UUID productId) {
+    return counters.containsKey(productId);
+  }
+
+  /** Starts tracking a product. A product that is already tracked keeps its current count. */
+  public void seed(UUID productId, long available) {
+    counters.putIfAbsent(productId, new ShardedCounter(shardCount, Math.max(available, 0)));
+  }
+
+  /** Takes the quantity if the product has that much left. The product must be tracked. */
+  public boolean tryReserve(UUID productId, int quantity) {
+    return counter(productId).tryTake(quantity);
+  }
+
+  public void release(UUID productId, int quantity) {
+    counter(productId).give(quantity);
+  }
+
+  public long available(UUID productId) {
+    return counter(productId).sum();
+  }
+
+  private ShardedCounter counter(UUID productId) {
+    ShardedCounter counter = counters.get(productId);
+    if (counter == null) {
+      throw new IllegalStateException("Stock of product " + productId + " is not tracked");
+    }
+    return counter;
+  }
+
+  static final class ShardedCounter {
+    private final AtomicLongArray shards;
+
+    ShardedCounter(int shardCount, long initial) {
+      shards = new AtomicLongArray(shardCount);
+      for (int i = 0; i < shardCount; i++) {
+        shards.set(i, initial / shardCount + (i < initial % shardCount ? 1 : 0));
+      }
+    }
+
+    boolean tryTake(long quantity) {
+      int shardCount = shards.length();
+      int start = ThreadLocalRandom.current().nextInt(shardCount);
+      for (int i = 0; i < shardCount; i++) {
+        int shard = (start + i) % shardCount;
+        long current;
+        while ((current = shards.get(shard)) >= quantity) {
+          if (shards.compareAndSet(shard, current, current - quantity)) {
+            return true;
+          }
+        }
+      }
+      return gather(quantity);
+    }
+
+    /**
+     * Slow path for quantities no single shard can cover: collects them from several shards and
+     * puts everything back if the total falls short. Concurrent reservers may briefly see less
+     * stock than there is while a gather is in progress, never more.
+     */
+    private synchronized boolean gather(long quantity) {
+      int shardCount = shards.length();
+      long[] taken = new long[shardCount];
+      long total = 0;
+      for (int shard = 0; shard < shardCount && total < quantity; shard++) {
+        long current;
+        while ((current = shards.get(shard)) > 0) {
+          long take = Math.min(current, quantity - total);
+          if (shards.compareAndSet(shard, current, current - take)) {
+            taken[shard] = take;
+            total += take;
+            break;
+          }
+        }
+      }
+      if (total == quantity) {
+        return true;
+      }
+      for (int shard = 0; shard < shardCount; shard++) {
+        if (taken[shard] > 0) {
+          shards.addAndGet(shard, taken[shard]);
+        }
+      }
+      return false;
+    }
+
+    void give(long quantity) {
+      shards.addAndGet(ThreadLocalRandom.current().nextInt(shards.length()), quantity);
+    }
+
+    long sum() {
+      long sum = 0;
+      for (int i = 0; i < shards.length(); i++) {
+        sum += shards.get(i);
+      }
+      return sum;
+    }
+  }
+}
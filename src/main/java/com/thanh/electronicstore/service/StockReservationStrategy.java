@@ -0,0 +1,20 @@
+package com.thanh.electronicstore.service;
+
+import com.thanh.electronicstore.model.BasketItem;
+import java.util.List;
+
+/**
+ * How basket items take stock from, and give it back to, their products. Selected per deployment
+ * with {@code store.stock.ledger.enabled}.
+ */
+public interface StockReservationStrategy {
+  /**
+   * Reserves the quantity of every item, in order, within the current transaction. Element {@code
+   * i} of the result tells whether item {@code i} got its stock; items that did not must not be
+   * saved.
+   */
+  boolean[] reserve(List<BasketItem> items);
+
+  /** Gives the stock of items that are being removed from their basket back to the products. */
+  void release(List<BasketItem> items);
+}
@@ -0,0 +1,58 @@
+package com.thanh.electronicstore.service;
+
+import com.thanh.electronicstore.dto.ReceiptDTO;
+import com.thanh.electronicstore.exception.BasketNotFoundException;
+import com.thanh.electronicstore.model.Basket;
+import com.thanh.electronicstore.repository.BasketRepository;
+import java.util.UUID;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Reads the receipt from the prices stored on the basket by {@link BasketPricingService}; only a
+ * basket flagged stale has its lines priced again, in Java, and committed before the read.
+ */
+@Component
+@ConditionalOnProperty(name = "store.receipt.mode", havingValue = "stored", matchIfMissing = true)
+public class StoredReceiptStrategy implements ReceiptStrategy {
+  private final BasketRepository basketRepository;
+  private final BasketPricingService basketPricingService;
+  private final ReceiptCache receiptCache;
+
+  public StoredReceiptStrategy(
+      BasketRepository basketRepository,
+      BasketPricingService basketPricingService,
+      ReceiptCache receiptCache) {
+    this.basketRepository = basketRepository;
+    this.basketPricingService = basketPricingService;
+    this.receiptCache = receiptCache;
+  }
+
+  @Override
+  public boolean refresh(UUID basketId, boolean pricesStale) {
+    if (!pricesStale) {
+      return false;
+    }
+    basketPricingService.reprice(basketId);
+    return true;
+  }
+
+  /**
+   * A basket flagged again since {@link #refresh} is answered from its stored prices but not
+   * cached, so the next request reprices it.
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public ReceiptDTO calculate(UUID basketId, long version, long stamp) {
+    Basket basket =
+        basketRepository
+            .findWithItemsAndProductsById(basketId)
+            .orElseThrow(() -> new BasketNotFoundException(basketId.toString()));
+    ReceiptDTO receipt = basketPricingService.storedReceipt(basket);
+    if (basketPricingService.isCurrent(basket)) {
+      receiptCache.put(basket, receipt, stamp);
+    }
+    return receipt;
+  }
+}
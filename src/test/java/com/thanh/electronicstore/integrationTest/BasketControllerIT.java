@@ -2,6 +2,7 @@ package com.thanh.electronicstore.integrationTest;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.thanh.electronicstore.dto.BasketDTO;
 import com.thanh.electronicstore.dto.BasketItemDTO;
 import com.thanh.electronicstore.dto.ProductDTO;
@@ -14,8 +15,16 @@ import com.thanh.electronicstore.model.ProductCategory;
 import com.thanh.electronicstore.repository.BasketItemRepository;
 import com.thanh.electronicstore.repository.BasketRepository;
 import com.thanh.electronicstore.repository.ProductRepository;
+import com.thanh.electronicstore.service.CatalogSnapshot;
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.MethodOrderer;
 import org.junit.jupiter.api.Test;
@@ -49,6 +58,10 @@ public class BasketControllerIT {
 
   @Autowired private ProductRepository productRepository;
 
+  @Autowired private ObjectMapper objectMapper;
+
+  @Autowired private CatalogSnapshot catalogSnapshot;
+
   private List<ProductDTO> initializedProducts;
 
   @BeforeEach
@@ -97,6 +110,8 @@ public class BasketControllerIT {
     basket.getBasketItems().add(item1);
     basket.getBasketItems().add(item2);
     basketRepository.save(basket);
+    // Saved behind the services' back, so the in-memory catalog is reloaded.
+    catalogSnapshot.rebuild();
   }
 
   @Test
@@ -168,7 +183,74 @@ public class BasketControllerIT {
 
     assertThat(receipt).isNotNull();
     assertThat(receipt.getBasketId()).isEqualTo(basketId);
-    assertThat(receipt.getTotalPrice()).isEqualByComparingTo(expectedTotal);
+    assertThat(receipt.getTotalPrice().toBigDecimal()).isEqualByComparingTo(expectedTotal);
+  }
+
+  @Test
+  void testCalculateReceiptsStreamsOneLinePerExistingBasket() throws Exception {
+    String basketId = basketRepository.findAll().get(0).getId().toString();
+    List<String> ids = List.of(basketId, UUID.randomUUID().toString(), basketId);
+
+    ResponseEntity<String> response =
+        restTemplate.postForEntity(baseUrl + "/calculate-receipts", ids, String.class);
+
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON);
+    List<String> lines = response.getBody().lines().toList();
+    assertThat(lines).hasSize(2);
+    for (String line : lines) {
+      ReceiptDTO receipt = objectMapper.readValue(line, ReceiptDTO.class);
+      assertThat(receipt.getBasketId()).isEqualTo(basketId);
+      assertThat(receipt.getTotalPrice().toBigDecimal()).isEqualByComparingTo("3997");
+    }
+  }
+
+  @Test
+  void testCalculateReceiptsRejectsBadBatchesBeforeStreaming() {
+    String basketId = basketRepository.findAll().get(0).getId().toString();
+
+    ResponseEntity<String> malformed =
+        restTemplate.postForEntity(
+            baseUrl + "/calculate-receipts", List.of(basketId, "not-a-uuid"), String.class);
+    assertThat(malformed.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+
+    List<String> tooMany =
+        Stream.generate(() -> UUID.randomUUID().toString()).limit(1001).toList();
+    ResponseEntity<String> oversized =
+        restTemplate.postForEntity(baseUrl + "/calculate-receipts", tooMany, String.class);
+    assertThat(oversized.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+  }
+
+  @Test
+  void testQuotePricesLinesWithoutCreatingABasket() {
+    ProductDTO product = initializedProducts.get(0);
+    BasketItemDTO item = new BasketItemDTO();
+    item.setProductId(product.getId());
+    item.setQuantity(3);
+
+    ResponseEntity<ReceiptDTO> response =
+        restTemplate.postForEntity(baseUrl + "/quote", List.of(item), ReceiptDTO.class);
+
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(response.getBody().getBasketId()).isNull();
+    assertThat(response.getBody().getTotalPrice().toBigDecimal())
+        .isEqualByComparingTo(product.getPrice().toBigDecimal().multiply(BigDecimal.valueOf(3)));
+    assertThat(basketRepository.count()).isEqualTo(1);
+    assertThat(
+            productRepository.findById(UUID.fromString(product.getId())).orElseThrow().getStock())
+        .isEqualTo(product.getStock());
+  }
+
+  @Test
+  void testQuoteOfUnknownProductIsNotFound() {
+    BasketItemDTO item = new BasketItemDTO();
+    item.setProductId(UUID.randomUUID().toString());
+    item.setQuantity(1);
+
+    ResponseEntity<String> response =
+        restTemplate.postForEntity(baseUrl + "/quote", List.of(item), String.class);
+
+    assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND);
   }
 
   @Test
@@ -220,6 +302,7 @@ public class BasketControllerIT {
 
     HttpHeaders headers = new HttpHeaders();
     headers.setContentType(MediaType.APPLICATION_JSON);
+    headers.set("Idempotency-Key", "delete-items-" + basketId);
     HttpEntity<List<String>> deleteRequest = new HttpEntity<>(basketItemIds, headers);
 
     // Call remove-items
@@ -233,5 +316,119 @@ public class BasketControllerIT {
     assertThat(deleteResp.getStatusCode()).isEqualTo(HttpStatus.OK);
     assertThat(deleteResp.getBody()).isNotNull();
     assertThat(deleteResp.getBody().getBasketItems()).isEmpty();
+
+    // A retry with the same key is answered with the first response
+    ResponseEntity<BasketDTO> retryResp =
+        restTemplate.exchange(
+            baseUrl + "/" + basketId + "/delete-items",
+            HttpMethod.POST,
+            deleteRequest,
+            BasketDTO.class);
+
+    assertThat(retryResp.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(retryResp.getHeaders().getFirst("Idempotent-Replayed")).isEqualTo("true");
+  }
+
+  @Test
+  void testConcurrentBasketsNeverOversellStock() throws Exception {
+    Product product =
+        productRepository.save(
+            Product.builder()
+                .name("Pixel 9")
+                .category(ProductCategory.PHONE)
+                .price(BigDecimal.valueOf(799))
+                .stock(5)
+                .available(true)
+                .build());
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Callable<BasketDTO>> requests = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        requests.add(
+            () -> {
+              BasketDTO basketDTO = new BasketDTO();
+              basketDTO.setStatus(BasketStatus.ACTIVE);
+              basketDTO.setBasketItems(
+                  List.of(
+                      BasketItemDTO.builder()
+                          .productId(product.getId().toString())
+                          .quantity(1)
+                          .build()));
+              return restTemplate.postForEntity(baseUrl, basketDTO, BasketDTO.class).getBody();
+            });
+      }
+
+      int reserved = 0;
+      for (Future<BasketDTO> result : executor.invokeAll(requests)) {
+        reserved += result.get().getBasketItems().size();
+      }
+
+      Product reloaded = productRepository.findById(product.getId()).orElseThrow();
+      assertThat(reserved).isEqualTo(5);
+      assertThat(reloaded.getStock()).isZero();
+      assertThat(reloaded.getAvailable()).isFalse();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void testRetriedAddItemsWithIdempotencyKeyReservesStockOnce() {
+    BasketDTO basketDTO = new BasketDTO();
+    basketDTO.setStatus(BasketStatus.ACTIVE);
+    String basketId =
+        restTemplate.postForEntity(baseUrl, basketDTO, BasketDTO.class).getBody().getId();
+
+    ProductDTO product = initializedProducts.get(0);
+    BasketItemDTO item = new BasketItemDTO();
+    item.setProductId(product.getId());
+    item.setQuantity(3);
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    headers.set("Idempotency-Key", "add-items-" + basketId);
+    HttpEntity<List<BasketItemDTO>> request = new HttpEntity<>(List.of(item), headers);
+
+    ResponseEntity<BasketDTO> first =
+        restTemplate.postForEntity(
+            baseUrl + "/" + basketId + "/add-items", request, BasketDTO.class);
+    ResponseEntity<BasketDTO> retry =
+        restTemplate.postForEntity(
+            baseUrl + "/" + basketId + "/add-items", request, BasketDTO.class);
+
+    assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(retry.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(retry.getHeaders().getFirst("Idempotent-Replayed")).isEqualTo("true");
+    assertThat(retry.getBody().getBasketItems()).hasSize(1);
+
+    Product reloaded = productRepository.findById(UUID.fromString(product.getId())).orElseThrow();
+    assertThat(reloaded.getStock()).isEqualTo(product.getStock() - 3);
+    assertThat(basketItemRepository.count()).isEqualTo(3);
+  }
+
+  @Test
+  void testIdempotencyKeyReusedWithAnotherBodyIsRejected() {
+    BasketDTO basketDTO = new BasketDTO();
+    basketDTO.setStatus(BasketStatus.ACTIVE);
+    String basketId =
+        restTemplate.postForEntity(baseUrl, basketDTO, BasketDTO.class).getBody().getId();
+
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    headers.set("Idempotency-Key", "reused-" + basketId);
+    String url = baseUrl + "/" + basketId + "/add-items";
+    BasketItemDTO one =
+        BasketItemDTO.builder().productId(initializedProducts.get(0).getId()).quantity(1).build();
+    BasketItemDTO two =
+        BasketItemDTO.builder().productId(initializedProducts.get(0).getId()).quantity(2).build();
+
+    ResponseEntity<BasketDTO> first =
+        restTemplate.postForEntity(url, new HttpEntity<>(List.of(one), headers), BasketDTO.class);
+    ResponseEntity<String> reused =
+        restTemplate.postForEntity(url, new HttpEntity<>(List.of(two), headers), String.class);
+
+    assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+    assertThat(reused.getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
   }
 }
@@ -0,0 +1,138 @@
+package com.thanh.electronicstore.integrationTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.thanh.electronicstore.dto.BasketDTO;
+import com.thanh.electronicstore.dto.BasketItemDTO;
+import com.thanh.electronicstore.exception.BasketExpiredException;
+import com.thanh.electronicstore.model.Basket;
+import com.thanh.electronicstore.model.BasketStatus;
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.model.ProductCategory;
+import com.thanh.electronicstore.repository.BasketItemRepository;
+import com.thanh.electronicstore.repository.BasketRepository;
+import com.thanh.electronicstore.repository.ProductRepository;
+import com.thanh.electronicstore.service.BasketExpiryService;
+import com.thanh.electronicstore.service.BasketService;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest(
+    properties = {
+      "store.basket.reservation-ttl=300ms",
+      "store.basket.expiry.bucket-ms=10",
+      "store.basket.expiry.tick-ms=3600000",
+      // One basket per page and per batch, so the rebuild pages through the deadlines.
+      "store.basket.expiry.batch-size=1"
+    })
+@ActiveProfiles("integration")
+class BasketExpiryIT {
+
+  @Autowired private BasketService basketService;
+
+  @Autowired private BasketExpiryService basketExpiryService;
+
+  @Autowired private ProductRepository productRepository;
+
+  @Autowired private BasketRepository basketRepository;
+
+  @Autowired private BasketItemRepository basketItemRepository;
+
+  private Product product;
+
+  @BeforeEach
+  void setUp() {
+    basketItemRepository.deleteAll();
+    basketRepository.deleteAll();
+    productRepository.deleteAll();
+
+    product =
+        productRepository.save(
+            Product.builder()
+                .name("Galaxy Tab")
+                .category(ProductCategory.TABLET)
+                .price(BigDecimal.valueOf(499))
+                .stock(10)
+                .available(true)
+                .build());
+  }
+
+  @Test
+  void shouldReleaseStockOfAbandonedBaskets() throws InterruptedException {
+    BasketDTO basket = basketService.createBasket(basketWith(3));
+    assertThat(stockInDatabase()).isEqualTo(7);
+
+    Thread.sleep(400);
+    basketExpiryService.expireDue();
+
+    assertThat(statusOf(basket)).isEqualTo(BasketStatus.EXPIRED);
+    assertThat(basketItemRepository.count()).isZero();
+    assertThat(stockInDatabase()).isEqualTo(10);
+    assertThatThrownBy(() -> basketService.addBasketItems(basket.getId(), List.of(line(1))))
+        .isInstanceOf(BasketExpiredException.class);
+  }
+
+  @Test
+  void touchingBasketShouldPushBackItsExpiry() throws InterruptedException {
+    BasketDTO basket = basketService.createBasket(basketWith(3));
+
+    Thread.sleep(200);
+    basketService.addBasketItems(basket.getId(), List.of(line(2)));
+    Thread.sleep(200);
+    basketExpiryService.expireDue();
+
+    assertThat(statusOf(basket)).isEqualTo(BasketStatus.ACTIVE);
+    assertThat(stockInDatabase()).isEqualTo(5);
+
+    Thread.sleep(200);
+    basketExpiryService.expireDue();
+
+    assertThat(statusOf(basket)).isEqualTo(BasketStatus.EXPIRED);
+    assertThat(stockInDatabase()).isEqualTo(10);
+  }
+
+  @Test
+  void rebuildShouldFollowTheDeadlineStoredOnEachBasket() throws InterruptedException {
+    BasketDTO shortLived = basketService.createBasket(basketWith(3));
+    BasketDTO extended = basketService.createBasket(basketWith(2));
+    Basket stored = basketRepository.findById(UUID.fromString(extended.getId())).orElseThrow();
+    stored.setExpiresAt(Instant.now().plus(Duration.ofHours(1)));
+    basketRepository.save(stored);
+
+    basketExpiryService.rebuild();
+    Thread.sleep(400);
+    basketExpiryService.expireDue();
+
+    assertThat(statusOf(shortLived)).isEqualTo(BasketStatus.EXPIRED);
+    assertThat(statusOf(extended)).isEqualTo(BasketStatus.ACTIVE);
+    assertThat(stockInDatabase()).isEqualTo(8);
+  }
+
+  private BasketDTO basketWith(int quantity) {
+    BasketDTO basketDTO = new BasketDTO();
+    basketDTO.setStatus(BasketStatus.ACTIVE);
+    basketDTO.setBasketItems(List.of(line(quantity)));
+    return basketDTO;
+  }
+
+  private BasketItemDTO line(int quantity) {
+    return BasketItemDTO.builder().productId(product.getId().toString()).quantity(quantity).build();
+  }
+
+  private BasketStatus statusOf(BasketDTO basket) {
+    return basketRepository.findById(UUID.fromString(basket.getId())).orElseThrow().getStatus();
+  }
+
+  private int stockInDatabase() {
+    return productRepository.findById(product.getId()).orElseThrow().getStock();
+  }
+}
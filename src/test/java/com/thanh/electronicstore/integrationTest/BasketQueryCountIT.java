@@ -0,0 +1,249 @@
+package com.thanh.electronicstore.integrationTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.thanh.electronicstore.dto.BasketDTO;
+import com.thanh.electronicstore.dto.BasketItemDTO;
+import com.thanh.electronicstore.dto.DealDTO;
+import com.thanh.electronicstore.dto.ReceiptDTO;
+import com.thanh.electronicstore.model.BasketStatus;
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.model.ProductCategory;
+import com.thanh.electronicstore.repository.BasketItemRepository;
+import com.thanh.electronicstore.repository.BasketRepository;
+import com.thanh.electronicstore.repository.ProductRepository;
+import com.thanh.electronicstore.service.BasketService;
+import com.thanh.electronicstore.service.CatalogSnapshot;
+import com.thanh.electronicstore.service.ProductService;
+import com.thanh.electronicstore.service.QuoteService;
+import com.thanh.electronicstore.service.ReceiptBatchService;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import net.ttddyy.dsproxy.QueryCount;
+import net.ttddyy.dsproxy.QueryCountHolder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("integration")
+@Import(QueryCountConfig.class)
+class BasketQueryCountIT {
+
+  @Autowired private BasketService basketService;
+
+  @Autowired private ProductService productService;
+
+  @Autowired private ReceiptBatchService receiptBatchService;
+
+  @Autowired private QuoteService quoteService;
+  @Autowired private CatalogSnapshot catalogSnapshot;
+
+  @Autowired private ProductRepository productRepository;
+
+  @Autowired private BasketRepository basketRepository;
+
+  @Autowired private BasketItemRepository basketItemRepository;
+
+  private List<Product> products;
+
+  @BeforeEach
+  void setUp() {
+    basketItemRepository.deleteAll();
+    basketRepository.deleteAll();
+    productRepository.deleteAll();
+
+    List<Product> newProducts = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      newProducts.add(
+          Product.builder()
+              .name("Product " + i)
+              .category(ProductCategory.PHONE)
+              .price(BigDecimal.valueOf(100 + i))
+              .stock(100)
+              .available(true)
+              .build());
+    }
+    products = productRepository.saveAll(newProducts);
+  }
+
+  @Test
+  void addBasketItemsShouldCostAConstantNumberOfStatements() {
+    QueryCount oneLine = countAddItems(1);
+    QueryCount fiftyLines = countAddItems(50);
+
+    assertThat(fiftyLines.getTotal()).isEqualTo(oneLine.getTotal());
+    // Basket, referenced products, and the item collection rendered in the response.
+    assertThat(fiftyLines.getSelect()).isEqualTo(3);
+    assertThat(fiftyLines.getInsert()).isEqualTo(1);
+    assertThat(basketItemRepository.count()).isEqualTo(51);
+  }
+
+  @Test
+  void removeBasketItemsShouldCostAConstantNumberOfStatements() {
+    QueryCount tenLines = countRemoveItems(1_000, 10);
+    QueryCount thousandLines = countRemoveItems(1_000, 1_000);
+
+    assertThat(thousandLines.getTotal()).isEqualTo(tenLines.getTotal());
+    assertThat(thousandLines.getDelete()).isEqualTo(1);
+    assertThat(basketItemRepository.count()).isEqualTo(990);
+    assertThat(productRepository.findAll()).allMatch(product -> product.getStock() >= 80);
+  }
+
+  @Test
+  void basketReadsShouldCostAFixedNumberOfStatements() {
+    for (Product product : products.subList(0, 10)) {
+      productService.addDeals(
+          List.of(
+              DealDTO.builder()
+                  .description("10% off")
+                  .type("PERCENTAGE_DISCOUNT")
+                  .expiration(LocalDateTime.now().plusDays(1).toString())
+                  .discountValue(BigDecimal.TEN)
+                  .build()),
+          product.getId().toString());
+    }
+    String oneLine = basketWith(1);
+    String fiftyLines = basketWith(50);
+
+    // Basket with items in one query.
+    assertThat(countSelects(() -> basketService.getBasket(oneLine))).isEqualTo(1);
+    assertThat(countSelects(() -> basketService.getBasket(fiftyLines))).isEqualTo(1);
+
+    // Version lookup, then basket with items and products; deals come from the index.
+    assertThat(countSelects(() -> basketService.calculateReceipt(oneLine))).isEqualTo(2);
+    assertThat(countSelects(() -> basketService.calculateReceipt(fiftyLines))).isEqualTo(2);
+    // Unchanged basket: only the version lookup, the receipt comes from the cache.
+    assertThat(countSelects(() -> basketService.calculateReceipt(fiftyLines))).isEqualTo(1);
+    assertThat(basketService.calculateReceipt(fiftyLines).getItems())
+        .filteredOn(item -> item.getDiscount().minorUnits() > 0)
+        .hasSize(10);
+  }
+
+  @Test
+  void batchReceiptsShouldCostTwoStatementsPerChunk() {
+    List<UUID> basketIds = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      basketIds.add(UUID.fromString(basketWith(1 + i)));
+    }
+    List<ReceiptDTO> receipts = new ArrayList<>();
+
+    // Versions of the chunk, then the baskets that missed the receipt cache.
+    assertThat(countSelects(() -> receiptBatchService.calculateReceipts(basketIds, receipts::add)))
+        .isEqualTo(2);
+    assertThat(receipts)
+        .extracting(ReceiptDTO::getBasketId)
+        .containsExactlyElementsOf(basketIds.stream().map(UUID::toString).toList());
+    assertThat(receipts.get(19).getItems()).hasSize(20);
+
+    // Every receipt is now cached: only the versions are read.
+    assertThat(countSelects(() -> receiptBatchService.calculateReceipts(basketIds, r -> {})))
+        .isEqualTo(1);
+  }
+
+  @Test
+  void quoteShouldNotTouchTheDatabaseInSteadyState() {
+    productService.addDeals(
+        List.of(
+            DealDTO.builder()
+                .description("10% off")
+                .type("PERCENTAGE_DISCOUNT")
+                .expiration(LocalDateTime.now().plusDays(1).toString())
+                .discountValue(BigDecimal.TEN)
+                .build()),
+        products.get(0).getId().toString());
+    List<BasketItemDTO> lines =
+        products.stream()
+            .map(
+                product ->
+                    BasketItemDTO.builder()
+                        .productId(product.getId().toString())
+                        .quantity(2)
+                        .build())
+            .toList();
+    // Saved straight through the repository, so the snapshot does not hold them yet.
+    catalogSnapshot.rebuild();
+    quoteService.quote(lines);
+
+    QueryCountHolder.clear();
+    ReceiptDTO quote = quoteService.quote(lines);
+
+    assertThat(QueryCountHolder.getGrandTotal().getTotal()).isZero();
+    assertThat(quote.getItems()).hasSize(50);
+    assertThat(quote.getItems().get(0).getDiscount().toBigDecimal()).isEqualByComparingTo("20.00");
+    assertThat(basketRepository.count()).isZero();
+  }
+
+  private String basketWith(int lines) {
+    return basketService
+        .createBasket(
+            BasketDTO.builder()
+                .basketItems(
+                    products.subList(0, lines).stream()
+                        .map(
+                            product ->
+                                BasketItemDTO.builder()
+                                    .productId(product.getId().toString())
+                                    .quantity(1)
+                                    .build())
+                        .toList())
+                .build())
+        .getId();
+  }
+
+  private long countSelects(Runnable read) {
+    QueryCountHolder.clear();
+    read.run();
+    QueryCount count = QueryCountHolder.getGrandTotal();
+    assertThat(count.getTotal()).isEqualTo(count.getSelect());
+    return count.getSelect();
+  }
+
+  private QueryCount countRemoveItems(int lines, int removed) {
+    List<BasketItemDTO> items = new ArrayList<>();
+    for (int i = 0; i < lines; i++) {
+      items.add(
+          BasketItemDTO.builder()
+              .productId(products.get(i % products.size()).getId().toString())
+              .quantity(1)
+              .build());
+    }
+    BasketDTO basket = basketService.createBasket(BasketDTO.builder().basketItems(items).build());
+    List<String> removedIds =
+        basket.getBasketItems().subList(0, removed).stream().map(BasketItemDTO::getId).toList();
+
+    QueryCountHolder.clear();
+    BasketDTO result = basketService.removeBasketItems(basket.getId(), removedIds);
+    QueryCount count = QueryCountHolder.getGrandTotal();
+
+    assertThat(result.getBasketItems()).hasSize(lines - removed);
+    return count;
+  }
+
+  private QueryCount countAddItems(int lines) {
+    String basketId = basketService.createBasket(BasketDTO.builder().build()).getId();
+    List<BasketItemDTO> items =
+        products.subList(0, lines).stream()
+            .map(
+                product ->
+                    BasketItemDTO.builder()
+                        .productId(product.getId().toString())
+                        .quantity(1)
+                        .build())
+            .toList();
+
+    QueryCountHolder.clear();
+    BasketDTO basket = basketService.addBasketItems(basketId, items);
+    QueryCount count = QueryCountHolder.getGrandTotal();
+
+    assertThat(basket.getStatus()).isEqualTo(BasketStatus.ACTIVE);
+    assertThat(basket.getBasketItems()).hasSize(lines);
+    return count;
+  }
+}
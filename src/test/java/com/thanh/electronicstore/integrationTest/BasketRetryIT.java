@@ -0,0 +1,128 @@
+package com.thanh.electronicstore.integrationTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import com.thanh.electronicstore.dto.BasketDTO;
+import com.thanh.electronicstore.dto.BasketItemDTO;
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.model.ProductCategory;
+import com.thanh.electronicstore.repository.BasketItemRepository;
+import com.thanh.electronicstore.repository.BasketRepository;
+import com.thanh.electronicstore.repository.ProductRepository;
+import com.thanh.electronicstore.service.BasketService;
+import com.thanh.electronicstore.service.ProductService;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+@SpringBootTest
+@ActiveProfiles("integration")
+class BasketRetryIT {
+
+  @Autowired private BasketService basketService;
+
+  @MockitoSpyBean private ProductService productService;
+
+  @Autowired private ProductRepository productRepository;
+
+  @Autowired private BasketRepository basketRepository;
+
+  @Autowired private BasketItemRepository basketItemRepository;
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  private Product product;
+
+  @BeforeEach
+  void setUp() {
+    basketItemRepository.deleteAll();
+    basketRepository.deleteAll();
+    productRepository.deleteAll();
+
+    product =
+        productRepository.save(
+            Product.builder()
+                .name("Galaxy S24")
+                .category(ProductCategory.PHONE)
+                .price(BigDecimal.valueOf(899))
+                .stock(10)
+                .available(true)
+                .build());
+  }
+
+  @Test
+  void shouldRetryBasketCreationAfterOptimisticLockConflict() {
+    doThrow(new ObjectOptimisticLockingFailureException(Product.class, UUID.randomUUID()))
+        .doCallRealMethod()
+        .when(productService)
+        .getAllProductByIds(anyList());
+    double conflictsBefore = conflicts("BasketService.createBasket");
+
+    BasketDTO basketDTO = BasketDTO.builder().basketItems(List.of(line(2))).build();
+    BasketDTO created = basketService.createBasket(basketDTO);
+
+    assertThat(created.getBasketItems()).hasSize(1);
+    assertThat(productRepository.findById(product.getId()).orElseThrow().getStock()).isEqualTo(8);
+    verify(productService, times(2)).getAllProductByIds(anyList());
+    assertThat(conflicts("BasketService.createBasket") - conflictsBefore).isEqualTo(1.0);
+  }
+
+  @Test
+  void shouldRetryTheLoserOfARealVersionClash() throws Exception {
+    BasketDTO basket =
+        basketService.createBasket(BasketDTO.builder().basketItems(List.of(line(1))).build());
+    AtomicBoolean raced = new AtomicBoolean();
+    ExecutorService rival = Executors.newSingleThreadExecutor();
+    // Once the first attempt has loaded the basket, a rival mutation of the same basket commits in
+    // its own transaction; the first attempt then fails its version check on flush.
+    doAnswer(
+            invocation -> {
+              if (raced.compareAndSet(false, true)) {
+                rival
+                    .submit(() -> basketService.addBasketItems(basket.getId(), List.of(line(2))))
+                    .get();
+              }
+              return invocation.callRealMethod();
+            })
+        .when(productService)
+        .getAllProductByIds(anyList());
+    double conflictsBefore = conflicts("BasketService.addBasketItems");
+
+    BasketDTO updated;
+    try {
+      updated = basketService.addBasketItems(basket.getId(), List.of(line(3)));
+    } finally {
+      rival.shutdown();
+    }
+
+    assertThat(updated.getBasketItems())
+        .extracting(BasketItemDTO::getQuantity)
+        .containsExactlyInAnyOrder(1, 2, 3);
+    assertThat(productRepository.findById(product.getId()).orElseThrow().getStock()).isEqualTo(4);
+    assertThat(conflicts("BasketService.addBasketItems") - conflictsBefore).isEqualTo(1.0);
+  }
+
+  private BasketItemDTO line(int quantity) {
+    return BasketItemDTO.builder().productId(product.getId().toString()).quantity(quantity).build();
+  }
+
+  private double conflicts(String operation) {
+    return meterRegistry.counter("store.retry.conflicts", "operation", operation).count();
+  }
+}
@@ -6,14 +6,21 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.thanh.electronicstore.dto.DealDTO;
 import com.thanh.electronicstore.dto.ProductDTO;
+import com.thanh.electronicstore.dto.ProductSliceDTO;
+import com.thanh.electronicstore.model.Money;
 import com.thanh.electronicstore.model.ProductCategory;
 import com.thanh.electronicstore.repository.BasketItemRepository;
 import com.thanh.electronicstore.repository.BasketRepository;
 import com.thanh.electronicstore.repository.DealRepository;
 import com.thanh.electronicstore.repository.ProductRepository;
+import com.thanh.electronicstore.service.CatalogSnapshot;
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.MethodOrderer;
@@ -49,6 +56,10 @@ class ProductControllerIT {
 
   @Autowired private DealRepository dealRepository;
 
+  @Autowired private CatalogSnapshot catalogSnapshot;
+
+  @Autowired private ObjectMapper objectMapper;
+
   private String getBaseUrl() {
     return "http://localhost:" + port + "/products";
   }
@@ -59,6 +70,8 @@ class ProductControllerIT {
     basketRepository.deleteAll();
     dealRepository.deleteAll();
     productRepository.deleteAll();
+    // Deleted behind the services' back, so the in-memory catalog is reloaded.
+    catalogSnapshot.rebuild();
   }
 
   @Test
@@ -68,7 +81,7 @@ class ProductControllerIT {
             .name("Test Phone")
             .description("Integration Test Product")
             .category(ProductCategory.PHONE)
-            .price(BigDecimal.valueOf(999))
+            .price(Money.ofMinor(99900))
             .stock(100)
             .available(true)
             .build();
@@ -97,7 +110,7 @@ class ProductControllerIT {
         products.stream().filter(p -> p.getName().equals("Test Phone")).findFirst().orElseThrow();
 
     assertThat(found.getCategory()).isEqualTo(ProductCategory.PHONE);
-    assertEquals(0, productDTO.getPrice().compareTo(BigDecimal.valueOf(999)));
+    assertEquals(0, productDTO.getPrice().compareTo(Money.ofMinor(99900)));
   }
 
   @Test
@@ -107,7 +120,7 @@ class ProductControllerIT {
             .id(null)
             .name("Phone")
             .description("Smartphone")
-            .price(BigDecimal.valueOf(299.99))
+            .price(Money.ofMinor(29999))
             .stock(10)
             .category(ProductCategory.PHONE)
             .available(true)
@@ -131,7 +144,7 @@ class ProductControllerIT {
             .id(null)
             .name("TV")
             .description("Smart TV")
-            .price(BigDecimal.valueOf(500))
+            .price(Money.ofMinor(50000))
             .stock(5)
             .category(ProductCategory.PHONE)
             .available(true)
@@ -142,7 +155,7 @@ class ProductControllerIT {
             .id(null)
             .name("Fridge")
             .description("Cool fridge")
-            .price(BigDecimal.valueOf(700))
+            .price(Money.ofMinor(70000))
             .stock(2)
             .category(ProductCategory.PHONE)
             .available(true)
@@ -159,6 +172,157 @@ class ProductControllerIT {
     assertTrue(response.getBody().length >= 1);
   }
 
+  @Test
+  void searchProducts_shouldApplyOnlyTheFiltersGiven() {
+    List<ProductDTO> products =
+        List.of(
+            ProductDTO.builder()
+                .name("Cheap Phone")
+                .price(Money.ofMinor(10000))
+                .stock(1)
+                .category(ProductCategory.PHONE)
+                .available(true)
+                .build(),
+            ProductDTO.builder()
+                .name("Sold Out Phone")
+                .price(Money.ofMinor(50000))
+                .stock(0)
+                .category(ProductCategory.PHONE)
+                .available(false)
+                .build(),
+            ProductDTO.builder()
+                .name("Laptop")
+                .price(Money.ofMinor(150000))
+                .stock(1)
+                .category(ProductCategory.LAPTOP)
+                .available(true)
+                .build());
+    products.forEach(product -> restTemplate.postForEntity("/products", product, Void.class));
+
+    // Pages come in price order.
+    assertThat(searchNames("")).containsExactly("Cheap Phone", "Sold Out Phone", "Laptop");
+    assertThat(searchNames("category=PHONE"))
+        .containsExactlyInAnyOrder("Cheap Phone", "Sold Out Phone");
+    assertThat(searchNames("available=true")).containsExactlyInAnyOrder("Cheap Phone", "Laptop");
+    assertThat(searchNames("maxPrice=500"))
+        .containsExactlyInAnyOrder("Cheap Phone", "Sold Out Phone");
+    assertThat(searchNames("category=PHONE&available=true&minPrice=50"))
+        .containsExactly("Cheap Phone");
+  }
+
+  private List<String> searchNames(String query) {
+    ResponseEntity<ProductDTO[]> response =
+        restTemplate.getForEntity("/products/search?size=50&" + query, ProductDTO[].class);
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    return Arrays.stream(response.getBody()).map(ProductDTO::getName).toList();
+  }
+
+  @Test
+  void scrollProducts_shouldVisitEveryMatchOnceInPriceOrder() {
+    for (int i = 0; i < 7; i++) {
+      ProductDTO product =
+          ProductDTO.builder()
+              .name("Phone " + i)
+              .price(Money.ofMinor(10000 + (i % 3) * 100))
+              .stock(1)
+              .category(ProductCategory.PHONE)
+              .available(true)
+              .build();
+      restTemplate.postForEntity("/products", product, Void.class);
+    }
+    ProductDTO laptop =
+        ProductDTO.builder()
+            .name("Laptop")
+            .price(Money.ofMinor(10000))
+            .stock(1)
+            .category(ProductCategory.LAPTOP)
+            .available(true)
+            .build();
+    restTemplate.postForEntity("/products", laptop, Void.class);
+
+    List<ProductDTO> seen = new ArrayList<>();
+    String cursor = null;
+    int slices = 0;
+    do {
+      String url = "/products/search/cursor?category=PHONE&sort=PRICE&size=3";
+      ResponseEntity<ProductSliceDTO> response =
+          restTemplate.getForEntity(
+              cursor == null ? url : url + "&cursor=" + cursor, ProductSliceDTO.class);
+      assertEquals(HttpStatus.OK, response.getStatusCode());
+      seen.addAll(response.getBody().getProducts());
+      cursor = response.getBody().getNextCursor();
+      slices++;
+    } while (cursor != null);
+
+    assertThat(slices).isEqualTo(3);
+    assertThat(seen).extracting(ProductDTO::getId).doesNotHaveDuplicates().hasSize(7);
+    assertThat(seen).extracting(ProductDTO::getCategory).containsOnly(ProductCategory.PHONE);
+    assertThat(seen).extracting(ProductDTO::getPrice).isSorted();
+  }
+
+  @Test
+  void scrollProducts_shouldRejectMalformedCursor() {
+    ResponseEntity<String> response =
+        restTemplate.getForEntity(
+            "/products/search/cursor?sort=NAME&cursor=bm90LWEtY3Vyc29y", String.class);
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+  }
+
+  @Test
+  void scrollProducts_shouldRejectSizeBelowOne() {
+    ResponseEntity<String> response =
+        restTemplate.getForEntity("/products/search/cursor?size=0", String.class);
+
+    assertEquals(HttpStatus.BAD_REQUEST, response.getStatusCode());
+  }
+
+  @Test
+  void exportProducts_shouldStreamOneLinePerProductWithDeals() throws Exception {
+    for (String name : List.of("Phone", "Laptop", "Tablet")) {
+      ProductDTO product =
+          ProductDTO.builder()
+              .name(name)
+              .price(Money.ofMinor(10000))
+              .stock(1)
+              .category(ProductCategory.PHONE)
+              .available(true)
+              .build();
+      restTemplate.postForEntity("/products", product, Void.class);
+    }
+    String phoneId =
+        productRepository.findAll().stream()
+            .filter(product -> product.getName().equals("Phone"))
+            .findFirst()
+            .orElseThrow()
+            .getId()
+            .toString();
+    DealDTO deal =
+        DealDTO.builder()
+            .expiration(LocalDateTime.now().plusDays(1).toString())
+            .description("10% off")
+            .type("PERCENTAGE_DISCOUNT")
+            .discountValue(BigDecimal.TEN)
+            .build();
+    restTemplate.postForEntity("/products/" + phoneId + "/add-deals", List.of(deal), Void.class);
+
+    ResponseEntity<String> response = restTemplate.getForEntity("/products/export", String.class);
+
+    assertEquals(HttpStatus.OK, response.getStatusCode());
+    assertThat(response.getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_NDJSON);
+    List<ProductDTO> exported = new ArrayList<>();
+    for (String line : response.getBody().lines().toList()) {
+      exported.add(objectMapper.readValue(line, ProductDTO.class));
+    }
+    assertThat(exported)
+        .extracting(ProductDTO::getName)
+        .containsExactlyInAnyOrder("Phone", "Laptop", "Tablet");
+    assertThat(exported)
+        .filteredOn(product -> product.getId().equals(phoneId))
+        .singleElement()
+        .satisfies(product -> assertThat(product.getDeals()).hasSize(1));
+  }
+
   @Test
   void addDealToProduct_shouldUpdateProductDeal() {
     // Step 1: Create
@@ -166,7 +330,7 @@ class ProductControllerIT {
         ProductDTO.builder()
             .name("Laptop")
             .description("Gaming")
-            .price(BigDecimal.valueOf(1000))
+            .price(Money.ofMinor(100000))
             .stock(3)
             .category(ProductCategory.PHONE)
             .available(true)
@@ -206,4 +370,43 @@ class ProductControllerIT {
     assertEquals("PERCENTAGE_DISCOUNT", addedDeal.getType());
     assertEquals(BigDecimal.valueOf(15), addedDeal.getDiscountValue());
   }
+
+  @Test
+  void createAndDeleteProduct_shouldRunOncePerIdempotencyKey() {
+    ProductDTO productDTO =
+        ProductDTO.builder()
+            .name("Retried Phone")
+            .category(ProductCategory.PHONE)
+            .price(Money.ofMinor(10000))
+            .stock(1)
+            .available(true)
+            .build();
+    HttpHeaders headers = new HttpHeaders();
+    headers.setContentType(MediaType.APPLICATION_JSON);
+    headers.set("Idempotency-Key", "create-retried-phone");
+    HttpEntity<ProductDTO> create = new HttpEntity<>(productDTO, headers);
+
+    ResponseEntity<ProductDTO> created =
+        restTemplate.postForEntity(getBaseUrl(), create, ProductDTO.class);
+    ResponseEntity<ProductDTO> createRetry =
+        restTemplate.postForEntity(getBaseUrl(), create, ProductDTO.class);
+
+    assertEquals(HttpStatus.CREATED, createRetry.getStatusCode());
+    assertEquals("true", createRetry.getHeaders().getFirst("Idempotent-Replayed"));
+    assertEquals(created.getBody().getId(), createRetry.getBody().getId());
+    assertEquals(1, productRepository.count());
+
+    HttpHeaders deleteHeaders = new HttpHeaders();
+    deleteHeaders.set("Idempotency-Key", "delete-retried-phone");
+    String url = getBaseUrl() + "/" + created.getBody().getId();
+    ResponseEntity<Void> deleted =
+        restTemplate.exchange(url, HttpMethod.DELETE, new HttpEntity<>(deleteHeaders), Void.class);
+    ResponseEntity<Void> deleteRetry =
+        restTemplate.exchange(url, HttpMethod.DELETE, new HttpEntity<>(deleteHeaders), Void.class);
+
+    assertEquals(HttpStatus.OK, deleted.getStatusCode());
+    assertEquals(HttpStatus.OK, deleteRetry.getStatusCode());
+    assertEquals("true", deleteRetry.getHeaders().getFirst("Idempotent-Replayed"));
+    assertEquals(0, productRepository.count());
+  }
 }
@@ -0,0 +1,28 @@
+package com.thanh.electronicstore.integrationTest;
+
+import javax.sql.DataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Wraps the application DataSource so tests can count the statements sent to the database via
+ * {@code QueryCountHolder}. A JDBC batch counts as one statement.
+ */
+@TestConfiguration
+public class QueryCountConfig {
+
+  @Bean
+  public static BeanPostProcessor queryCountingDataSource() {
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource) {
+          return ProxyDataSourceBuilder.create(dataSource).name("query-count").countQuery().build();
+        }
+        return bean;
+      }
+    };
+  }
+}
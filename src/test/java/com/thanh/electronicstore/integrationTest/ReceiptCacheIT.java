@@ -0,0 +1,232 @@
+package com.thanh.electronicstore.integrationTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.thanh.electronicstore.dto.BasketDTO;
+import com.thanh.electronicstore.dto.BasketItemDTO;
+import com.thanh.electronicstore.dto.DealDTO;
+import com.thanh.electronicstore.dto.ReceiptDTO;
+import com.thanh.electronicstore.model.Basket;
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.model.ProductCategory;
+import com.thanh.electronicstore.repository.BasketItemRepository;
+import com.thanh.electronicstore.repository.BasketRepository;
+import com.thanh.electronicstore.repository.ProductRepository;
+import com.thanh.electronicstore.service.BasketService;
+import com.thanh.electronicstore.service.DealService;
+import com.thanh.electronicstore.service.ProductService;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+@SpringBootTest
+@ActiveProfiles("integration")
+class ReceiptCacheIT {
+
+  @Autowired private BasketService basketService;
+
+  @Autowired private ProductService productService;
+
+  @Autowired private DealService dealService;
+
+  @Autowired private ProductRepository productRepository;
+
+  @Autowired private BasketRepository basketRepository;
+
+  @Autowired private BasketItemRepository basketItemRepository;
+
+  @Autowired private MeterRegistry meterRegistry;
+
+  private Product product;
+
+  @BeforeEach
+  void setUp() {
+    basketItemRepository.deleteAll();
+    basketRepository.deleteAll();
+    productRepository.deleteAll();
+
+    product =
+        productRepository.save(
+            Product.builder()
+                .name("Kindle")
+                .category(ProductCategory.TABLET)
+                .price(BigDecimal.valueOf(200))
+                .stock(100)
+                .available(true)
+                .build());
+  }
+
+  @Test
+  void shouldServeUnchangedBasketFromCache() {
+    String basketId = basketWith(2);
+    double hits = receiptGets("hit");
+
+    ReceiptDTO first = basketService.calculateReceipt(basketId);
+    ReceiptDTO second = basketService.calculateReceipt(basketId);
+
+    assertThat(second).isSameAs(first);
+    assertThat(receiptGets("hit")).isEqualTo(hits + 1);
+  }
+
+  @Test
+  void basketMutationShouldInvalidateReceipt() {
+    String basketId = basketWith(2);
+    assertThat(basketService.calculateReceipt(basketId).getTotalPrice().toBigDecimal())
+        .isEqualByComparingTo("400");
+
+    basketService.addBasketItems(basketId, List.of(line(1)));
+
+    assertThat(basketService.calculateReceipt(basketId).getTotalPrice().toBigDecimal())
+        .isEqualByComparingTo("600");
+  }
+
+  @Test
+  void dealOnContainedProductShouldInvalidateReceipt() {
+    String basketId = basketWith(2);
+    assertThat(basketService.calculateReceipt(basketId).getTotalPrice().toBigDecimal())
+        .isEqualByComparingTo("400");
+
+    productService.addDeals(
+        List.of(
+            DealDTO.builder()
+                .description("50% off")
+                .type("PERCENTAGE_DISCOUNT")
+                .expiration(LocalDateTime.now().plusDays(1).toString())
+                .discountValue(BigDecimal.valueOf(50))
+                .build()),
+        product.getId().toString());
+
+    assertThat(basketService.calculateReceipt(basketId).getTotalPrice().toBigDecimal())
+        .isEqualByComparingTo("200");
+  }
+
+  @Test
+  void dealShouldStopApplyingAtItsExpiration() throws InterruptedException {
+    String basketId = basketWith(2);
+    LocalDateTime expiration = LocalDateTime.now().plusSeconds(1);
+    productService.addDeals(List.of(halfOff(expiration)), product.getId().toString());
+    assertThat(basketService.calculateReceipt(basketId).getTotalPrice().toBigDecimal())
+        .isEqualByComparingTo("200");
+
+    Thread.sleep(Duration.between(LocalDateTime.now(), expiration).toMillis() + 200);
+
+    assertThat(basketService.calculateReceipt(basketId).getTotalPrice().toBigDecimal())
+        .isEqualByComparingTo("400");
+  }
+
+  @Test
+  void dealShouldStartApplyingAtItsStart() throws InterruptedException {
+    String basketId = basketWith(2);
+    LocalDateTime start = LocalDateTime.now().plusSeconds(1);
+    DealDTO deal = halfOff(start.plusDays(1));
+    deal.setStartsAt(start.toString());
+    productService.addDeals(List.of(deal), product.getId().toString());
+    assertThat(basketService.calculateReceipt(basketId).getTotalPrice().toBigDecimal())
+        .isEqualByComparingTo("400");
+
+    Thread.sleep(Duration.between(LocalDateTime.now(), start).toMillis() + 200);
+
+    assertThat(basketService.calculateReceipt(basketId).getTotalPrice().toBigDecimal())
+        .isEqualByComparingTo("200");
+  }
+
+  @Test
+  void expiringDealThroughUpdateShouldDropItFromReceipt() {
+    String basketId = basketWith(2);
+    String dealId =
+        productService
+            .addDeals(List.of(halfOff(LocalDateTime.now().plusDays(1))), product.getId().toString())
+            .getDeals()
+            .get(0)
+            .getId();
+    assertThat(basketService.calculateReceipt(basketId).getTotalPrice().toBigDecimal())
+        .isEqualByComparingTo("200");
+
+    dealService.updateDeal(dealId, halfOff(LocalDateTime.now().minusMinutes(1)));
+
+    assertThat(basketService.calculateReceipt(basketId).getTotalPrice().toBigDecimal())
+        .isEqualByComparingTo("400");
+  }
+
+  @Test
+  void basketTotalsShouldFollowMutations() {
+    String basketId = basketWith(2);
+    BasketDTO added = basketService.addBasketItems(basketId, List.of(line(3)));
+    assertThat(storedBasket(basketId).getTotal().toBigDecimal()).isEqualByComparingTo("1000");
+
+    String firstLine =
+        added.getBasketItems().stream()
+            .filter(item -> item.getQuantity() == 2)
+            .findFirst()
+            .orElseThrow()
+            .getId();
+    basketService.removeBasketItems(basketId, List.of(firstLine));
+
+    Basket basket = storedBasket(basketId);
+    assertThat(basket.isPricesStale()).isFalse();
+    assertThat(basket.getSubtotal().toBigDecimal()).isEqualByComparingTo("600");
+    assertThat(basket.getTotal().toBigDecimal()).isEqualByComparingTo("600");
+    assertThat(basketService.calculateReceipt(basketId).getTotalPrice().toBigDecimal())
+        .isEqualByComparingTo("600");
+  }
+
+  @Test
+  void dealChangeShouldFlagBasketUntilItsReceiptIsRead() {
+    String basketId = basketWith(2);
+    long version = storedBasket(basketId).getVersion();
+
+    productService.addDeals(
+        List.of(halfOff(LocalDateTime.now().plusDays(1))), product.getId().toString());
+
+    Basket flagged = storedBasket(basketId);
+    assertThat(flagged.isPricesStale()).isTrue();
+    assertThat(flagged.getVersion()).isGreaterThan(version);
+    assertThat(flagged.getTotal().toBigDecimal()).isEqualByComparingTo("400");
+
+    assertThat(basketService.calculateReceipt(basketId).getTotalPrice().toBigDecimal())
+        .isEqualByComparingTo("200");
+    Basket repriced = storedBasket(basketId);
+    assertThat(repriced.isPricesStale()).isFalse();
+    assertThat(repriced.getTotal().toBigDecimal()).isEqualByComparingTo("200");
+    assertThat(repriced.getDiscountTotal().toBigDecimal()).isEqualByComparingTo("200");
+  }
+
+  private Basket storedBasket(String basketId) {
+    return basketRepository.findById(UUID.fromString(basketId)).orElseThrow();
+  }
+
+  private static DealDTO halfOff(LocalDateTime expiration) {
+    return DealDTO.builder()
+        .description("50% off")
+        .type("PERCENTAGE_DISCOUNT")
+        .expiration(expiration.toString())
+        .discountValue(BigDecimal.valueOf(50))
+        .build();
+  }
+
+  private double receiptGets(String result) {
+    return meterRegistry
+        .get("cache.gets")
+        .tags("cache", "receipts", "result", result)
+        .functionCounter()
+        .count();
+  }
+
+  private String basketWith(int quantity) {
+    return basketService
+        .createBasket(BasketDTO.builder().basketItems(List.of(line(quantity))).build())
+        .getId();
+  }
+
+  private BasketItemDTO line(int quantity) {
+    return BasketItemDTO.builder().productId(product.getId().toString()).quantity(quantity).build();
+  }
+}
@@ -0,0 +1,203 @@
+package com.thanh.electronicstore.integrationTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.thanh.electronicstore.dto.BasketDTO;
+import com.thanh.electronicstore.dto.BasketItemDTO;
+import com.thanh.electronicstore.dto.DealDTO;
+import com.thanh.electronicstore.dto.ReceiptDTO;
+import com.thanh.electronicstore.dto.ReceiptItemDTO;
+import com.thanh.electronicstore.model.Deal;
+import com.thanh.electronicstore.model.DealType;
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.model.ProductCategory;
+import com.thanh.electronicstore.repository.BasketItemRepository;
+import com.thanh.electronicstore.repository.BasketRepository;
+import com.thanh.electronicstore.repository.DealRepository;
+import com.thanh.electronicstore.repository.ProductRepository;
+import com.thanh.electronicstore.service.ActiveDealIndex;
+import com.thanh.electronicstore.service.BasketService;
+import com.thanh.electronicstore.service.PricingEngine;
+import com.thanh.electronicstore.service.ProductService;
+import com.thanh.electronicstore.service.ReceiptStrategy;
+import com.thanh.electronicstore.service.SqlReceiptStrategy;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest(properties = "store.receipt.mode=sql")
+@ActiveProfiles("integration")
+class SqlReceiptIT {
+
+  private static final Comparator<ReceiptItemDTO> LINE_ORDER =
+      Comparator.comparing(ReceiptItemDTO::getProductName)
+          .thenComparing(ReceiptItemDTO::getQuantity)
+          .thenComparing(ReceiptItemDTO::getFinalPrice);
+
+  @Autowired private BasketService basketService;
+
+  @Autowired private ProductService productService;
+
+  @Autowired private PricingEngine pricingEngine;
+
+  @Autowired private ActiveDealIndex activeDealIndex;
+
+  @Autowired private ReceiptStrategy receiptStrategy;
+
+  @Autowired private ProductRepository productRepository;
+
+  @Autowired private DealRepository dealRepository;
+
+  @Autowired private BasketRepository basketRepository;
+
+  @Autowired private BasketItemRepository basketItemRepository;
+
+  @Autowired private TransactionTemplate transactionTemplate;
+
+  @BeforeEach
+  void setUp() {
+    basketItemRepository.deleteAll();
+    basketRepository.deleteAll();
+    productRepository.deleteAll();
+    dealRepository.deleteAll();
+  }
+
+  @Test
+  void shouldBeSelectedByConfiguration() {
+    assertThat(receiptStrategy).isInstanceOf(SqlReceiptStrategy.class);
+  }
+
+  @Test
+  void shouldMatchJavaPricingOnRandomBaskets() {
+    Random random = new Random(20);
+    List<Product> products = new ArrayList<>();
+    for (int i = 0; i < 40; i++) {
+      products.add(randomProduct(random, i));
+    }
+
+    int discountedLines = 0;
+    for (int basket = 0; basket < 25; basket++) {
+      List<BasketItemDTO> lines = new ArrayList<>();
+      int size = random.nextInt(8);
+      for (int line = 0; line < size; line++) {
+        lines.add(
+            BasketItemDTO.builder()
+                .productId(products.get(random.nextInt(products.size())).getId().toString())
+                .quantity(1 + random.nextInt(20))
+                .build());
+      }
+      String basketId =
+          basketService.createBasket(BasketDTO.builder().basketItems(lines).build()).getId();
+
+      ReceiptDTO sql = basketService.calculateReceipt(basketId);
+      ReceiptDTO java = priceInJava(basketId);
+
+      assertThat(sql.getBasketId()).isEqualTo(basketId);
+      assertThat(sql.getTotalPrice()).isEqualTo(java.getTotalPrice());
+      assertThat(sorted(sql.getItems())).isEqualTo(sorted(java.getItems()));
+      discountedLines +=
+          (int) sql.getItems().stream().filter(item -> item.getDiscount().minorUnits() > 0).count();
+    }
+    assertThat(discountedLines).isPositive();
+  }
+
+  @Test
+  void dealChangeShouldReachSqlReceipt() {
+    Product product = randomProduct(new Random(7), 0);
+    product.setPrice(new BigDecimal("200.00"));
+    product = productRepository.save(product);
+    activeDealIndex.refresh(product.getId());
+    String basketId =
+        basketService
+            .createBasket(
+                BasketDTO.builder()
+                    .basketItems(
+                        List.of(
+                            BasketItemDTO.builder()
+                                .productId(product.getId().toString())
+                                .quantity(2)
+                                .build()))
+                    .build())
+            .getId();
+    BigDecimal before = basketService.calculateReceipt(basketId).getTotalPrice().toBigDecimal();
+
+    productService.addDeals(
+        List.of(
+            DealDTO.builder()
+                .description("10 off")
+                .type("FIXED_AMOUNT_DISCOUNT")
+                .expiration(LocalDateTime.now().plusDays(1).toString())
+                .discountValue(BigDecimal.TEN)
+                .build()),
+        product.getId().toString());
+
+    assertThat(basketService.calculateReceipt(basketId).getTotalPrice().toBigDecimal())
+        .isEqualByComparingTo(before.subtract(BigDecimal.valueOf(20)));
+    assertThat(basketService.calculateReceipt(basketId).getTotalPrice())
+        .isEqualTo(priceInJava(basketId).getTotalPrice());
+  }
+
+  /** A product with up to three deals, some of which have not started or have expired. */
+  private Product randomProduct(Random random, int index) {
+    LocalDateTime now = LocalDateTime.now();
+    List<Deal> deals = new ArrayList<>();
+    int dealCount = random.nextInt(4);
+    for (int i = 0; i < dealCount; i++) {
+      boolean percentage = random.nextBoolean();
+      LocalDateTime startsAt =
+          switch (random.nextInt(3)) {
+            case 0 -> null;
+            case 1 -> now.minusDays(1);
+            default -> now.plusDays(1);
+          };
+      LocalDateTime expiration = random.nextInt(4) == 0 ? now.minusHours(1) : now.plusDays(2);
+      deals.add(
+          Deal.builder()
+              .description("deal " + i)
+              .type(percentage ? DealType.PERCENTAGE_DISCOUNT : DealType.FIXED_AMOUNT_DISCOUNT)
+              .discountValue(
+                  percentage
+                      ? BigDecimal.valueOf(random.nextInt(10001), 2)
+                      : BigDecimal.valueOf(random.nextInt(50000), 2))
+              .startsAt(startsAt)
+              .expiration(expiration)
+              .build());
+    }
+    Product product =
+        productRepository.save(
+            Product.builder()
+                .name("Product " + index)
+                .category(ProductCategory.TABLET)
+                .price(BigDecimal.valueOf(1 + random.nextInt(200000), 2))
+                .stock(10_000)
+                .available(true)
+                .deals(deals)
+                .build());
+    activeDealIndex.refresh(product.getId());
+    return product;
+  }
+
+  /** The receipt as the in-memory pricing engine computes it from the basket graph. */
+  private ReceiptDTO priceInJava(String basketId) {
+    return transactionTemplate.execute(
+        status ->
+            pricingEngine.price(
+                basketRepository
+                    .findWithItemsAndProductsById(UUID.fromString(basketId))
+                    .orElseThrow()));
+  }
+
+  private static List<ReceiptItemDTO> sorted(List<ReceiptItemDTO> items) {
+    return items.stream().sorted(LINE_ORDER).toList();
+  }
+}
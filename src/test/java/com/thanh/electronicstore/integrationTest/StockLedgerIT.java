@@ -0,0 +1,142 @@
+package com.thanh.electronicstore.integrationTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.thanh.electronicstore.dto.BasketDTO;
+import com.thanh.electronicstore.dto.BasketItemDTO;
+import com.thanh.electronicstore.model.BasketItem;
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.model.ProductCategory;
+import com.thanh.electronicstore.repository.BasketItemRepository;
+import com.thanh.electronicstore.repository.BasketRepository;
+import com.thanh.electronicstore.repository.ProductRepository;
+import com.thanh.electronicstore.service.BasketService;
+import com.thanh.electronicstore.service.LedgerStockReservationStrategy;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@SpringBootTest(
+    properties = {
+      "store.stock.ledger.enabled=true",
+      "store.stock.ledger.flush-interval-ms=3600000"
+    })
+@ActiveProfiles("integration")
+class StockLedgerIT {
+
+  @Autowired private BasketService basketService;
+
+  @Autowired private LedgerStockReservationStrategy ledgerStrategy;
+
+  @Autowired private ProductRepository productRepository;
+
+  @Autowired private BasketRepository basketRepository;
+
+  @Autowired private BasketItemRepository basketItemRepository;
+
+  @Autowired private TransactionTemplate transactionTemplate;
+
+  @Autowired private ApplicationEventPublisher eventPublisher;
+
+  private Product product;
+
+  @BeforeEach
+  void setUp() {
+    basketItemRepository.deleteAll();
+    basketRepository.deleteAll();
+    productRepository.deleteAll();
+
+    product =
+        productRepository.save(
+            Product.builder()
+                .name("ThinkPad X1")
+                .category(ProductCategory.LAPTOP)
+                .price(BigDecimal.valueOf(1799))
+                .stock(10)
+                .available(true)
+                .build());
+  }
+
+  @Test
+  void shouldReserveInMemoryAndWriteBehindToTheProductRow() {
+    BasketDTO basket = createBasket(3);
+
+    assertThat(basket.getBasketItems()).hasSize(1);
+    assertThat(ledgerStrategy.availableStock(product.getId())).isEqualTo(7);
+    assertThat(stockInDatabase()).isEqualTo(10);
+
+    ledgerStrategy.flush();
+
+    assertThat(stockInDatabase()).isEqualTo(7);
+    assertThat(basketItemRepository.findAll()).allMatch(BasketItem::isStockApplied);
+  }
+
+  @Test
+  void shouldRejectReservationsBeyondTheLedger() {
+    createBasket(8);
+    BasketDTO second = createBasket(3);
+
+    assertThat(second.getBasketItems()).isEmpty();
+    assertThat(ledgerStrategy.availableStock(product.getId())).isEqualTo(2);
+  }
+
+  @Test
+  void shouldRestoreStockOfAppliedAndUnappliedItemsOnRemoval() {
+    BasketDTO applied = createBasket(2);
+    ledgerStrategy.flush();
+    BasketDTO unapplied = createBasket(3);
+
+    basketService.removeBasketItems(applied.getId(), itemIds(applied));
+    basketService.removeBasketItems(unapplied.getId(), itemIds(unapplied));
+    ledgerStrategy.flush();
+
+    assertThat(ledgerStrategy.availableStock(product.getId())).isEqualTo(10);
+    assertThat(stockInDatabase()).isEqualTo(10);
+  }
+
+  @Test
+  void shouldRebuildLedgerFromUnappliedBasketItems() {
+    createBasket(2);
+    ledgerStrategy.flush();
+    createBasket(4);
+
+    LedgerStockReservationStrategy restarted =
+        new LedgerStockReservationStrategy(
+            productRepository,
+            basketItemRepository,
+            transactionTemplate,
+            eventPublisher,
+            8,
+            500);
+    restarted.rebuild();
+
+    assertThat(stockInDatabase()).isEqualTo(8);
+    assertThat(restarted.availableStock(product.getId())).isEqualTo(4);
+  }
+
+  private BasketDTO createBasket(int quantity) {
+    return basketService.createBasket(
+        BasketDTO.builder()
+            .basketItems(
+                List.of(
+                    BasketItemDTO.builder()
+                        .productId(product.getId().toString())
+                        .quantity(quantity)
+                        .build()))
+            .build());
+  }
+
+  private List<String> itemIds(BasketDTO basket) {
+    return basket.getBasketItems().stream().map(BasketItemDTO::getId).toList();
+  }
+
+  private int stockInDatabase() {
+    return productRepository.findById(product.getId()).orElseThrow().getStock();
+  }
+}
@@ -0,0 +1,63 @@
+package com.thanh.electronicstore.test.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.thanh.electronicstore.repository.ConditionalBatch;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+class ConditionalBatchTest {
+
+  private final Connection connection = mock(Connection.class);
+  private final PreparedStatement statement = mock(PreparedStatement.class);
+  private final Savepoint savepoint = mock(Savepoint.class);
+  private ConditionalBatch batch;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    DataSource dataSource = mock(DataSource.class);
+    when(dataSource.getConnection()).thenReturn(connection);
+    when(connection.prepareStatement(anyString())).thenReturn(statement);
+    when(connection.setSavepoint()).thenReturn(savepoint);
+    batch = new ConditionalBatch(new JdbcTemplate(dataSource), "UPDATE t SET x = 1 WHERE id = ?");
+  }
+
+  @Test
+  void shouldReadCountsOfTheBatch() throws Exception {
+    when(statement.executeBatch()).thenReturn(new int[] {1, 0});
+
+    boolean[] matched = batch.execute(List.of(new Object[] {1}, new Object[] {2}));
+
+    assertThat(matched).containsExactly(true, false);
+    verify(connection, never()).rollback(savepoint);
+    verify(statement, never()).executeUpdate();
+  }
+
+  @Test
+  void shouldRunRowsOneByOneWhenDriverReportsNoCounts() throws Exception {
+    when(statement.executeBatch())
+        .thenReturn(new int[] {Statement.SUCCESS_NO_INFO, Statement.SUCCESS_NO_INFO});
+    when(statement.executeUpdate()).thenReturn(1, 0, 0, 1);
+
+    boolean[] first = batch.execute(List.of(new Object[] {1}, new Object[] {2}));
+    boolean[] second = batch.execute(List.of(new Object[] {3}, new Object[] {4}));
+
+    assertThat(first).containsExactly(true, false);
+    assertThat(second).containsExactly(false, true);
+    verify(connection).rollback(savepoint);
+    // Once the driver is known to hide counts, the batch is no longer tried.
+    verify(statement).executeBatch();
+  }
+}
@@ -0,0 +1,106 @@
+package com.thanh.electronicstore.test.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.thanh.electronicstore.model.DealType;
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.repository.DealRepository;
+import com.thanh.electronicstore.service.ActiveDeal;
+import com.thanh.electronicstore.service.ActiveDealIndex;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class ActiveDealIndexTest {
+
+  private final Clock clock = Clock.fixed(Instant.parse("2025-01-01T00:00:00Z"), ZoneOffset.UTC);
+  private final DealRepository dealRepository = mock(DealRepository.class);
+  private final ActiveDealIndex index = new ActiveDealIndex(dealRepository, clock);
+  private static final BigDecimal PRICE = new BigDecimal("19.99");
+
+  private final UUID productId = UUID.randomUUID();
+
+  @Test
+  void liveDealsShouldBeSortedByExpiration() {
+    ActiveDeal early = deal(now().plusSeconds(10));
+    ActiveDeal late = deal(now().plusSeconds(20));
+    ActiveDeal forever = deal(null);
+    index.replace(productId, PRICE, List.of(forever, late, early));
+
+    assertThat(index.liveDeals(productId)).containsExactly(early, late, forever);
+    assertThat(index.liveDeals(UUID.randomUUID())).isEmpty();
+  }
+
+  @Test
+  void refreshShouldOnlyLoadDealsLiveAtTheCurrentTime() {
+    index.refresh(productId);
+
+    verify(dealRepository).findLiveDealsByProductId(productId, now());
+    assertThat(index.liveDeals(productId)).isEmpty();
+    assertThat(index.size()).isEqualTo(1);
+  }
+
+  @Test
+  void refreshShouldReplaceTheDealsOfTheProduct() {
+    index.replace(productId, PRICE, List.of(deal(now().plusSeconds(10))));
+    UUID dealId = UUID.randomUUID();
+    DealRepository.LiveDeal row = mock(DealRepository.LiveDeal.class);
+    when(row.getProductId()).thenReturn(productId);
+    when(row.getUnitPrice()).thenReturn(PRICE);
+    when(row.getDealId()).thenReturn(dealId);
+    when(row.getType()).thenReturn(DealType.FIXED_AMOUNT_DISCOUNT);
+    when(row.getDiscountValue()).thenReturn(BigDecimal.ONE);
+    when(dealRepository.findLiveDealsByProductId(eq(productId), any())).thenReturn(List.of(row));
+
+    index.refresh(productId);
+
+    assertThat(index.liveDeals(productId)).extracting(ActiveDeal::id).containsExactly(dealId);
+  }
+
+  @Test
+  void effectivePriceShouldFollowLiveDealsAndCurrentPrice() {
+    Product product = Product.builder().id(productId).price(PRICE).build();
+    index.replace(
+        productId,
+        PRICE,
+        List.of(
+            deal(now().plusSeconds(10)),
+            ActiveDeal.of(
+                UUID.randomUUID(), DealType.FIXED_AMOUNT_DISCOUNT, new BigDecimal("2.50"), null)));
+
+    // 10% of 59.97 rounded, plus 3 x 2.50.
+    assertThat(index.effectivePrice(product).discountCents(3)).isEqualTo(600 + 750);
+
+    // A price other than the one loaded is priced from the live deals directly.
+    product.setPrice(new BigDecimal("10.00"));
+    assertThat(index.effectivePrice(product).discountCents(3)).isEqualTo(300 + 750);
+  }
+
+  @Test
+  void valueWithoutScaledFormShouldBeMarkedInexact() {
+    ActiveDeal deal =
+        ActiveDeal.of(
+            UUID.randomUUID(), DealType.FIXED_AMOUNT_DISCOUNT, new BigDecimal("0.123456"), null);
+
+    assertThat(deal.exact()).isFalse();
+  }
+
+  private LocalDateTime now() {
+    return LocalDateTime.now(clock);
+  }
+
+  private static ActiveDeal deal(LocalDateTime expiration) {
+    return ActiveDeal.of(
+        UUID.randomUUID(), DealType.PERCENTAGE_DISCOUNT, BigDecimal.TEN, expiration);
+  }
+}
@@ -0,0 +1,88 @@
+package com.thanh.electronicstore.test.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.thanh.electronicstore.service.BasketExpiryIndex;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class BasketExpiryIndexTest {
+
+  private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+  private final BasketExpiryIndex index = new BasketExpiryIndex(clock, 1_000);
+
+  @Test
+  void shouldReturnBasketsOnlyOnceTheirDeadlinePassed() {
+    UUID early = UUID.randomUUID();
+    UUID late = UUID.randomUUID();
+    index.schedule(early, clock.instant().plusSeconds(10));
+    index.schedule(late, clock.instant().plusSeconds(20));
+
+    clock.advance(Duration.ofSeconds(9));
+    assertThat(index.pollDue()).isEmpty();
+
+    clock.advance(Duration.ofSeconds(1));
+    assertThat(index.pollDue()).containsExactly(early);
+
+    clock.advance(Duration.ofSeconds(10));
+    assertThat(index.pollDue()).containsExactly(late);
+    assertThat(index.size()).isZero();
+  }
+
+  @Test
+  void rescheduleShouldReplaceEarlierDeadline() {
+    UUID basketId = UUID.randomUUID();
+    index.schedule(basketId, clock.instant().plusSeconds(10));
+    index.schedule(basketId, clock.instant().plusSeconds(30));
+
+    clock.advance(Duration.ofSeconds(10));
+    assertThat(index.pollDue()).isEmpty();
+    assertThat(index.size()).isEqualTo(1);
+
+    clock.advance(Duration.ofSeconds(20));
+    assertThat(index.pollDue()).containsExactly(basketId);
+  }
+
+  @Test
+  void pastDeadlineShouldBeDueOnNextBucket() {
+    UUID basketId = UUID.randomUUID();
+    index.schedule(basketId, clock.instant().minusSeconds(60));
+
+    assertThat(index.pollDue()).isEmpty();
+
+    clock.advance(Duration.ofSeconds(1));
+    assertThat(index.pollDue()).containsExactly(basketId);
+  }
+
+  private static class MutableClock extends Clock {
+    private Instant now;
+
+    MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
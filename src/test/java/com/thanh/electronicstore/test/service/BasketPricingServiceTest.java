@@ -0,0 +1,96 @@
+package com.thanh.electronicstore.test.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.thanh.electronicstore.dto.ReceiptDTO;
+import com.thanh.electronicstore.model.Basket;
+import com.thanh.electronicstore.model.BasketItem;
+import com.thanh.electronicstore.model.DealType;
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.repository.BasketRepository;
+import com.thanh.electronicstore.repository.DealRepository;
+import com.thanh.electronicstore.service.ActiveDeal;
+import com.thanh.electronicstore.service.ActiveDealIndex;
+import com.thanh.electronicstore.service.BasketPricingService;
+import com.thanh.electronicstore.service.DealCalculatorService;
+import com.thanh.electronicstore.service.PricingEngine;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class BasketPricingServiceTest {
+
+  private final Clock clock = Clock.systemDefaultZone();
+  private final ActiveDealIndex activeDealIndex =
+      new ActiveDealIndex(mock(DealRepository.class), clock);
+  private final BasketPricingService basketPricingService =
+      new BasketPricingService(
+          mock(BasketRepository.class),
+          new PricingEngine(new DealCalculatorService(), activeDealIndex),
+          mock(PlatformTransactionManager.class));
+
+  @Test
+  void totalsShouldFollowAddedAndRemovedLines() {
+    Product laptop = product("Laptop", "1000");
+    Product mouse = product("Mouse", "20");
+    LocalDateTime expiration = LocalDateTime.now(clock).plusDays(1);
+    activeDealIndex.replace(
+        laptop.getId(),
+        laptop.getPrice(),
+        List.of(
+            ActiveDeal.of(
+                UUID.randomUUID(), DealType.PERCENTAGE_DISCOUNT, BigDecimal.TEN, expiration)));
+    Basket basket = Basket.builder().id(UUID.randomUUID()).build();
+    BasketItem laptops = line(basket, laptop, 2);
+    BasketItem mice = line(basket, mouse, 3);
+
+    basket.getBasketItems().add(laptops);
+    basketPricingService.repriceAll(basket);
+    basket.getBasketItems().add(mice);
+    basketPricingService.addLines(basket, List.of(mice));
+
+    assertThat(basket.isPricesStale()).isFalse();
+    assertThat(basket.getSubtotal().toBigDecimal()).isEqualByComparingTo("2060");
+    assertThat(basket.getDiscountTotal().toBigDecimal()).isEqualByComparingTo("200");
+    assertThat(basket.getTotal().toBigDecimal()).isEqualByComparingTo("1860");
+    assertThat(mice.getFinalPrice().toBigDecimal()).isEqualByComparingTo("60");
+
+    basket.getBasketItems().remove(laptops);
+    basketPricingService.removeLines(basket, List.of(laptops));
+
+    assertThat(basket.getSubtotal().toBigDecimal()).isEqualByComparingTo("60");
+    assertThat(basket.getDiscountTotal().toBigDecimal()).isEqualByComparingTo("0");
+    assertThat(basket.getTotal().toBigDecimal()).isEqualByComparingTo("60");
+    ReceiptDTO receipt = basketPricingService.storedReceipt(basket);
+    assertThat(receipt.getItems()).hasSize(1);
+    assertThat(receipt.getTotalPrice().toBigDecimal()).isEqualByComparingTo("60");
+  }
+
+  @Test
+  void removingAnUnpricedLineShouldFlagTheBasket() {
+    Basket basket = Basket.builder().id(UUID.randomUUID()).pricesStale(false).build();
+
+    basketPricingService.removeLines(basket, List.of(line(basket, product("TV", "300"), 1)));
+
+    assertThat(basket.isPricesStale()).isTrue();
+    assertThat(basketPricingService.isCurrent(basket)).isFalse();
+  }
+
+  private static Product product(String name, String price) {
+    return Product.builder().id(UUID.randomUUID()).name(name).price(new BigDecimal(price)).build();
+  }
+
+  private static BasketItem line(Basket basket, Product product, int quantity) {
+    return BasketItem.builder()
+        .id(UUID.randomUUID())
+        .basket(basket)
+        .product(product)
+        .quantity(quantity)
+        .build();
+  }
+}
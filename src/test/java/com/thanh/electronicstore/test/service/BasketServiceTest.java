@@ -3,13 +3,15 @@ package com.thanh.electronicstore.test.service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-import com.thanh.electronicstore.dto.BasketDTO;
 import com.thanh.electronicstore.dto.BasketItemDTO;
 import com.thanh.electronicstore.exception.BasketAlreadyCheckedOutException;
+import com.thanh.electronicstore.exception.BasketExpiredException;
 import com.thanh.electronicstore.model.Basket;
 import com.thanh.electronicstore.model.BasketItem;
 import com.thanh.electronicstore.model.BasketStatus;
@@ -17,11 +19,17 @@ import com.thanh.electronicstore.model.Product;
 import com.thanh.electronicstore.repository.BasketItemRepository;
 import com.thanh.electronicstore.repository.BasketRepository;
 import com.thanh.electronicstore.repository.ProductRepository;
+import com.thanh.electronicstore.service.BasketExpiryService;
+import com.thanh.electronicstore.service.BasketPricingService;
 import com.thanh.electronicstore.service.BasketService;
 import com.thanh.electronicstore.service.ProductService;
+import com.thanh.electronicstore.service.ReceiptCache;
+import com.thanh.electronicstore.service.ReceiptStrategy;
+import com.thanh.electronicstore.service.StockReservationStrategy;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -36,6 +44,11 @@ class BasketServiceTest {
   @Mock private BasketItemRepository basketItemRepository;
   @Mock private ProductService productService;
   @Mock private ProductRepository productRepository;
+  @Mock private StockReservationStrategy stockReservationStrategy;
+  @Mock private BasketExpiryService basketExpiryService;
+  @Mock private ReceiptCache receiptCache;
+  @Mock private BasketPricingService basketPricingService;
+  @Mock private ReceiptStrategy receiptStrategy;
 
   @InjectMocks private BasketService basketService;
 
@@ -61,8 +74,9 @@ class BasketServiceTest {
             .quantity(2)
             .build();
 
-    when(basketRepository.findById(basketId)).thenReturn(Optional.of(basket));
-    when(productService.getProductEntityById(productId.toString())).thenReturn(product);
+    when(basketRepository.findForUpdateById(basketId)).thenReturn(Optional.of(basket));
+    when(productService.getAllProductByIds(List.of(productId))).thenReturn(List.of(product));
+    when(stockReservationStrategy.reserve(anyList())).thenReturn(new boolean[] {true});
     when(basketRepository.saveAndFlush(any(Basket.class)))
         .thenAnswer(
             invocation -> {
@@ -77,7 +91,13 @@ class BasketServiceTest {
     basketService.addBasketItems(basketId.toString(), List.of(basketItemDTO));
 
     // Assert
-    assertEquals(8, product.getStock());
+    verify(stockReservationStrategy)
+        .reserve(
+            argThat(
+                items ->
+                    items.size() == 1
+                        && items.get(0).getProduct() == product
+                        && items.get(0).getQuantity() == 2));
     assertEquals(1, basket.getBasketItems().size());
   }
 
@@ -102,13 +122,14 @@ class BasketServiceTest {
             .quantity(2)
             .build();
 
-    when(basketRepository.findById(basketId)).thenReturn(Optional.of(basket));
-    when(productService.getProductEntityById(String.valueOf(productId))).thenReturn(product);
+    when(basketRepository.findForUpdateById(basketId)).thenReturn(Optional.of(basket));
+    when(productService.getAllProductByIds(List.of(productId))).thenReturn(List.of(product));
+    when(stockReservationStrategy.reserve(anyList())).thenReturn(new boolean[] {false});
     when(basketRepository.saveAndFlush(any(Basket.class))).thenReturn(basket);
 
     basketService.addBasketItems(basketId.toString(), List.of(basketItemDTO));
 
-    assertEquals(1, product.getStock());
+    assertEquals(0, basket.getBasketItems().size());
   }
 
   @Test
@@ -129,7 +150,7 @@ class BasketServiceTest {
             .quantity(1)
             .build();
 
-    when(basketRepository.findById(basketId)).thenReturn(Optional.of(basket));
+    when(basketRepository.findForUpdateById(basketId)).thenReturn(Optional.of(basket));
 
     RuntimeException exception =
         assertThrows(
@@ -143,6 +164,28 @@ class BasketServiceTest {
     verify(basketRepository, never()).save(any());
   }
 
+  @Test
+  void shouldFailWhenModifyingExpiredBasket() {
+    UUID basketId = UUID.randomUUID();
+
+    Basket basket =
+        Basket.builder()
+            .id(basketId)
+            .status(BasketStatus.EXPIRED)
+            .basketItems(new ArrayList<>())
+            .build();
+
+    BasketItemDTO basketItemDTO =
+        BasketItemDTO.builder().productId(UUID.randomUUID().toString()).quantity(1).build();
+
+    when(basketRepository.findForUpdateById(basketId)).thenReturn(Optional.of(basket));
+
+    assertThrows(
+        BasketExpiredException.class,
+        () -> basketService.addBasketItems(basketId.toString(), List.of(basketItemDTO)));
+    verify(stockReservationStrategy, never()).reserve(anyList());
+  }
+
   @Test
   void shouldRollbackAllChangesOnFailure() {
     UUID basketId = UUID.randomUUID();
@@ -174,9 +217,10 @@ class BasketServiceTest {
             .quantity(5) // Insufficient stock
             .build();
 
-    when(basketRepository.findById(basketId)).thenReturn(Optional.of(basket));
-    when(productService.getProductEntityById(String.valueOf(product1Id))).thenReturn(product1);
-    when(productService.getProductEntityById(String.valueOf(product2Id))).thenReturn(product2);
+    when(basketRepository.findForUpdateById(basketId)).thenReturn(Optional.of(basket));
+    when(productService.getAllProductByIds(List.of(product1Id, product2Id)))
+        .thenReturn(List.of(product1, product2));
+    when(stockReservationStrategy.reserve(anyList())).thenReturn(new boolean[] {true, false});
     when(basketRepository.saveAndFlush(any(Basket.class)))
         .thenAnswer(
             invocation -> {
@@ -190,8 +234,8 @@ class BasketServiceTest {
             });
     basketService.addBasketItems(basketId.toString(), List.of(item1, item2));
 
-    assertEquals(8, product1.getStock());
-    assertEquals(1, product2.getStock());
+    assertEquals(1, basket.getBasketItems().size());
+    assertEquals(product1, basket.getBasketItems().get(0).getProduct());
   }
 
   @Test
@@ -213,26 +257,51 @@ class BasketServiceTest {
             .status(BasketStatus.ACTIVE)
             .basketItems(new ArrayList<>(List.of(item1, item2)))
             .build();
+    item1.setBasket(basket);
+    item2.setBasket(basket);
 
-    when(basketRepository.findById(basketId)).thenReturn(Optional.of(basket));
+    when(basketRepository.findForUpdateById(basketId)).thenReturn(Optional.of(basket));
+    when(basketItemRepository.findByBasketIdAndIdIn(basketId, Set.of(item1Id)))
+        .thenReturn(List.of(item1));
     when(basketRepository.save(any(Basket.class)))
-        .thenAnswer(
-            invocation -> {
-              Basket savedBasket = invocation.getArgument(0);
-              item2.setBasket(savedBasket);
-              return savedBasket;
-            });
+        .thenAnswer(invocation -> invocation.getArgument(0));
 
     // When
-    BasketDTO result =
-        basketService.removeBasketItems(basketId.toString(), List.of(item1Id.toString()));
+    basketService.removeBasketItems(
+        basketId.toString(), List.of(item1Id.toString(), item1Id.toString()));
 
     // Then
-    assertEquals(1, basket.getBasketItems().size());
-    assertEquals(item2Id, basket.getBasketItems().get(0).getId());
-    assertEquals(7, product.getStock());
+    verify(stockReservationStrategy).release(List.of(item1));
+    verify(basketItemRepository).deleteFromBasket(basketId, List.of(item1Id));
+    verify(basketExpiryService).touch(basket);
 
-    verify(basketRepository).findById(basketId);
+    verify(basketRepository).findForUpdateById(basketId);
     verify(basketRepository).save(any(Basket.class));
   }
+
+  @Test
+  void shouldSkipMalformedItemIdsWhenRemoving() {
+    UUID basketId = UUID.randomUUID();
+    UUID itemId = UUID.randomUUID();
+    Product product = Product.builder().id(UUID.randomUUID()).name("Product A").stock(5).build();
+    BasketItem item = BasketItem.builder().id(itemId).product(product).quantity(1).build();
+    Basket basket =
+        Basket.builder()
+            .id(basketId)
+            .status(BasketStatus.ACTIVE)
+            .basketItems(new ArrayList<>(List.of(item)))
+            .build();
+    item.setBasket(basket);
+
+    when(basketRepository.findForUpdateById(basketId)).thenReturn(Optional.of(basket));
+    when(basketItemRepository.findByBasketIdAndIdIn(basketId, Set.of(itemId)))
+        .thenReturn(List.of(item));
+    when(basketRepository.save(any(Basket.class)))
+        .thenAnswer(invocation -> invocation.getArgument(0));
+
+    basketService.removeBasketItems(basketId.toString(), List.of("not-a-uuid", itemId.toString()));
+
+    verify(stockReservationStrategy).release(List.of(item));
+    verify(basketItemRepository).deleteFromBasket(basketId, List.of(itemId));
+  }
 }
@@ -0,0 +1,75 @@
+package com.thanh.electronicstore.test.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.thanh.electronicstore.dto.ProductDTO;
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.model.ProductCategory;
+import com.thanh.electronicstore.repository.ProductRepository;
+import com.thanh.electronicstore.service.CatalogExportService;
+import jakarta.persistence.EntityManager;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class CatalogExportServiceTest {
+
+  private final ProductRepository productRepository = mock(ProductRepository.class);
+  private final EntityManager entityManager = mock(EntityManager.class);
+  private final CatalogExportService catalogExportService =
+      new CatalogExportService(
+          productRepository, entityManager, mock(PlatformTransactionManager.class), 2);
+
+  @Test
+  void shouldWriteProductsInStreamOrderOneChunkAtATime() {
+    Product first = product("First");
+    Product second = product("Second");
+    Product third = product("Third");
+    when(productRepository.streamAllIds())
+        .thenReturn(List.of(first.getId(), second.getId(), third.getId()).stream());
+    // Loaded out of order: the export keeps the order of the stream.
+    when(productRepository.findWithDealsByIdIn(List.of(first.getId(), second.getId())))
+        .thenReturn(List.of(second, first));
+    when(productRepository.findWithDealsByIdIn(List.of(third.getId()))).thenReturn(List.of(third));
+
+    List<ProductDTO> exported = new ArrayList<>();
+    catalogExportService.exportProducts(exported::add);
+
+    assertThat(exported)
+        .extracting(ProductDTO::getName)
+        .containsExactly("First", "Second", "Third");
+    verify(entityManager, times(2)).clear();
+  }
+
+  @Test
+  void shouldSkipProductsDeletedWhileStreaming() {
+    Product kept = product("Kept");
+    UUID deleted = UUID.randomUUID();
+    when(productRepository.streamAllIds()).thenReturn(List.of(kept.getId(), deleted).stream());
+    when(productRepository.findWithDealsByIdIn(List.of(kept.getId(), deleted)))
+        .thenReturn(List.of(kept));
+
+    List<ProductDTO> exported = new ArrayList<>();
+    catalogExportService.exportProducts(exported::add);
+
+    assertThat(exported).extracting(ProductDTO::getName).containsExactly("Kept");
+  }
+
+  private static Product product(String name) {
+    return Product.builder()
+        .id(UUID.randomUUID())
+        .name(name)
+        .category(ProductCategory.PHONE)
+        .price(BigDecimal.valueOf(100))
+        .stock(1)
+        .available(true)
+        .build();
+  }
+}
@@ -0,0 +1,169 @@
+package com.thanh.electronicstore.test.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.thanh.electronicstore.dto.ProductDTO;
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.model.ProductCategory;
+import com.thanh.electronicstore.repository.ProductRepository;
+import com.thanh.electronicstore.repository.ProductRepository.ProductStock;
+import com.thanh.electronicstore.service.CatalogSnapshot;
+import com.thanh.electronicstore.service.CatalogSnapshot.Catalog;
+import com.thanh.electronicstore.service.ProductChangedEvent;
+import com.thanh.electronicstore.service.StockChangedEvent;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class CatalogSnapshotTest {
+
+  private final ProductRepository productRepository = mock(ProductRepository.class);
+  private final CatalogSnapshot catalogSnapshot = new CatalogSnapshot(productRepository);
+
+  @Test
+  void shouldListProductsByName() {
+    Product tablet = product("Tablet", 5, 1);
+    Product laptop = product("Laptop", 3, 1);
+    when(productRepository.findAllWithDeals()).thenReturn(List.of(tablet, laptop));
+
+    catalogSnapshot.rebuild();
+
+    assertThat(catalogSnapshot.current().products())
+        .extracting(ProductDTO::getName)
+        .containsExactly("Laptop", "Tablet");
+    assertThat(catalogSnapshot.findDto(laptop.getId()).orElseThrow().getStock()).isEqualTo(3);
+    assertThat(catalogSnapshot.find(laptop.getId()).orElseThrow().getPrice())
+        .isEqualByComparingTo("100");
+  }
+
+  @Test
+  void productChangeShouldPublishNewCatalogAndLeaveOldOneIntact() {
+    Product laptop = product("Laptop", 3, 1);
+    when(productRepository.findAllWithDeals()).thenReturn(List.of(laptop));
+    catalogSnapshot.rebuild();
+    Catalog before = catalogSnapshot.current();
+
+    Product renamed = product("Laptop Pro", 3, 2);
+    renamed.setId(laptop.getId());
+    when(productRepository.findWithDealsById(laptop.getId())).thenReturn(Optional.of(renamed));
+    catalogSnapshot.onProductChanged(new ProductChangedEvent(laptop.getId()));
+
+    assertThat(catalogSnapshot.current().version()).isGreaterThan(before.version());
+    assertThat(catalogSnapshot.current().products())
+        .extracting(ProductDTO::getName)
+        .containsExactly("Laptop Pro");
+    assertThat(before.products()).extracting(ProductDTO::getName).containsExactly("Laptop");
+  }
+
+  @Test
+  void deletedProductShouldLeaveTheCatalog() {
+    Product laptop = product("Laptop", 3, 1);
+    when(productRepository.findAllWithDeals()).thenReturn(List.of(laptop));
+    catalogSnapshot.rebuild();
+
+    when(productRepository.findWithDealsById(laptop.getId())).thenReturn(Optional.empty());
+    catalogSnapshot.onProductChanged(new ProductChangedEvent(laptop.getId()));
+
+    assertThat(catalogSnapshot.current().products()).isEmpty();
+  }
+
+  @Test
+  void stockRefreshShouldOnlyReadMarkedProductsAndPublishWhenStockMoved() {
+    Product laptop = product("Laptop", 3, 1);
+    Product phone = product("Phone", 8, 1);
+    when(productRepository.findAllWithDeals()).thenReturn(List.of(laptop, phone));
+    catalogSnapshot.rebuild();
+    long version = catalogSnapshot.current().version();
+
+    catalogSnapshot.refreshStock();
+    verify(productRepository, never()).findStockByIdIn(any());
+
+    catalogSnapshot.onStockChanged(new StockChangedEvent(List.of(laptop.getId())));
+    when(productRepository.findStockByIdIn(List.of(laptop.getId())))
+        .thenReturn(List.of(stock(laptop.getId(), 1, 3)));
+    catalogSnapshot.refreshStock();
+    assertThat(catalogSnapshot.current().version()).isEqualTo(version);
+
+    catalogSnapshot.onStockChanged(new StockChangedEvent(List.of(laptop.getId())));
+    when(productRepository.findStockByIdIn(List.of(laptop.getId())))
+        .thenReturn(List.of(stock(laptop.getId(), 2, 1)));
+    catalogSnapshot.refreshStock();
+    assertThat(catalogSnapshot.current().version()).isGreaterThan(version);
+    assertThat(catalogSnapshot.findDto(laptop.getId()).orElseThrow().getStock()).isEqualTo(1);
+    assertThat(catalogSnapshot.findDto(phone.getId()).orElseThrow().getStock()).isEqualTo(8);
+    verify(productRepository, never()).findAllStock();
+  }
+
+  @Test
+  void reconcileShouldPickUpProductsSavedOrDeletedWithoutEvent() {
+    Product laptop = product("Laptop", 3, 1);
+    Product tablet = product("Tablet", 5, 1);
+    Product mouse = product("Mouse", 9, 1);
+    Product phone = product("Phone", 8, 1);
+    when(productRepository.findAllWithDeals()).thenReturn(List.of(laptop, tablet, mouse));
+    catalogSnapshot.rebuild();
+
+    Product renamed = product("Gaming Laptop", 3, 2);
+    renamed.setId(laptop.getId());
+    renamed.setPrice(BigDecimal.valueOf(150));
+    when(productRepository.findAllStock())
+        .thenReturn(
+            List.of(
+                stock(laptop.getId(), 2, 3),
+                stock(mouse.getId(), 1, 9),
+                stock(phone.getId(), 1, 8)));
+    when(productRepository.findWithDealsByIdIn(any())).thenReturn(List.of(renamed, phone));
+    catalogSnapshot.reconcile();
+
+    assertThat(catalogSnapshot.current().products())
+        .extracting(ProductDTO::getName)
+        .containsExactly("Gaming Laptop", "Mouse", "Phone");
+    assertThat(catalogSnapshot.find(laptop.getId()))
+        .get()
+        .extracting(Product::getPrice)
+        .isEqualTo(BigDecimal.valueOf(150));
+    List<UUID> reloaded = List.of(laptop.getId(), phone.getId());
+    verify(productRepository)
+        .findWithDealsByIdIn(argThat(ids -> ids.size() == 2 && ids.containsAll(reloaded)));
+    verify(productRepository, never()).findWithDealsById(any());
+  }
+
+  @Test
+  void unknownProductShouldBeMissingWithoutQueryingTheDatabase() {
+    long version = catalogSnapshot.current().version();
+
+    assertThat(catalogSnapshot.find(UUID.randomUUID())).isEmpty();
+    assertThat(catalogSnapshot.findDto(UUID.randomUUID())).isEmpty();
+    assertThat(catalogSnapshot.current().version()).isEqualTo(version);
+    verify(productRepository, never()).findWithDealsById(any());
+    verify(productRepository, never()).findAllWithDeals();
+  }
+
+  private static Product product(String name, int stock, long version) {
+    return Product.builder()
+        .id(UUID.randomUUID())
+        .version(version)
+        .name(name)
+        .category(ProductCategory.LAPTOP)
+        .price(BigDecimal.valueOf(100))
+        .stock(stock)
+        .available(true)
+        .build();
+  }
+
+  private static ProductStock stock(UUID id, long version, int stock) {
+    ProductStock row = mock(ProductStock.class);
+    when(row.getId()).thenReturn(id);
+    when(row.getVersion()).thenReturn(version);
+    when(row.getStock()).thenReturn(stock);
+    return row;
+  }
+}
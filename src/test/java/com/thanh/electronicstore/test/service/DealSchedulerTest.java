@@ -0,0 +1,120 @@
+package com.thanh.electronicstore.test.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.thanh.electronicstore.repository.DealRepository;
+import com.thanh.electronicstore.repository.DealRepository.DealWindow;
+import com.thanh.electronicstore.service.DealScheduler;
+import com.thanh.electronicstore.service.ProductChangedEvent;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class DealSchedulerTest {
+
+  private final MutableClock clock = new MutableClock(Instant.parse("2025-01-01T00:00:00Z"));
+  private final DealRepository dealRepository = mock(DealRepository.class);
+  private final List<Object> published = new ArrayList<>();
+  private final DealScheduler scheduler = new DealScheduler(dealRepository, published::add, clock);
+
+  private final UUID productId = UUID.randomUUID();
+
+  @Test
+  void startsAndExpirationsShouldBeAnnouncedOnceEach() {
+    LocalDateTime start = now().plusSeconds(10);
+    LocalDateTime end = now().plusSeconds(20);
+    // Two deals sharing the same end make a single boundary.
+    windows(window(start, end), window(null, end), window(null, now().minusSeconds(1)));
+    scheduler.reload(productId);
+
+    assertThat(scheduler.announceDue()).isZero();
+
+    clock.advance(Duration.ofSeconds(10));
+    assertThat(scheduler.announceDue()).isEqualTo(1);
+    assertThat(scheduler.announceDue()).isZero();
+
+    clock.advance(Duration.ofSeconds(10));
+    assertThat(scheduler.announceDue()).isEqualTo(1);
+    assertThat(published)
+        .containsExactly(new ProductChangedEvent(productId), new ProductChangedEvent(productId));
+  }
+
+  @Test
+  void movedBoundaryShouldOnlyBeAnnouncedAtItsNewTime() {
+    windows(window(null, now().plusSeconds(10)));
+    scheduler.reload(productId);
+    windows(window(null, now().plusSeconds(30)));
+    scheduler.reload(productId);
+
+    clock.advance(Duration.ofSeconds(10));
+    assertThat(scheduler.announceDue()).isZero();
+
+    clock.advance(Duration.ofSeconds(20));
+    assertThat(scheduler.announceDue()).isEqualTo(1);
+    assertThat(scheduler.pending()).isZero();
+  }
+
+  @Test
+  void productChangesAnnouncedElsewhereShouldReloadBoundaries() {
+    windows(window(null, now().plusSeconds(10)));
+
+    scheduler.onProductChanged(new ProductChangedEvent(productId));
+
+    assertThat(scheduler.pending()).isEqualTo(1);
+  }
+
+  private void windows(DealWindow... windows) {
+    when(dealRepository.findUpcomingWindowsByProductId(eq(productId), any()))
+        .thenReturn(List.of(windows));
+  }
+
+  private DealWindow window(LocalDateTime startsAt, LocalDateTime expiration) {
+    DealWindow window = mock(DealWindow.class);
+    when(window.getProductId()).thenReturn(productId);
+    when(window.getStartsAt()).thenReturn(startsAt);
+    when(window.getExpiration()).thenReturn(expiration);
+    return window;
+  }
+
+  private LocalDateTime now() {
+    return LocalDateTime.now(clock);
+  }
+
+  private static class MutableClock extends Clock {
+    private Instant now;
+
+    MutableClock(Instant now) {
+      this.now = now;
+    }
+
+    void advance(Duration duration) {
+      now = now.plus(duration);
+    }
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      return now;
+    }
+  }
+}
@@ -3,14 +3,18 @@ package com.thanh.electronicstore.test.service;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.thanh.electronicstore.dto.DealDTO;
+import com.thanh.electronicstore.exception.InvalidDealException;
 import com.thanh.electronicstore.model.Deal;
 import com.thanh.electronicstore.model.DealType;
+import com.thanh.electronicstore.model.Product;
 import com.thanh.electronicstore.repository.DealRepository;
 import com.thanh.electronicstore.service.DealService;
+import com.thanh.electronicstore.service.ProductChangedEvent;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -20,11 +24,13 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 @ExtendWith(MockitoExtension.class)
 class DealServiceTest {
 
   @Mock private DealRepository dealRepository;
+  @Mock private ApplicationEventPublisher eventPublisher;
   @InjectMocks private DealService dealService;
 
   @Test
@@ -83,6 +89,28 @@ class DealServiceTest {
     verify(dealRepository).save(existing);
   }
 
+  @Test
+  void updateDeal_shouldRefreshEveryProductOfTheDeal() {
+    UUID id = UUID.randomUUID();
+    Product first = Product.builder().id(UUID.randomUUID()).build();
+    Product second = Product.builder().id(UUID.randomUUID()).build();
+    Deal existing =
+        Deal.builder()
+            .id(id)
+            .expiration(LocalDateTime.now().plusDays(1))
+            .products(List.of(first, second))
+            .build();
+    DealDTO updated =
+        DealDTO.builder().expiration(LocalDateTime.now().minusDays(1).toString()).build();
+
+    when(dealRepository.findById(id)).thenReturn(Optional.of(existing));
+
+    dealService.updateDeal(id.toString(), updated);
+
+    verify(eventPublisher).publishEvent(new ProductChangedEvent(first.getId()));
+    verify(eventPublisher).publishEvent(new ProductChangedEvent(second.getId()));
+  }
+
   @Test
   void updateDeal_shouldThrowExceptionIfDealNotFound() {
     UUID id = UUID.randomUUID();
@@ -118,4 +146,23 @@ class DealServiceTest {
         .isInstanceOf(IllegalArgumentException.class)
         .hasMessage("Invalid expiration date time!");
   }
+
+  @Test
+  void updateDeal_shouldRejectDealThatStartsAfterItExpires() {
+    UUID id = UUID.randomUUID();
+    Deal existing =
+        Deal.builder()
+            .id(id)
+            .startsAt(LocalDateTime.now().plusDays(2))
+            .expiration(LocalDateTime.now().plusDays(5))
+            .build();
+    DealDTO updated =
+        DealDTO.builder().expiration(LocalDateTime.now().plusDays(1).toString()).build();
+
+    when(dealRepository.findById(id)).thenReturn(Optional.of(existing));
+
+    assertThatThrownBy(() -> dealService.updateDeal(id.toString(), updated))
+        .isInstanceOf(InvalidDealException.class);
+    verify(dealRepository, never()).save(any());
+  }
 }
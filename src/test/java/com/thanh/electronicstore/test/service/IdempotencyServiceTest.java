@@ -0,0 +1,184 @@
+package com.thanh.electronicstore.test.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thanh.electronicstore.exception.IdempotencyKeyReusedException;
+import com.thanh.electronicstore.service.IdempotencyService;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+class IdempotencyServiceTest {
+
+  private final IdempotencyService idempotencyService =
+      new IdempotencyService(new ObjectMapper(), 100, Duration.ofMinutes(5), Duration.ofSeconds(5));
+
+  @Test
+  void shouldReplayFirstResponseForSameKey() {
+    AtomicInteger calls = new AtomicInteger();
+
+    ResponseEntity<Integer> first =
+        idempotencyService.execute(
+            "key-1", "POST /baskets", "body", () -> ResponseEntity.ok(calls.incrementAndGet()));
+    ResponseEntity<Integer> retry =
+        idempotencyService.execute(
+            "key-1", "POST /baskets", "body", () -> ResponseEntity.ok(calls.incrementAndGet()));
+
+    assertThat(calls).hasValue(1);
+    assertThat(retry.getBody()).isEqualTo(first.getBody());
+    assertThat(retry.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+  }
+
+  @Test
+  void shouldRunAgainWithoutKeyOrForAnotherScope() {
+    AtomicInteger calls = new AtomicInteger();
+
+    idempotencyService.execute(
+        null, "POST /baskets", "body", () -> ResponseEntity.ok(calls.incrementAndGet()));
+    idempotencyService.execute(
+        null, "POST /baskets", "body", () -> ResponseEntity.ok(calls.incrementAndGet()));
+    idempotencyService.execute(
+        "key-1", "POST /a", "body", () -> ResponseEntity.ok(calls.incrementAndGet()));
+    idempotencyService.execute(
+        "key-1", "POST /b", "body", () -> ResponseEntity.ok(calls.incrementAndGet()));
+
+    assertThat(calls).hasValue(4);
+  }
+
+  @Test
+  void shouldForgetFailedRequests() {
+    assertThatThrownBy(
+            () ->
+                idempotencyService.execute(
+                    "key-1",
+                    "POST /baskets",
+                    "body",
+                    () -> {
+                      throw new IllegalStateException("boom");
+                    }))
+        .isInstanceOf(IllegalStateException.class);
+
+    ResponseEntity<String> retry =
+        idempotencyService.execute(
+            "key-1", "POST /baskets", "body", () -> ResponseEntity.ok("done"));
+
+    assertThat(retry.getBody()).isEqualTo("done");
+    assertThat(retry.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+  }
+
+  @Test
+  void concurrentDuplicatesShouldWaitForFirstRequest() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      Future<ResponseEntity<Integer>> first =
+          executor.submit(
+              () ->
+                  idempotencyService.execute(
+                      "key-1",
+                      "POST /baskets",
+                      "body",
+                      () -> {
+                        started.countDown();
+                        await(release);
+                        return ResponseEntity.ok(calls.incrementAndGet());
+                      }));
+      assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+      List<Future<ResponseEntity<Integer>>> duplicates = new ArrayList<>();
+      for (int i = 0; i < 3; i++) {
+        duplicates.add(
+            executor.submit(
+                () ->
+                    idempotencyService.execute(
+                        "key-1",
+                        "POST /baskets",
+                        "body",
+                        () -> ResponseEntity.ok(calls.incrementAndGet()))));
+      }
+      release.countDown();
+
+      assertThat(first.get(5, TimeUnit.SECONDS).getBody()).isEqualTo(1);
+      for (Future<ResponseEntity<Integer>> duplicate : duplicates) {
+        assertThat(duplicate.get(5, TimeUnit.SECONDS).getBody()).isEqualTo(1);
+      }
+      assertThat(calls).hasValue(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldRejectKeyReusedWithDifferentRequest() {
+    idempotencyService.execute("key-1", "POST /baskets", "body", () -> ResponseEntity.ok("done"));
+
+    assertThatThrownBy(
+            () ->
+                idempotencyService.execute(
+                    "key-1", "POST /baskets", "other body", () -> ResponseEntity.ok("again")))
+        .isInstanceOf(IdempotencyKeyReusedException.class);
+  }
+
+  @Test
+  void duplicatesOfFailedRequestShouldRunItThemselves() throws Exception {
+    AtomicInteger calls = new AtomicInteger();
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<ResponseEntity<Integer>> first =
+          executor.submit(
+              () ->
+                  idempotencyService.execute(
+                      "key-1",
+                      "POST /baskets",
+                      "body",
+                      () -> {
+                        started.countDown();
+                        await(release);
+                        // An Error, not a RuntimeException, must not leave duplicates waiting.
+                        throw new AssertionError("boom");
+                      }));
+      assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+      Future<ResponseEntity<Integer>> duplicate =
+          executor.submit(
+              () ->
+                  idempotencyService.execute(
+                      "key-1",
+                      "POST /baskets",
+                      "body",
+                      () -> ResponseEntity.ok(calls.incrementAndGet())));
+      release.countDown();
+
+      assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS))
+          .hasCauseInstanceOf(AssertionError.class);
+      ResponseEntity<Integer> response = duplicate.get(5, TimeUnit.SECONDS);
+      assertThat(response.getBody()).isEqualTo(1);
+      assertThat(response.getHeaders().containsKey(IdempotencyService.REPLAYED_HEADER)).isFalse();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
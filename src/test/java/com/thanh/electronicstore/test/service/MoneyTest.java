@@ -0,0 +1,86 @@
+package com.thanh.electronicstore.test.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thanh.electronicstore.dto.ProductDTO;
+import com.thanh.electronicstore.dto.ReceiptDTO;
+import com.thanh.electronicstore.dto.ReceiptItemDTO;
+import com.thanh.electronicstore.model.Money;
+import java.math.BigDecimal;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+class MoneyTest {
+
+  private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+  @Test
+  void shouldSerializeLikeTheBigDecimalAmount() throws Exception {
+    for (long minorUnits : new long[] {0, 5, -5, 100, -1999, 123_456_789, Long.MIN_VALUE}) {
+      assertThat(objectMapper.writeValueAsString(Money.ofMinor(minorUnits)))
+          .isEqualTo(objectMapper.writeValueAsString(BigDecimal.valueOf(minorUnits, 2)));
+    }
+  }
+
+  @Test
+  void receiptJsonShouldKeepItsShape() throws Exception {
+    ReceiptDTO receipt =
+        ReceiptDTO.builder()
+            .basketId("basket")
+            .items(
+                List.of(
+                    ReceiptItemDTO.builder()
+                        .productName("Kindle")
+                        .quantity(2)
+                        .originalPrice(Money.ofMinor(40_000))
+                        .discount(Money.ofMinor(5))
+                        .finalPrice(Money.ofMinor(39_995))
+                        .build()))
+            .totalPrice(Money.ofMinor(39_995))
+            .build();
+
+    assertThat(objectMapper.writeValueAsString(receipt))
+        .isEqualTo(
+            "{\"basketId\":\"basket\",\"items\":[{\"productName\":\"Kindle\",\"quantity\":2,"
+                + "\"originalPrice\":400.00,\"discount\":0.05,\"finalPrice\":399.95}],"
+                + "\"totalPrice\":399.95}");
+  }
+
+  @Test
+  void shouldReadNumbersAndStrings() throws Exception {
+    assertThat(price("199.99")).isEqualTo(Money.ofMinor(19_999));
+    assertThat(price("200")).isEqualTo(Money.ofMinor(20_000));
+    assertThat(price("-0.5")).isEqualTo(Money.ofMinor(-50));
+    assertThat(price("\"12.30\"")).isEqualTo(Money.ofMinor(1_230));
+    assertThat(price("null")).isNull();
+  }
+
+  @Test
+  void shouldRoundWhatItCannotParseDirectly() throws Exception {
+    assertThat(price("1e2")).isEqualTo(Money.ofMinor(10_000));
+    assertThat(price("1.005")).isEqualTo(Money.ofMinor(101));
+    assertThat(price("1234567890123456.78")).isEqualTo(Money.ofMinor(123_456_789_012_345_678L));
+  }
+
+  @Test
+  void shouldRejectWhatIsNotAnAmount() {
+    assertThatThrownBy(() -> price("\"ten\"")).isInstanceOf(Exception.class);
+    assertThatThrownBy(() -> price("1e30")).isInstanceOf(Exception.class);
+  }
+
+  @Test
+  void arithmeticShouldBeExact() {
+    assertThat(Money.ofMinor(1_999).plus(Money.ofMinor(1)).toBigDecimal())
+        .isEqualByComparingTo("20.00");
+    assertThat(Money.of(new BigDecimal("0.125"))).isEqualTo(Money.ofMinor(13));
+    assertThatThrownBy(() -> Money.ofMinor(Long.MAX_VALUE).plus(Money.ofMinor(1)))
+        .isInstanceOf(ArithmeticException.class);
+  }
+
+  private Money price(String json) throws Exception {
+    return objectMapper.readValue("{\"price\":" + json + "}", ProductDTO.class).getPrice();
+  }
+}
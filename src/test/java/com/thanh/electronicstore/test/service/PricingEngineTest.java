@@ -0,0 +1,195 @@
+package com.thanh.electronicstore.test.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import com.thanh.electronicstore.dto.ReceiptDTO;
+import com.thanh.electronicstore.dto.ReceiptItemDTO;
+import com.thanh.electronicstore.model.Basket;
+import com.thanh.electronicstore.model.BasketItem;
+import com.thanh.electronicstore.model.Deal;
+import com.thanh.electronicstore.model.DealType;
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.repository.DealRepository;
+import com.thanh.electronicstore.service.ActiveDeal;
+import com.thanh.electronicstore.service.ActiveDealIndex;
+import com.thanh.electronicstore.service.DealCalculatorService;
+import com.thanh.electronicstore.service.DealStrategy;
+import com.thanh.electronicstore.service.PricingEngine;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the long-cents pricing against the BigDecimal strategies on randomly generated prices,
+ * quantities and deal values. The seed is fixed so a failure can be reproduced.
+ */
+class PricingEngineTest {
+  private static final int SAMPLES = 20_000;
+
+  private final DealCalculatorService dealCalculatorService = new DealCalculatorService();
+  private final ActiveDealIndex activeDealIndex =
+      new ActiveDealIndex(mock(DealRepository.class), Clock.systemDefaultZone());
+  private final PricingEngine pricingEngine =
+      new PricingEngine(dealCalculatorService, activeDealIndex);
+  private final Random random = new Random(20250101L);
+
+  @Test
+  void centsDiscountShouldMatchBigDecimalDiscountForEveryStrategy() {
+    for (DealType type : DealType.values()) {
+      DealStrategy strategy = type.getStrategy();
+      for (int i = 0; i < SAMPLES; i++) {
+        BigDecimal unitPrice = randomPrice();
+        int quantity = 1 + random.nextInt(50);
+        BigDecimal dealValue = randomDealValue(type);
+
+        BigDecimal expected = strategy.calculateDiscount(unitPrice, quantity, dealValue);
+        long cents =
+            strategy.calculateDiscountCents(
+                unitPrice.movePointRight(2).longValueExact(),
+                quantity,
+                strategy.scaleDealValue(dealValue));
+
+        assertThat(BigDecimal.valueOf(cents, 2))
+            .as("%s of %s x %s at %s", type, unitPrice, quantity, dealValue)
+            .isEqualByComparingTo(expected);
+      }
+    }
+  }
+
+  @Test
+  void receiptShouldMatchBigDecimalReceipt() {
+    for (int i = 0; i < SAMPLES / 20; i++) {
+      Basket basket = randomBasket();
+
+      ReceiptDTO receipt = pricingEngine.price(basket);
+
+      assertThat(receipt.getTotalPrice().toBigDecimal())
+          .isEqualByComparingTo(referenceTotal(basket));
+      for (int line = 0; line < receipt.getItems().size(); line++) {
+        ReceiptItemDTO item = receipt.getItems().get(line);
+        BasketItem basketItem = basket.getBasketItems().get(line);
+        assertThat(item.getDiscount().toBigDecimal())
+            .isEqualByComparingTo(referenceDiscount(basketItem.getProduct(), item.getQuantity()));
+        assertThat(item.getFinalPrice().toBigDecimal())
+            .isEqualByComparingTo(item.getOriginalPrice().minus(item.getDiscount()).toBigDecimal());
+      }
+    }
+  }
+
+  @Test
+  void linesWithoutExactCentsShouldFallBackToBigDecimal() {
+    Product subCentPrice =
+        product(new BigDecimal("9.999"), deal(DealType.PERCENTAGE_DISCOUNT, "15"));
+    Product fineFixedDeal =
+        product(new BigDecimal("20.00"), deal(DealType.FIXED_AMOUNT_DISCOUNT, "0.123456"));
+    Product huge =
+        product(
+            BigDecimal.valueOf(Long.MAX_VALUE / 1000, 2), deal(DealType.PERCENTAGE_DISCOUNT, "10"));
+    Basket basket = basket(List.of(subCentPrice, fineFixedDeal, huge), 3);
+
+    ReceiptDTO receipt = pricingEngine.price(basket);
+
+    assertThat(receipt.getTotalPrice().toBigDecimal()).isEqualByComparingTo(referenceTotal(basket));
+    assertThat(receipt.getItems().get(0).getOriginalPrice().toBigDecimal())
+        .isEqualByComparingTo("30.00");
+  }
+
+  private Basket randomBasket() {
+    List<Product> products = new ArrayList<>();
+    int lines = 1 + random.nextInt(20);
+    for (int line = 0; line < lines; line++) {
+      List<Deal> deals = new ArrayList<>();
+      int dealCount = random.nextInt(3);
+      for (int d = 0; d < dealCount; d++) {
+        DealType type = DealType.values()[random.nextInt(DealType.values().length)];
+        deals.add(deal(type, randomDealValue(type).toPlainString()));
+      }
+      products.add(product(randomPrice(), deals.toArray(Deal[]::new)));
+    }
+    return basket(products, 1 + random.nextInt(10));
+  }
+
+  private BigDecimal randomPrice() {
+    return BigDecimal.valueOf(1 + random.nextInt(500_000), 2);
+  }
+
+  private BigDecimal randomDealValue(DealType type) {
+    return switch (type) {
+        // Up to 100% with up to three decimals, so the 4-digit rate is rounded.
+      case PERCENTAGE_DISCOUNT -> BigDecimal.valueOf(random.nextInt(100_001), random.nextInt(4));
+        // Up to 1000.0000, sometimes above the unit price.
+      case FIXED_AMOUNT_DISCOUNT -> BigDecimal.valueOf(random.nextInt(10_000_001), 4);
+    };
+  }
+
+  /** The sum of the lines' final prices, each rounded to cents as the receipt holds them. */
+  private BigDecimal referenceTotal(Basket basket) {
+    BigDecimal total = BigDecimal.ZERO;
+    for (BasketItem item : basket.getBasketItems()) {
+      BigDecimal original =
+          item.getProduct().getPrice().multiply(BigDecimal.valueOf(item.getQuantity()));
+      total =
+          total.add(
+              original
+                  .subtract(referenceDiscount(item.getProduct(), item.getQuantity()))
+                  .setScale(2, RoundingMode.HALF_UP));
+    }
+    return total;
+  }
+
+  private BigDecimal referenceDiscount(Product product, int quantity) {
+    BigDecimal discount = BigDecimal.ZERO;
+    for (Deal deal : product.getDeals()) {
+      discount =
+          discount.add(dealCalculatorService.calculateDiscount(deal, product.getPrice(), quantity));
+    }
+    return discount;
+  }
+
+  private static Basket basket(List<Product> products, int quantity) {
+    Basket basket = Basket.builder().id(UUID.randomUUID()).build();
+    for (Product product : products) {
+      basket
+          .getBasketItems()
+          .add(BasketItem.builder().basket(basket).product(product).quantity(quantity).build());
+    }
+    return basket;
+  }
+
+  private Product product(BigDecimal price, Deal... deals) {
+    Product product =
+        Product.builder()
+            .id(UUID.randomUUID())
+            .name("Product")
+            .price(price)
+            .deals(List.of(deals))
+            .build();
+    activeDealIndex.replace(
+        product.getId(),
+        product.getPrice(),
+        product.getDeals().stream()
+            .map(
+                deal ->
+                    ActiveDeal.of(
+                        deal.getId(),
+                        deal.getType(),
+                        deal.getDiscountValue(),
+                        deal.getExpiration()))
+            .toList());
+    return product;
+  }
+
+  private static Deal deal(DealType type, String value) {
+    return Deal.builder()
+        .id(UUID.randomUUID())
+        .type(type)
+        .discountValue(new BigDecimal(value))
+        .build();
+  }
+}
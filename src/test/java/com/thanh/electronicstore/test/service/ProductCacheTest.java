@@ -0,0 +1,101 @@
+package com.thanh.electronicstore.test.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.model.ProductCategory;
+import com.thanh.electronicstore.repository.ProductRepository;
+import com.thanh.electronicstore.service.ProductCache;
+import com.thanh.electronicstore.service.ProductChangedEvent;
+import com.thanh.electronicstore.service.StockChangedEvent;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class ProductCacheTest {
+
+  private final ProductRepository productRepository = mock(ProductRepository.class);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final ProductCache productCache =
+      new ProductCache(productRepository, meterRegistry, 100, 60_000);
+
+  @Test
+  void shouldLoadProductOnceUntilItChanges() {
+    Product laptop = product(3);
+    when(productRepository.findWithDealsById(laptop.getId())).thenReturn(Optional.of(laptop));
+
+    productCache.get(laptop.getId());
+    productCache.get(laptop.getId());
+    verify(productRepository, times(1)).findWithDealsById(laptop.getId());
+
+    productCache.onProductChanged(new ProductChangedEvent(laptop.getId()));
+    productCache.get(laptop.getId());
+    verify(productRepository, times(2)).findWithDealsById(laptop.getId());
+  }
+
+  @Test
+  void stockChangeShouldDropOnlyTheProductsItNames() {
+    Product laptop = product(3);
+    Product phone = product(8);
+    when(productRepository.findWithDealsById(laptop.getId())).thenReturn(Optional.of(laptop));
+    when(productRepository.findWithDealsById(phone.getId())).thenReturn(Optional.of(phone));
+    productCache.get(laptop.getId());
+    productCache.get(phone.getId());
+
+    laptop.setStock(1);
+    productCache.onStockChanged(new StockChangedEvent(List.of(laptop.getId())));
+
+    assertThat(productCache.get(laptop.getId()).orElseThrow().getStock()).isEqualTo(1);
+    productCache.get(phone.getId());
+    verify(productRepository, times(1)).findWithDealsById(phone.getId());
+  }
+
+  @Test
+  void missingProductShouldNotBeCached() {
+    UUID id = UUID.randomUUID();
+    when(productRepository.findWithDealsById(id)).thenReturn(Optional.empty());
+
+    assertThat(productCache.get(id)).isEmpty();
+    assertThat(productCache.get(id)).isEmpty();
+    verify(productRepository, times(2)).findWithDealsById(id);
+  }
+
+  @Test
+  void shouldPublishHitAndMissCounters() {
+    Product laptop = product(3);
+    when(productRepository.findWithDealsById(laptop.getId())).thenReturn(Optional.of(laptop));
+
+    productCache.get(laptop.getId());
+    productCache.get(laptop.getId());
+
+    assertThat(gets("hit")).isEqualTo(1);
+    assertThat(gets("miss")).isEqualTo(1);
+  }
+
+  private double gets(String result) {
+    return meterRegistry
+        .get("cache.gets")
+        .tags("cache", "products", "result", result)
+        .functionCounter()
+        .count();
+  }
+
+  private static Product product(int stock) {
+    return Product.builder()
+        .id(UUID.randomUUID())
+        .version(1L)
+        .name("Product")
+        .category(ProductCategory.LAPTOP)
+        .price(BigDecimal.valueOf(100))
+        .stock(stock)
+        .available(true)
+        .build();
+  }
+}
@@ -2,50 +2,75 @@ package com.thanh.electronicstore.test.service;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
-import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.thanh.electronicstore.dto.DealDTO;
+import com.thanh.electronicstore.dto.ProductCursor;
 import com.thanh.electronicstore.dto.ProductDTO;
 import com.thanh.electronicstore.dto.ProductFilterCriteria;
+import com.thanh.electronicstore.dto.ProductSliceDTO;
+import com.thanh.electronicstore.dto.ProductSort;
+import com.thanh.electronicstore.exception.InvalidCursorException;
 import com.thanh.electronicstore.exception.InvalidDealException;
+import com.thanh.electronicstore.exception.InvalidPageSizeException;
+import com.thanh.electronicstore.exception.ProductNotFoundException;
 import com.thanh.electronicstore.model.Deal;
 import com.thanh.electronicstore.model.DealType;
+import com.thanh.electronicstore.model.Money;
 import com.thanh.electronicstore.model.Product;
 import com.thanh.electronicstore.model.ProductCategory;
+import com.thanh.electronicstore.model.StockReservation;
 import com.thanh.electronicstore.repository.DealRepository;
 import com.thanh.electronicstore.repository.ProductRepository;
+import com.thanh.electronicstore.service.CatalogSnapshot;
+import com.thanh.electronicstore.service.ProductCache;
 import com.thanh.electronicstore.service.ProductService;
+import com.thanh.electronicstore.service.StockChangedEvent;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
 
 @ExtendWith(MockitoExtension.class)
 class ProductServiceTest {
 
   @Mock private ProductRepository productRepository;
   @Mock private DealRepository dealRepository;
+  @Mock private ApplicationEventPublisher eventPublisher;
+  @Mock private CatalogSnapshot catalogSnapshot;
+  @Mock private ProductCache productCache;
 
-  @InjectMocks private ProductService productService;
+  private ProductService productService;
+
+  @BeforeEach
+  void setUp() {
+    productService =
+        new ProductService(
+            productRepository, dealRepository, eventPublisher, catalogSnapshot, productCache, 50);
+  }
 
   @Test
   void getProductEntityById_shouldReturnProductWhenFound() {
@@ -65,6 +90,25 @@ class ProductServiceTest {
     assertThat(actualProduct).isEqualTo(product);
   }
 
+  @Test
+  void getProductById_shouldReadTheProductCache() {
+    UUID id = UUID.randomUUID();
+    ProductDTO product = ProductDTO.builder().id(id.toString()).name("Test Product").build();
+    when(productCache.get(id)).thenReturn(Optional.of(product));
+
+    assertThat(productService.getProductById(id.toString())).isSameAs(product);
+    verify(productRepository, times(0)).findById(any());
+  }
+
+  @Test
+  void getProductById_shouldThrowWhenNotFound() {
+    UUID id = UUID.randomUUID();
+    when(productCache.get(id)).thenReturn(Optional.empty());
+
+    assertThrows(
+        ProductNotFoundException.class, () -> productService.getProductById(id.toString()));
+  }
+
   @Test
   void getProductEntityById_shouldThrowExceptionWhenNotFound() {
     UUID id = UUID.randomUUID();
@@ -78,7 +122,7 @@ class ProductServiceTest {
         ProductDTO.builder()
             .name("Phone")
             .category(ProductCategory.LAPTOP)
-            .price(BigDecimal.valueOf(500))
+            .price(Money.ofMinor(50000))
             .stock(10)
             .available(true)
             .build();
@@ -105,10 +149,35 @@ class ProductServiceTest {
     assertEquals("Phone", saved.getName());
     assertEquals(ProductCategory.LAPTOP, saved.getCategory());
     assertEquals(10, saved.getStock());
-    assertEquals(BigDecimal.valueOf(500), saved.getPrice());
+    assertEquals(0, BigDecimal.valueOf(500).compareTo(saved.getPrice()));
     assertTrue(saved.getAvailable());
   }
 
+  @Test
+  void createProduct_shouldRejectDealThatStartsAfterItExpires() {
+    LocalDateTime now = LocalDateTime.now();
+    ProductDTO dto =
+        ProductDTO.builder()
+            .name("Phone")
+            .category(ProductCategory.PHONE)
+            .price(Money.ofMinor(50000))
+            .stock(10)
+            .available(true)
+            .deals(
+                List.of(
+                    DealDTO.builder()
+                        .description("Backwards")
+                        .type("PERCENTAGE_DISCOUNT")
+                        .startsAt(now.plusDays(2).toString())
+                        .expiration(now.plusDays(1).toString())
+                        .discountValue(BigDecimal.TEN)
+                        .build()))
+            .build();
+
+    assertThrows(InvalidDealException.class, () -> productService.createProduct(dto));
+    verify(productRepository, never()).save(any(Product.class));
+  }
+
   @Test
   void addDeal_shouldAddDealsToProduct() {
     UUID productId = UUID.randomUUID();
@@ -172,6 +241,20 @@ class ProductServiceTest {
         InvalidDealException.class, () -> productService.addDeals(List.of(dto), id.toString()));
   }
 
+  @Test
+  void reserveStock_shouldReportEachReservation() {
+    UUID id = UUID.randomUUID();
+    List<StockReservation> reservations =
+        List.of(new StockReservation(id, 3), new StockReservation(id, 30));
+    when(productRepository.decrementStock(reservations)).thenReturn(new boolean[] {true, false});
+
+    boolean[] reserved = productService.reserveStock(reservations);
+
+    assertTrue(reserved[0]);
+    assertFalse(reserved[1]);
+    verify(eventPublisher).publishEvent(new StockChangedEvent(List.of(id)));
+  }
+
   @Test
   void deleteProduct_shouldDeleteIfExist() {
     UUID id = UUID.randomUUID();
@@ -227,25 +310,67 @@ class ProductServiceTest {
     List<Product> mockResult = List.of(p1, p3);
     Page<Product> mockPage = new PageImpl<>(mockResult);
 
-    when(productRepository.findByFilter(
-            eq(ProductCategory.PHONE),
-            eq(BigDecimal.valueOf(100)),
-            eq(BigDecimal.valueOf(600)),
-            eq(true),
-            any(Pageable.class)))
-        .thenReturn(mockPage);
+    when(productRepository.findByFilter(criteria, PageRequest.of(0, 10))).thenReturn(mockPage);
 
     List<ProductDTO> result = productService.filterProducts(criteria, 0, 10);
 
     assertThat(result).hasSize(2);
     assertThat(result).extracting(ProductDTO::getName).containsExactly("Phone", "Tablet 1");
 
-    verify(productRepository)
-        .findByFilter(
-            eq(ProductCategory.PHONE),
-            eq(BigDecimal.valueOf(100)),
-            eq(BigDecimal.valueOf(600)),
-            eq(true),
-            eq(PageRequest.of(0, 10)));
+    verify(productRepository).findByFilter(criteria, PageRequest.of(0, 10));
+  }
+
+  @Test
+  void scrollProducts_shouldSeekPastTheCursorOfThePreviousSlice() {
+    ProductFilterCriteria criteria = ProductFilterCriteria.builder().available(true).build();
+    Product cheap =
+        Product.builder()
+            .id(UUID.randomUUID())
+            .name("Phone")
+            .price(BigDecimal.valueOf(100))
+            .category(ProductCategory.PHONE)
+            .build();
+    when(productRepository.findSlice(criteria, ProductSort.PRICE, null, 1))
+        .thenReturn(new SliceImpl<>(List.of(cheap), PageRequest.of(0, 1), true));
+
+    ProductSliceDTO first = productService.scrollProducts(criteria, ProductSort.PRICE, null, 1);
+
+    assertThat(first.getProducts()).extracting(ProductDTO::getName).containsExactly("Phone");
+    assertNotNull(first.getNextCursor());
+
+    ProductCursor after = new ProductCursor(ProductSort.PRICE, "100", cheap.getId());
+    when(productRepository.findSlice(criteria, ProductSort.PRICE, after, 1))
+        .thenReturn(new SliceImpl<>(List.of(), PageRequest.of(0, 1), false));
+
+    ProductSliceDTO last =
+        productService.scrollProducts(criteria, ProductSort.PRICE, first.getNextCursor(), 1);
+
+    assertThat(last.getProducts()).isEmpty();
+    assertNull(last.getNextCursor());
+  }
+
+  @Test
+  void scrollProducts_shouldRejectCursorOfAnotherSort() {
+    String byPrice = new ProductCursor(ProductSort.PRICE, "100", UUID.randomUUID()).encode();
+
+    assertThrows(
+        InvalidCursorException.class,
+        () ->
+            productService.scrollProducts(
+                ProductFilterCriteria.builder().build(), ProductSort.NAME, byPrice, 10));
+  }
+
+  @Test
+  void scrollProducts_shouldRejectEmptySlicesAndCapLargeOnes() {
+    ProductFilterCriteria criteria = ProductFilterCriteria.builder().build();
+    when(productRepository.findSlice(criteria, ProductSort.PRICE, null, 50))
+        .thenReturn(new SliceImpl<>(List.of(), PageRequest.of(0, 50), false));
+
+    assertThrows(
+        InvalidPageSizeException.class,
+        () -> productService.scrollProducts(criteria, ProductSort.PRICE, null, 0));
+    productService.scrollProducts(criteria, ProductSort.PRICE, null, 1_000_000);
+
+    verify(productRepository).findSlice(criteria, ProductSort.PRICE, null, 50);
   }
 }
@@ -0,0 +1,67 @@
+package com.thanh.electronicstore.test.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.thanh.electronicstore.dto.BasketItemDTO;
+import com.thanh.electronicstore.dto.ReceiptDTO;
+import com.thanh.electronicstore.exception.ProductNotFoundException;
+import com.thanh.electronicstore.model.DealType;
+import com.thanh.electronicstore.model.Product;
+import com.thanh.electronicstore.repository.DealRepository;
+import com.thanh.electronicstore.service.ActiveDeal;
+import com.thanh.electronicstore.service.ActiveDealIndex;
+import com.thanh.electronicstore.service.CatalogSnapshot;
+import com.thanh.electronicstore.service.DealCalculatorService;
+import com.thanh.electronicstore.service.PricingEngine;
+import com.thanh.electronicstore.service.QuoteService;
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.jupiter.api.Test;
+
+class QuoteServiceTest {
+
+  private final CatalogSnapshot catalogSnapshot = mock(CatalogSnapshot.class);
+  private final ActiveDealIndex activeDealIndex =
+      new ActiveDealIndex(mock(DealRepository.class), Clock.systemDefaultZone());
+  private final QuoteService quoteService =
+      new QuoteService(
+          catalogSnapshot, new PricingEngine(new DealCalculatorService(), activeDealIndex));
+
+  @Test
+  void quoteShouldPriceLinesWithLiveDeals() {
+    Product product =
+        Product.builder().id(UUID.randomUUID()).name("Pixel").price(new BigDecimal("500")).build();
+    when(catalogSnapshot.find(product.getId())).thenReturn(Optional.of(product));
+    activeDealIndex.replace(
+        product.getId(),
+        product.getPrice(),
+        List.of(
+            ActiveDeal.of(UUID.randomUUID(), DealType.PERCENTAGE_DISCOUNT, BigDecimal.TEN, null)));
+
+    ReceiptDTO quote =
+        quoteService.quote(List.of(line(product.getId(), 2), line(product.getId(), 0)));
+
+    assertThat(quote.getBasketId()).isNull();
+    assertThat(quote.getItems()).hasSize(1);
+    assertThat(quote.getTotalPrice().toBigDecimal()).isEqualByComparingTo("900");
+  }
+
+  @Test
+  void quoteShouldRejectUnknownProducts() {
+    UUID productId = UUID.randomUUID();
+    when(catalogSnapshot.find(productId)).thenReturn(Optional.empty());
+
+    assertThatThrownBy(() -> quoteService.quote(List.of(line(productId, 1))))
+        .isInstanceOf(ProductNotFoundException.class);
+  }
+
+  private static BasketItemDTO line(UUID productId, int quantity) {
+    return BasketItemDTO.builder().productId(productId.toString()).quantity(quantity).build();
+  }
+}
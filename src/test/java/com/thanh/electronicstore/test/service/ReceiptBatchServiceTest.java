@@ -0,0 +1,84 @@
+package com.thanh.electronicstore.test.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.thanh.electronicstore.dto.ReceiptDTO;
+import com.thanh.electronicstore.exception.InvalidReceiptBatchException;
+import com.thanh.electronicstore.model.Basket;
+import com.thanh.electronicstore.repository.BasketRepository;
+import com.thanh.electronicstore.repository.BasketRepository.BasketVersion;
+import com.thanh.electronicstore.service.BasketPricingService;
+import com.thanh.electronicstore.service.ReceiptBatchService;
+import com.thanh.electronicstore.service.ReceiptCache;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class ReceiptBatchServiceTest {
+
+  private final BasketRepository basketRepository = mock(BasketRepository.class);
+  private final BasketPricingService basketPricingService = mock(BasketPricingService.class);
+  private final ReceiptBatchService receiptBatchService =
+      new ReceiptBatchService(
+          basketRepository,
+          basketPricingService,
+          mock(ReceiptCache.class),
+          mock(PlatformTransactionManager.class),
+          1,
+          3,
+          10);
+
+  @AfterEach
+  void tearDown() {
+    receiptBatchService.shutdown();
+  }
+
+  @Test
+  void shouldRefuseTooManyOrMalformedIds() {
+    String id = UUID.randomUUID().toString();
+
+    assertThatThrownBy(() -> receiptBatchService.parseBasketIds(List.of(id, id, id, id)))
+        .isInstanceOf(InvalidReceiptBatchException.class);
+    assertThatThrownBy(() -> receiptBatchService.parseBasketIds(List.of(id, "not-a-uuid")))
+        .isInstanceOf(InvalidReceiptBatchException.class);
+    assertThat(receiptBatchService.parseBasketIds(List.of(id, id))).hasSize(2);
+  }
+
+  @Test
+  void shouldReportAFailedBasketAndGoOn() {
+    Basket broken = Basket.builder().id(UUID.randomUUID()).version(1L).build();
+    Basket fine = Basket.builder().id(UUID.randomUUID()).version(1L).build();
+    List<UUID> ids = List.of(broken.getId(), fine.getId());
+    List<BasketVersion> versions = List.of(version(broken), version(fine));
+    when(basketRepository.findVersionsByIdIn(ids)).thenReturn(versions);
+    when(basketRepository.findWithItemsAndProductsByIdIn(ids)).thenReturn(List.of(broken, fine));
+    when(basketPricingService.isCurrent(broken)).thenReturn(true);
+    when(basketPricingService.isCurrent(fine)).thenReturn(true);
+    when(basketPricingService.storedReceipt(broken)).thenThrow(new IllegalStateException("boom"));
+    ReceiptDTO receipt = ReceiptDTO.builder().basketId(fine.getId().toString()).build();
+    when(basketPricingService.storedReceipt(fine)).thenReturn(receipt);
+
+    List<ReceiptDTO> receipts = new ArrayList<>();
+    Map<UUID, String> failures = new LinkedHashMap<>();
+    receiptBatchService.calculateReceipts(
+        ids, receipts::add, (basketId, failure) -> failures.put(basketId, failure.getMessage()));
+
+    assertThat(receipts).containsExactly(receipt);
+    assertThat(failures).containsExactly(Map.entry(broken.getId(), "boom"));
+  }
+
+  private static BasketVersion version(Basket basket) {
+    BasketVersion version = mock(BasketVersion.class);
+    when(version.getId()).thenReturn(basket.getId());
+    when(version.getVersion()).thenReturn(basket.getVersion());
+    return version;
+  }
+}
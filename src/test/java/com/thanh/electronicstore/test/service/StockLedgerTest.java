@@ -0,0 +1,78 @@
+package com.thanh.electronicstore.test.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.thanh.electronicstore.service.StockLedger;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.junit.jupiter.api.Test;
+
+class StockLedgerTest {
+
+  @Test
+  void shouldNeverReserveMoreThanAvailableUnderContention() throws Exception {
+    StockLedger ledger = new StockLedger(8);
+    UUID productId = UUID.randomUUID();
+    ledger.seed(productId, 1_000);
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Callable<Integer>> reservers = new ArrayList<>();
+      for (int thread = 0; thread < 8; thread++) {
+        reservers.add(
+            () -> {
+              int reserved = 0;
+              for (int i = 0; i < 200; i++) {
+                if (ledger.tryReserve(productId, 1)) {
+                  reserved++;
+                }
+              }
+              return reserved;
+            });
+      }
+
+      int reserved = 0;
+      for (Future<Integer> result : executor.invokeAll(reservers)) {
+        reserved += result.get();
+      }
+
+      assertThat(reserved).isEqualTo(1_000);
+      assertThat(ledger.available(productId)).isZero();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldReserveQuantitiesSpreadAcrossShards() {
+    StockLedger ledger = new StockLedger(8);
+    UUID productId = UUID.randomUUID();
+    ledger.seed(productId, 10);
+
+    assertThat(ledger.tryReserve(productId, 11)).isFalse();
+    assertThat(ledger.available(productId)).isEqualTo(10);
+
+    assertThat(ledger.tryReserve(productId, 10)).isTrue();
+    assertThat(ledger.tryReserve(productId, 1)).isFalse();
+
+    ledger.release(productId, 4);
+    assertThat(ledger.tryReserve(productId, 4)).isTrue();
+  }
+
+  @Test
+  void shouldKeepCountWhenSeededTwice() {
+    StockLedger ledger = new StockLedger(4);
+    UUID productId = UUID.randomUUID();
+    ledger.seed(productId, 5);
+    ledger.tryReserve(productId, 2);
+
+    ledger.seed(productId, 5);
+
+    assertThat(ledger.available(productId)).isEqualTo(3);
+  }
+}